@@ -1,23 +1,31 @@
 package org.deviceconnect.codegen;
 
 
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.samskivert.mustache.Mustache;
 import com.samskivert.mustache.Template;
 import io.swagger.codegen.ClientOpts;
-import io.swagger.codegen.CodegenConfig;
 import io.swagger.codegen.DefaultCodegen;
 import io.swagger.models.Swagger;
 import org.apache.commons.cli.CommandLine;
 
 import java.io.*;
-import java.util.Map;
-import java.util.Scanner;
+import java.util.*;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public abstract class AbstractCodegenConfig extends DefaultCodegen implements DConnectCodegenConfig {
 
+    private static final Pattern PARTIAL_TAG = Pattern.compile("\\{\\{>\\s*([^}\\s]+)\\s*\\}\\}");
+
     protected Map<String, Swagger> profileSpecs;
 
+    private final Map<String, Template> compiledTemplates = new HashMap<>();
+
+    private TemplateRepository.Cache templateCache = new TemplateRepository.Cache();
+
+    protected CodegenContext codegenContext = CodegenContext.NONE;
+
     protected abstract String profileFileFolder();
 
     @Override
@@ -35,6 +43,23 @@ public abstract class AbstractCodegenConfig extends DefaultCodegen implements DC
         this.profileSpecs = profileSpecs;
     }
 
+    @Override
+    public void setContext(final CodegenContext context) {
+        this.codegenContext = context;
+    }
+
+    /**
+     * 生成処理で使用するテンプレートの格納場所を設定する.
+     *
+     * 設定のインスタンスが生成処理をまたいで使用された場合に備えて、前回の生成処理でコンパイルしたテンプレートは破棄する.
+     *
+     * @param templateCache テンプレートの格納場所
+     */
+    public void setTemplateCache(final TemplateRepository.Cache templateCache) {
+        this.templateCache = templateCache;
+        compiledTemplates.clear();
+    }
+
     @Override
     public String escapeUnsafeCharacters(final String input) {
         return input.replace("*/", "*_/").replace("/*", "/_*");
@@ -56,131 +81,140 @@ public abstract class AbstractCodegenConfig extends DefaultCodegen implements DC
     }
 
     protected void generateProfile(final ProfileTemplate template, final Map<String, Object> properties) throws IOException {
-        final CodegenConfig config = this;
-        String templateFile = getFullTemplateFile(this, template.templateFile);
-        Template tmpl = Mustache.compiler()
-                .withLoader(new Mustache.TemplateLoader() {
-                    @Override
-                    public Reader getTemplate(String name) {
-                        return getTemplateReader(getFullTemplateFile(config, name + ".mustache"));
-                    }
-                })
-                .defaultValue("")
-                .compile(readTemplate(templateFile));
-
-        String outputFileName = profileFileFolder() + File.separator + template.outputFile;
-        writeToFile(outputFileName, tmpl.execute(properties));
-    }
+        Template tmpl = compileTemplate(template.templateFile);
 
-    protected void writeFile(final String source, final File destination) throws IOException {
-        if (destination.exists()) {
-            throw new IOException("Profile Spec File is already created: " + destination.getAbsolutePath());
+        Object context = properties;
+        if (template.properties != null) {
+            Map<String, Object> merged = new HashMap<>(properties);
+            merged.putAll(template.properties);
+            context = merged;
         }
-        if (!destination.createNewFile()) {
-            throw new IOException("Failed to create Profile Spec File: " + destination.getAbsolutePath());
-        }
-        FileOutputStream out = null;
+
+        // 描画結果を文字列として保持せずにファイルへ直接書き出す
+        long start = System.nanoTime();
+        String outputFileName = profileFileFolder() + File.separator + template.outputFile;
+        Writer out = openFile(outputFileName);
         try {
-            out = new FileOutputStream(destination);
-            out.write(source.getBytes());
-            out.flush();
+            tmpl.execute(context, out);
         } finally {
-            if (out != null) {
-                out.close();
-            }
+            out.close();
         }
+        codegenContext.fileWritten(new File(outputFileName), start);
     }
 
-    protected File writeToFile(final String filename, final String contents) throws IOException {
-        LOGGER.info("writing file " + filename);
-        File output = new File(filename);
-
-        if (output.getParent() != null && !new File(output.getParent()).exists()) {
-            File parent = new File(output.getParent());
-            parent.mkdirs();
+    private Template compileTemplate(final String templateFile) {
+        Template tmpl = compiledTemplates.get(templateFile);
+        if (tmpl == null) {
+            final TemplateRepository templates = templateCache.get(this);
+            tmpl = Mustache.compiler()
+                    .withLoader(new Mustache.TemplateLoader() {
+                        @Override
+                        public Reader getTemplate(String name) {
+                            return templates.getReader(templates.getFullTemplateFile(name + ".mustache"));
+                        }
+                    })
+                    .defaultValue("")
+                    .compile(templates.read(templates.getFullTemplateFile(templateFile)));
+            compiledTemplates.put(templateFile, tmpl);
         }
-        Writer out = new BufferedWriter(new OutputStreamWriter(
-                new FileOutputStream(output), "UTF-8"));
+        return tmpl;
+    }
 
-        out.write(contents);
-        out.close();
-        return output;
+    /**
+     * テンプレートとそこから参照される部分テンプレートの内容を取得する.
+     *
+     * @param templateFile テンプレートファイル名
+     * @return テンプレートの内容
+     */
+    protected String readTemplateSource(final String templateFile) {
+        TemplateRepository templates = templateCache.get(this);
+        StringBuilder source = new StringBuilder();
+        readTemplateSource(templates, templates.getFullTemplateFile(templateFile), source, new HashSet<String>());
+        return source.toString();
     }
 
-    private String readTemplate(final String name) {
-        try {
-            Reader reader = getTemplateReader(name);
-            if (reader == null) {
-                throw new RuntimeException("no file found");
-            }
-            Scanner s = new Scanner(reader).useDelimiter("\\A");
-            return s.hasNext() ? s.next() : "";
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage());
+    private void readTemplateSource(final TemplateRepository templates, final String fullPath,
+                                    final StringBuilder source, final Set<String> visited) {
+        if (!visited.add(fullPath)) {
+            return;
+        }
+        String text = templates.read(fullPath);
+        source.append(text);
+        Matcher m = PARTIAL_TAG.matcher(text);
+        while (m.find()) {
+            readTemplateSource(templates, templates.getFullTemplateFile(m.group(1) + ".mustache"), source, visited);
         }
-        throw new RuntimeException("can't load template " + name);
     }
 
-    private Reader getTemplateReader(final String name) {
+    protected void writeFile(final String source, final File destination) throws IOException {
+        long start = System.nanoTime();
+        Writer out = openNewFile(destination);
         try {
-            InputStream is = this.getClass().getClassLoader().getResourceAsStream(getCPResourcePath(name));
-            if (is == null) {
-                is = new FileInputStream(new File(name)); // May throw but never return a null value
-            }
-            return new InputStreamReader(is);
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage());
+            out.write(source);
+        } finally {
+            out.close();
         }
-        throw new RuntimeException("can't load template " + name);
+        codegenContext.fileWritten(destination, start);
     }
 
     /**
-     * Get the template file path with template dir prepended, and use the
-     * library template if exists.
+     * 値を JSON 形式でファイルに書き出す. 文字列を経由せずに直接書き出す.
      *
-     * @param config Codegen config
-     * @param templateFile Template file
-     * @return String Full template file path
+     * @param writer JSON の出力に使用する ObjectWriter
+     * @param value 書き出す値
+     * @param destination 出力先のファイル
+     * @throws IOException 書き出しに失敗した場合
      */
-    private String getFullTemplateFile(final CodegenConfig config, final String templateFile) {
-        String template = config.templateDir() + File.separator + templateFile;
-        if (new File(template).exists()) {
-            return template;
-        } else {
-            String library = config.getLibrary();
-            if (library != null && !"".equals(library)) {
-                String libTemplateFile = config.embeddedTemplateDir() + File.separator +
-                        "libraries" + File.separator + library + File.separator +
-                        templateFile;
-                if (embeddedTemplateExists(libTemplateFile)) {
-                    // Fall back to the template file embedded/packaged in the JAR file...
-                    return libTemplateFile;
-                }
-            }
-            // Fall back to the template file embedded/packaged in the JAR file...
-            return config.embeddedTemplateDir() + File.separator + templateFile;
+    protected void writeJsonFile(final ObjectWriter writer, final Object value, final File destination) throws IOException {
+        long start = System.nanoTime();
+        Writer out = openNewFile(destination);
+        try {
+            writer.writeValue(out, value);
+        } finally {
+            out.close();
         }
+        codegenContext.fileWritten(destination, start);
     }
 
-    private String readResourceContents(final String resourceFilePath) {
-        StringBuilder sb = new StringBuilder();
-        Scanner scanner = new Scanner(this.getClass().getResourceAsStream(getCPResourcePath(resourceFilePath)), "UTF-8");
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            sb.append(line).append('\n');
+    private Writer openNewFile(final File destination) throws IOException {
+        OutputVerifier verifier = codegenContext.getVerifier();
+        if (verifier != null) {
+            return verifier.openWriter(destination.getPath());
+        }
+        if (destination.exists()) {
+            throw new IOException("Profile Spec File is already created: " + destination.getAbsolutePath());
+        }
+        if (!destination.createNewFile()) {
+            throw new IOException("Failed to create Profile Spec File: " + destination.getAbsolutePath());
         }
-        return sb.toString();
+        // 従来どおり既定の文字コードで書き出す
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(destination)));
     }
 
-    private boolean embeddedTemplateExists(final String name) {
-        return this.getClass().getClassLoader().getResource(getCPResourcePath(name)) != null;
+    protected File writeToFile(final String filename, final String contents) throws IOException {
+        long start = System.nanoTime();
+        Writer out = openFile(filename);
+        out.write(contents);
+        out.close();
+        File file = new File(filename);
+        codegenContext.fileWritten(file, start);
+        return file;
     }
 
-    private String getCPResourcePath(final String name) {
-        if (!"/".equals(File.separator)) {
-            return name.replaceAll(Pattern.quote(File.separator), "/");
+    private Writer openFile(final String filename) throws IOException {
+        OutputVerifier verifier = codegenContext.getVerifier();
+        if (verifier != null) {
+            return verifier.openWriter(filename);
         }
-        return name;
+        LOGGER.info("writing file {}", filename);
+        File output = new File(filename);
+
+        if (output.getParent() != null && !new File(output.getParent()).exists()) {
+            File parent = new File(output.getParent());
+            parent.mkdirs();
+        }
+        return new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(output), "UTF-8"));
     }
 
 }
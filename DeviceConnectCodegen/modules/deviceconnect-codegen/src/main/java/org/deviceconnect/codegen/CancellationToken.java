@@ -0,0 +1,42 @@
+package org.deviceconnect.codegen;
+
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * スケルトンコード生成の中断の要求.
+ *
+ * 中断は協調的に行う. 生成処理はプロファイルの生成前とファイルの出力前に要求の有無を確認し、要求されている場合は
+ * {@link CancellationException} を投げて終了する.
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    /**
+     * 中断を要求する. どのスレッドから呼び出してもよい.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 中断が要求されたかどうかを取得する.
+     *
+     * @return 要求された場合は <code>true</code>、そうでない場合は <code>false</code>
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 中断が要求されている場合は例外を投げる.
+     *
+     * @throws CancellationException 中断が要求されている場合
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Code generation is cancelled.");
+        }
+    }
+}
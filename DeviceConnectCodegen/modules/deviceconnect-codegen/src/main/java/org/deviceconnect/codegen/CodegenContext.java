@@ -0,0 +1,95 @@
+package org.deviceconnect.codegen;
+
+
+import java.io.File;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 1 回のスケルトンコード生成の実行状態. 進捗のリスナー・中断の要求・検証モードの状態を保持する.
+ *
+ * {@link DConnectCodegen#run(String[], CodegenListener, CancellationToken)} の呼び出しごとに作成し、
+ * 生成処理と各ターゲットの設定に渡す. リスナーが設定されていない場合、イベントは作成しない.
+ */
+public final class CodegenContext {
+
+    /**
+     * リスナー・中断の要求を持たず、検証モードでもない実行状態.
+     */
+    public static final CodegenContext NONE = new CodegenContext(null, null, null);
+
+    private final CodegenListener listener;
+    private final CancellationToken token;
+    private final OutputVerifier verifier;
+
+    /**
+     * コンストラクタ.
+     *
+     * @param listener 進捗を受け取るリスナー. 不要な場合は <code>null</code>
+     * @param token 中断の要求. 不要な場合は <code>null</code>
+     * @param verifier 検証モードの場合は出力内容の検証、そうでない場合は <code>null</code>
+     */
+    CodegenContext(final CodegenListener listener, final CancellationToken token, final OutputVerifier verifier) {
+        this.listener = listener;
+        this.token = token;
+        this.verifier = verifier;
+    }
+
+    /**
+     * 検証モードの出力内容の検証を取得する.
+     *
+     * @return 検証モードの場合はインスタンス、そうでない場合は <code>null</code>
+     */
+    public OutputVerifier getVerifier() {
+        return verifier;
+    }
+
+    /**
+     * 中断が要求されている場合は例外を投げる.
+     *
+     * @throws CancellationException 中断が要求されている場合
+     */
+    public void checkCancelled() {
+        if (token != null) {
+            token.throwIfCancelled();
+        }
+    }
+
+    /**
+     * イベントを通知する.
+     *
+     * @param type イベントの種類
+     * @param name 対象の名前
+     * @param size 対象のサイズ
+     * @param startNanos 処理の開始時刻 ({@link System#nanoTime()})
+     * @param success 処理が成功した場合は <code>true</code>
+     */
+    public void fire(final CodegenEvent.Type type, final String name, final long size,
+                     final long startNanos, final boolean success) {
+        if (listener != null) {
+            listener.onEvent(new CodegenEvent(type, name, size, System.nanoTime() - startNanos, success));
+        }
+    }
+
+    /**
+     * プロファイルのスケルトンコードを出力したことを通知する.
+     *
+     * @param profileName プロファイル名
+     * @param fileCount 出力したファイルの数
+     * @param startNanos 出力の開始時刻 ({@link System#nanoTime()})
+     */
+    public void profileGenerated(final String profileName, final int fileCount, final long startNanos) {
+        fire(CodegenEvent.Type.PROFILE_GENERATED, profileName, fileCount, startNanos, true);
+    }
+
+    /**
+     * ファイルを出力したことを通知する. 検証モードではファイルを出力しないため通知しない.
+     *
+     * @param file 出力したファイル
+     * @param startNanos 出力の開始時刻 ({@link System#nanoTime()})
+     */
+    public void fileWritten(final File file, final long startNanos) {
+        if (listener != null && verifier == null) {
+            fire(CodegenEvent.Type.FILE_WRITTEN, file.getPath(), file.length(), startNanos, true);
+        }
+    }
+}
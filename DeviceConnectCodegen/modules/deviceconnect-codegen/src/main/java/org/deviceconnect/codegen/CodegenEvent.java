@@ -0,0 +1,73 @@
+package org.deviceconnect.codegen;
+
+
+/**
+ * スケルトンコード生成の進捗のイベント.
+ */
+public final class CodegenEvent {
+
+    /**
+     * イベントの種類.
+     */
+    public enum Type {
+        /** プロファイル定義ファイルを読み込んだ. 名前はファイルのパス、サイズはファイルのバイト数. */
+        SPEC_LOADED,
+        /** プロファイル定義ファイルを検証した. 名前はファイルのパス、サイズはファイルのバイト数. */
+        SPEC_VALIDATED,
+        /** プロファイルのスケルトンコードを出力した. 名前はプロファイル名、サイズは出力したファイルの数. */
+        PROFILE_GENERATED,
+        /** ファイルを出力した. 名前はファイルのパス、サイズはファイルのバイト数. */
+        FILE_WRITTEN
+    }
+
+    private final Type type;
+    private final String name;
+    private final long size;
+    private final long elapsedNanos;
+    private final boolean success;
+
+    CodegenEvent(final Type type, final String name, final long size, final long elapsedNanos,
+                 final boolean success) {
+        this.type = type;
+        this.name = name;
+        this.size = size;
+        this.elapsedNanos = elapsedNanos;
+        this.success = success;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * 処理にかかった時間を取得する.
+     *
+     * @return 処理時間 (ナノ秒)
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 処理が成功したかどうかを取得する. {@link Type#SPEC_VALIDATED} では検証エラーがない場合に <code>true</code>.
+     *
+     * @return 成功した場合は <code>true</code>、そうでない場合は <code>false</code>
+     */
+    public boolean isSuccess() {
+        return success;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + name + " (size = " + size + ", " + (elapsedNanos / 1000000) + " ms"
+                + (success ? "" : ", failed") + ")";
+    }
+}
@@ -0,0 +1,18 @@
+package org.deviceconnect.codegen;
+
+
+/**
+ * スケルトンコード生成の進捗を受け取るリスナー.
+ *
+ * プロファイル定義ファイルの読み込みと検証は複数のスレッドで並列に行うため、
+ * {@link #onEvent(CodegenEvent)} は複数のスレッドから同時に呼び出される場合がある.
+ */
+public interface CodegenListener {
+
+    /**
+     * 進捗のイベントを受け取る.
+     *
+     * @param event イベント
+     */
+    void onEvent(CodegenEvent event);
+}
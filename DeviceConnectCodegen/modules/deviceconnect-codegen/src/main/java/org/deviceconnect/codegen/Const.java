@@ -4,6 +4,13 @@ package org.deviceconnect.codegen;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.OptionGroup;
 import org.apache.commons.cli.Options;
+import org.deviceconnect.codegen.app.HtmlAppCodegenConfig;
+import org.deviceconnect.codegen.docs.HtmlDocsCodegenConfig;
+import org.deviceconnect.codegen.docs.MarkdownDocsCodegenConfig;
+import org.deviceconnect.codegen.plugin.AndroidPluginCodegenConfig;
+import org.deviceconnect.codegen.plugin.IosPluginCodegenConfig;
+import org.deviceconnect.codegen.plugin.NodePluginCodegenConfig;
+import org.deviceconnect.codegen.server.EmulatorCodegenConfig;
 import org.deviceconnect.codegen.util.ResourceBundleWithUtf8;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,16 +34,36 @@ final class Const {
         if (configs.containsKey(name)) {
             return configs.get(name);
         } else {
-            // see if it's a class
-            try {
-                LOGGER.debug("loading class " + name);
-                Class<?> customClass = Class.forName(name);
-                LOGGER.debug("loaded");
-                return (DConnectCodegenConfig) customClass.newInstance();
-            } catch (Exception e) {
-                throw new RuntimeException("can't load class " + name);
+            return loadConfig(name);
+        }
+    }
+
+    /**
+     * 生成処理ごとに使用する設定の新しいインスタンスを作成する.
+     *
+     * @param name ターゲット名またはクラス名
+     * @return 設定
+     */
+    static DConnectCodegenConfig newConfig(String name) {
+        for (DConnectCodegenConfig config : getExtensions()) {
+            if (config.getName().equals(name)) {
+                return config;
             }
         }
+        return loadConfig(name);
+    }
+
+    private static DConnectCodegenConfig loadConfig(String name) {
+        // see if it's a class
+        // NOTE: ネイティブイメージでは、リフレクション設定に登録されていないクラスは読み込めない
+        try {
+            LOGGER.debug("loading class " + name);
+            Class<?> customClass = Class.forName(name);
+            LOGGER.debug("loaded");
+            return (DConnectCodegenConfig) customClass.newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("can't load class " + name);
+        }
     }
 
     static {
@@ -54,15 +81,42 @@ final class Const {
     }
 
     static List<DConnectCodegenConfig> getExtensions() {
+        List<DConnectCodegenConfig> output = getBuiltInConfigs();
+        Set<String> names = new HashSet<String>();
+        for (DConnectCodegenConfig config : output) {
+            names.add(config.getName());
+        }
+        // 同梱の実装は ServiceLoader (リフレクション) を使わずに登録し、それ以外の拡張のみ探索する
         ServiceLoader<DConnectCodegenConfig> loader = ServiceLoader.load(DConnectCodegenConfig.class);
-        List<DConnectCodegenConfig> output = new ArrayList<DConnectCodegenConfig>();
         for (DConnectCodegenConfig aLoader : loader) {
-            output.add(aLoader);
+            if (names.add(aLoader.getName())) {
+                output.add(aLoader);
+            }
         }
         return output;
     }
 
-    private static Options createOptions() {
+    // META-INF/services の記述と同じ順序で並べること
+    private static List<DConnectCodegenConfig> getBuiltInConfigs() {
+        List<DConnectCodegenConfig> configs = new ArrayList<DConnectCodegenConfig>();
+        configs.add(new HtmlAppCodegenConfig());
+        configs.add(new HtmlDocsCodegenConfig());
+        configs.add(new MarkdownDocsCodegenConfig());
+        configs.add(new AndroidPluginCodegenConfig());
+        configs.add(new IosPluginCodegenConfig());
+        configs.add(new NodePluginCodegenConfig());
+        configs.add(new EmulatorCodegenConfig());
+        return configs;
+    }
+
+    /**
+     * コマンドラインオプションの定義を作成する.
+     *
+     * 実行ごとに変更できるように、呼び出しのたびに新しいインスタンスを返す.
+     *
+     * @return オプションの定義
+     */
+    static Options createOptions() {
         Options options = new Options();
 
         // Required
@@ -70,7 +124,7 @@ final class Const {
         options.addOption(option(true, "o", "output", true, "where to write the generated files"));
         OptionGroup inputSpecOptions = new OptionGroup();
         inputSpecOptions.setRequired(true);
-        inputSpecOptions.addOption(new Option("s", "input-spec-dir", true, "directory of the swagger specs"));
+        inputSpecOptions.addOption(new Option("s", "input-spec-dir", true, "directory or zip/jar archive of the swagger specs"));
         inputSpecOptions.addOption(new Option("i", "input-spec", true, "location of the swagger spec, as URL or file"));
         options.addOptionGroup(inputSpecOptions);
 
@@ -84,6 +138,15 @@ final class Const {
         options.addOption("n", "display-name", true, "display name of the generated project");
         options.addOption("x", "class-prefix", true, "prefix of each generated class that implements a device connect profile");
         options.addOption("b", "connection-type", true, "connection type with device connect manager (for deviceConnectAndroidPlugin only)");
+        options.addOption(null, "async-handlers", false, "generates request handlers running on a shared thread pool (for deviceConnectAndroidPlugin only)");
+        options.addOption(null, "streaming-transport", false, "sends the payload of streaming APIs through a pipe instead of an Intent extra (for deviceConnectAndroidPlugin only)");
+        options.addOption(null, "split-profile-threshold", true, "splits the API registration of a profile with more APIs than the specified number into classes per interface (for deviceConnectAndroidPlugin only)");
+        options.addOption(null, "raw-example-threshold", true, "moves example responses and events of the specified number of statements or more into raw resources (for deviceConnectAndroidPlugin only)");
+        options.addOption(null, "spec-cache-dir", true, "caches the parsed profile specs in the specified directory");
+        options.addOption(null, "asset-cache-dir", true, "extracts the static files (scripts, images, ...) once into the specified directory and copies them from there");
+        options.addOption(null, "diff-base", true, "prints the differences from the swagger specs in the specified directory instead of generating");
+        options.addOption(null, "schema-validator", true, "engine to validate the swagger specs: compiled (default) or generic");
+        options.addOption(null, "verify", false, "checks that the generated files in the output directory are up to date without writing them");
 
         return options;
     }
@@ -103,7 +166,8 @@ final class Const {
             MISSING_ARGUMENT("errorMissingArgument"),
             ALREADY_SELECTED_OPTION("errorAlreadySelectedOption"),
             UNDEFINED_OPTION("errorUndefinedOption"),
-            INVALID_SWAGGER("errorInvalidSwagger");
+            INVALID_SWAGGER("errorInvalidSwagger"),
+            OUTDATED_FILES("errorOutdatedFiles");
 
             private final String key;
 
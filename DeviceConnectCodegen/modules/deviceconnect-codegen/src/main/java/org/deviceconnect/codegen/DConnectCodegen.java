@@ -7,23 +7,31 @@ import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import config.Config;
 import config.ConfigParser;
 import io.swagger.codegen.*;
+import io.swagger.models.HttpMethod;
 import io.swagger.models.Info;
 import io.swagger.models.Model;
+import io.swagger.models.Operation;
 import io.swagger.models.Path;
 import io.swagger.models.Swagger;
+import io.swagger.models.auth.AuthorizationValue;
+import io.swagger.parser.Swagger20Parser;
 import io.swagger.parser.SwaggerParser;
+import io.swagger.parser.SwaggerResolver;
+import io.swagger.util.Json;
+import io.swagger.util.Yaml;
 import org.apache.commons.cli.*;
 import org.deviceconnect.codegen.app.HtmlAppCodegenConfig;
 import org.deviceconnect.codegen.docs.HtmlDocsCodegenConfig;
 import org.deviceconnect.codegen.docs.MarkdownDocsCodegenConfig;
+import org.deviceconnect.codegen.models.DConnectOperation;
 import org.deviceconnect.codegen.util.SwaggerJsonValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FilenameFilter;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static org.deviceconnect.codegen.Const.MESSAGES;
 
@@ -51,55 +59,101 @@ public class DConnectCodegen {
             "\n -DdebugOperations prints operations passed to the template engine" +
             "\n -DdebugSupportingFiles prints additional data passed to the template engine";
 
-    private static final SwaggerJsonValidator JSON_VALIDATOR = new SwaggerJsonValidator();
+    /**
+     * 終了コード: 成功.
+     */
+    public static final int EXIT_SUCCESS = 0;
+
+    /**
+     * 終了コード: 失敗.
+     */
+    public static final int EXIT_FAILURE = 1;
 
     private static final MultipleSwaggerConverter SWAGGER_CONVERTER = new MultipleSwaggerConverter();
 
-    @SuppressWarnings("deprecation")
     public static void main(String[] args) {
+        int status;
+        try {
+            status = run(args, null, null);
+        } catch (CancellationException e) {
+            printError(e.getMessage());
+            status = EXIT_FAILURE;
+        }
+        if (status != EXIT_SUCCESS) {
+            System.exit(status);
+        }
+    }
 
-        Options options = Const.OPTIONS;
+    /**
+     * コマンドライン引数を指定してスケルトンコードを生成する. IDE などに組み込む場合に使用する.
+     *
+     * 呼び出しごとに独立して実行されるため、複数のスレッドから同時に呼び出してもよい.
+     *
+     * @param args コマンドライン引数
+     * @param listener 進捗を受け取るリスナー. 不要な場合は <code>null</code>
+     * @param token 中断の要求. 不要な場合は <code>null</code>
+     * @return 終了コード. 成功した場合は {@link #EXIT_SUCCESS}、失敗した場合は {@link #EXIT_FAILURE}
+     * @throws CancellationException 中断が要求された場合
+     */
+    @SuppressWarnings("deprecation")
+    public static int run(final String[] args, final CodegenListener listener, final CancellationToken token) {
+
+        // -h で説明を差し替えるため、実行ごとに作成する
+        Options options = Const.createOptions();
 
         ClientOptInput clientOptInput = new ClientOptInput();
         ClientOpts clientOpts = new ClientOpts();
-        File[] specFiles;
 
         CommandLine cmd;
+        CodegenContext context;
         boolean hasValidSwagger = true;
         try {
             CommandLineParser parser = new BasicParser();
             DConnectCodegenConfig config;
 
             cmd = parser.parse(options, args);
+            context = new CodegenContext(listener, token, cmd.hasOption("verify") ? new OutputVerifier() : null);
             if (cmd.hasOption("d")) {
                 usage(options);
                 System.out.println(debugInfoOptions);
-                return;
+                return EXIT_SUCCESS;
             }
             if (cmd.hasOption("h")) {
                 config = Const.getConfig(cmd.getOptionValue("l"));
                 if (config != null) {
                     options.addOption("h", "help", true, config.getHelp());
                     usage(options);
-                    return;
+                    return EXIT_SUCCESS;
                 }
                 usage(options);
-                return;
+                return EXIT_SUCCESS;
             }
             if (cmd.hasOption("l")) {
-                config = Const.getConfig(cmd.getOptionValue("l"));
+                // 設定は生成処理の状態を保持するため、実行ごとに新しいインスタンスを使用する
+                config = Const.newConfig(cmd.getOptionValue("l"));
                 clientOptInput.setConfig(config);
             } else {
                 usage(options);
-                return;
+                return EXIT_FAILURE;
             }
             if (cmd.hasOption("o")) {
                 config.setOutputDir(cmd.getOptionValue("o"));
             }
+            SwaggerJsonValidator.Engine engine = SwaggerJsonValidator.Engine.COMPILED;
+            if (cmd.hasOption("schema-validator")) {
+                try {
+                    engine = SwaggerJsonValidator.Engine.valueOf(
+                            cmd.getOptionValue("schema-validator").toUpperCase(Locale.ENGLISH));
+                } catch (IllegalArgumentException e) {
+                    usage(options);
+                    return EXIT_FAILURE;
+                }
+            }
+            SwaggerJsonValidator jsonValidator = new SwaggerJsonValidator(engine);
             if (cmd.hasOption("i")) {
                 String location = cmd.getOptionValue("i");
-                if(!checkSwagger(new File(location))) {
-                    return;
+                if(!checkSwagger(jsonValidator, new File(location))) {
+                    return EXIT_FAILURE;
                 }
                 Swagger swagger = new SwaggerParser().read(location, clientOptInput.getAuthorizationValues(), true);
                 clientOptInput.swagger(swagger);
@@ -128,7 +182,9 @@ public class DConnectCodegen {
                             subPath += "/";
                         }
                     }
-                    checkProfileName(config, profilePart);
+                    if (!checkProfileName(config, profilePart)) {
+                        return EXIT_FAILURE;
+                    }
 
                     Swagger profile = profiles.get(profilePart);
                     if (profile == null) {
@@ -143,37 +199,39 @@ public class DConnectCodegen {
                 config.setProfileSpecs(profiles);
             } else if (cmd.hasOption("s")) {
                 File dir = new File(cmd.getOptionValue("s"));
-                if (dir.isDirectory()) {
-                    specFiles = dir.listFiles(new FilenameFilter() {
-                        @Override
-                        public boolean accept(final File dir, final String name) {
-                            return name.endsWith(".json") || name.endsWith(".yaml");
+                if (dir.isDirectory() || ProfileSpecFiles.isArchive(dir)) {
+                    Map<String, Swagger> profileSpecs = readProfileSpecs(dir, cmd, clientOptInput, jsonValidator, context);
+                    if (profileSpecs == null) {
+                        return EXIT_FAILURE;
+                    }
+                    for (String profileName : profileSpecs.keySet()) {
+                        if (!checkProfileName(config, profileName)) {
+                            return EXIT_FAILURE;
                         }
-                    });
-                    List<Swagger> swaggerList = new ArrayList<>();
-                    for (File file : specFiles) {
-                        if(!checkSwagger(file)) {
-                            continue;
+                    }
+
+                    if (cmd.hasOption("diff-base")) {
+                        File baseDir = new File(cmd.getOptionValue("diff-base"));
+                        if (!baseDir.isDirectory() && !ProfileSpecFiles.isArchive(baseDir)) {
+                            usage(options);
+                            return EXIT_FAILURE;
                         }
-                        Swagger swagger = new SwaggerParser().read(file.getAbsolutePath(), clientOptInput.getAuthorizationValues(), true);
-                        if (swagger != null) {
-                            swaggerList.add(swagger);
+                        Map<String, Swagger> baseSpecs = readProfileSpecs(baseDir, cmd, clientOptInput, jsonValidator, context);
+                        if (baseSpecs == null) {
+                            return EXIT_FAILURE;
                         }
-                    }
-                    if (swaggerList.size() != specFiles.length) {
-                        return;
+                        printSpecDiff(new SpecDiff().compare(baseSpecs, profileSpecs));
+                        return EXIT_SUCCESS;
                     }
 
-                    Map<String, Swagger> profileSpecs = SWAGGER_CONVERTER.convert(swaggerList);
-                    for (String profileName : profileSpecs.keySet()) {
-                        checkProfileName(config, profileName);
-                    }
                     config.setProfileSpecs(profileSpecs);
+                    // 統合した定義はキャッシュしない. パスと定義への参照を集めるだけで解析は行わないため、
+                    // キャッシュから読み込むよりも作成し直すほうが速い.
                     clientOptInput.swagger(mergeSwaggers(profileSpecs));
                 } else {
-                    // TODO エラーメッセージ詳細化: ディレクトリではなくファイルへのパスが指定されている.
+                    // TODO エラーメッセージ詳細化: ディレクトリまたはアーカイブではなくファイルへのパスが指定されている.
                     usage(options);
-                    return;
+                    return EXIT_FAILURE;
                 }
             }
 
@@ -210,26 +268,28 @@ public class DConnectCodegen {
             clientOpts.getProperties().put("classPrefix", classPrefix);
 
             ValidationResultSet resultSet = config.validateOptions(cmd, clientOpts);
+            validateProfileSpecs(config.getProfileSpecs(), resultSet);
             if (!resultSet.isValid()) {
                 for (ValidationResult result : resultSet.getResults().values()) {
                     if (!result.isValid()) {
                         LOGGER.error(result.getParamName() + " is invalid; " + result.getErrorMessage());
                     }
                 }
-                return;
+                return EXIT_FAILURE;
             }
+
         } catch (MissingOptionException e) {
             printError(Const.ErrorMessages.CommandOption.MISSING_OPTION.getMessage(e.getMissingOptions()));
-            return;
+            return EXIT_FAILURE;
         } catch (MissingArgumentException e) {
             printError(Const.ErrorMessages.CommandOption.MISSING_ARGUMENT.getMessage(e.getOption()));
-            return;
+            return EXIT_FAILURE;
         } catch (AlreadySelectedException e) {
             printError(Const.ErrorMessages.CommandOption.ALREADY_SELECTED_OPTION.getMessage(e.getOption()));
-            return;
+            return EXIT_FAILURE;
         } catch (UnrecognizedOptionException e) {
             printError(Const.ErrorMessages.CommandOption.UNDEFINED_OPTION.getMessage(e.getOption()));
-            return;
+            return EXIT_FAILURE;
         } catch (IllegalPathFormatException e) {
             String errorMessage;
             switch (e.getReason()) {
@@ -246,41 +306,197 @@ public class DConnectCodegen {
                     throw new RuntimeException("Undefined error");
             }
             printError(errorMessage);
-            return;
+            return EXIT_FAILURE;
         } catch (DuplicatedPathException e) {
             printDuplicatedPathError(e);
-            return;
+            return EXIT_FAILURE;
         } catch (Exception e) {
             e.printStackTrace();
-            return;
+            return EXIT_FAILURE;
         }
         try {
-            new Codegen() {
-                @Override
-                public File writeToFile(final String filename, final String contents) throws IOException {
-                    // LICENSE ファイルは出力させない
-                    if (filename != null) {
-                        if (filename.endsWith("LICENSE") || filename.endsWith(".swagger-codegen-ignore")) {
-                            return null;
-                        }
-                    }
-                    return super.writeToFile(filename, contents);
-                }
-            }.opts(clientOptInput.opts(clientOpts)).generate();
+            File assetCacheDir = cmd.hasOption("asset-cache-dir") ? new File(cmd.getOptionValue("asset-cache-dir")) : null;
+            new DConnectGenerator(context, assetCacheDir).opts(clientOptInput.opts(clientOpts)).generate();
+        } catch (CancellationException e) {
+            throw e;
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
+            return EXIT_FAILURE;
+        }
+
+        OutputVerifier verifier = context.getVerifier();
+        if (verifier != null) {
+            Set<String> staleFiles = verifier.getStaleFiles();
+            if (!staleFiles.isEmpty()) {
+                printError(Const.ErrorMessages.CommandOption.OUTDATED_FILES.getMessage() + ":");
+                for (String staleFile : staleFiles) {
+                    printError(" - " + staleFile);
+                }
+                return EXIT_FAILURE;
+            }
+            System.out.println("All " + verifier.getVerifiedFiles().size() + " files are up to date.");
+        }
+        return EXIT_SUCCESS;
+    }
+
+    private static Map<String, Swagger> readProfileSpecs(final File input, final CommandLine cmd,
+                                                         final ClientOptInput clientOptInput,
+                                                         final SwaggerJsonValidator jsonValidator,
+                                                         final CodegenContext context)
+            throws IOException, ProcessingException, IllegalPathFormatException, DuplicatedPathException {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<ProfileSpecFiles.Entry> specFiles = ProfileSpecFiles.read(input, executor);
+            ProfileSpecCache cache = null;
+            String cacheKey = null;
+            if (cmd.hasOption("spec-cache-dir")) {
+                cache = new ProfileSpecCache(new File(cmd.getOptionValue("spec-cache-dir")));
+                cacheKey = cache.createKey(specFiles);
+                Map<String, Swagger> profileSpecs = cache.load(cacheKey);
+                if (profileSpecs != null) {
+                    return profileSpecs;
+                }
+            }
+
+            // 各ファイルの検証と解析は、一度だけ読み込んだ JSON ツリーを使用して並列に行う
+            List<Future<ParsedSpec>> futures = new ArrayList<>();
+            for (ProfileSpecFiles.Entry specFile : specFiles) {
+                futures.add(executor.submit(new ParseTask(specFile, clientOptInput.getAuthorizationValues(),
+                        jsonValidator, context)));
+            }
+            List<Swagger> swaggerList = new ArrayList<>();
+            for (Future<ParsedSpec> future : futures) {
+                ParsedSpec parsed = ProfileSpecFiles.get(future);
+                if (!parsed.result.isSuccess()) {
+                    printValidationErrors(parsed.fileName, parsed.result);
+                    continue;
+                }
+                if (parsed.swagger != null) {
+                    swaggerList.add(parsed.swagger);
+                }
+            }
+            if (swaggerList.size() != specFiles.size()) {
+                return null;
+            }
+
+            Map<String, Swagger> profileSpecs = SWAGGER_CONVERTER.convert(swaggerList);
+            if (cache != null) {
+                cache.store(cacheKey, profileSpecs);
+            }
+            return profileSpecs;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * プロファイル定義ファイルの検証と解析.
+     */
+    private static class ParseTask implements Callable<ParsedSpec> {
+
+        private final ProfileSpecFiles.Entry specFile;
+        private final List<AuthorizationValue> auths;
+        private final SwaggerJsonValidator jsonValidator;
+        private final CodegenContext context;
+
+        ParseTask(final ProfileSpecFiles.Entry specFile, final List<AuthorizationValue> auths,
+                  final SwaggerJsonValidator jsonValidator, final CodegenContext context) {
+            this.specFile = specFile;
+            this.auths = auths;
+            this.jsonValidator = jsonValidator;
+            this.context = context;
+        }
+
+        @Override
+        public ParsedSpec call() throws IOException, ProcessingException {
+            long start = System.nanoTime();
+            ObjectMapper mapper = specFile.isYaml() ? Yaml.mapper() : Json.mapper();
+            JsonNode tree = mapper.readTree(specFile.data);
+            context.fire(CodegenEvent.Type.SPEC_LOADED, specFile.path, specFile.data.length, start, true);
+
+            start = System.nanoTime();
+            SwaggerJsonValidator.Result result = jsonValidator.validate(tree);
+            context.fire(CodegenEvent.Type.SPEC_VALIDATED, specFile.path, specFile.data.length, start,
+                    result.isSuccess());
+            if (!result.isSuccess()) {
+                return new ParsedSpec(specFile.path, result, null);
+            }
+            Swagger swagger = new Swagger20Parser().readWithInfo(tree).getSwagger();
+            if (swagger != null) {
+                swagger = new SwaggerResolver(swagger, auths, specFile.location).resolve();
+            }
+            return new ParsedSpec(specFile.path, result, swagger);
+        }
+    }
+
+    private static class ParsedSpec {
+        final String fileName;
+        final SwaggerJsonValidator.Result result;
+        final Swagger swagger;
+
+        ParsedSpec(final String fileName, final SwaggerJsonValidator.Result result, final Swagger swagger) {
+            this.fileName = fileName;
+            this.result = result;
+            this.swagger = swagger;
         }
     }
 
-    private static boolean checkSwagger(final File file) throws IOException, ProcessingException {
+    private static void validateProfileSpecs(final Map<String, Swagger> profileSpecs,
+                                             final ValidationResultSet resultSet) {
+        if (profileSpecs == null) {
+            return;
+        }
+        for (Map.Entry<String, Swagger> profile : profileSpecs.entrySet()) {
+            Map<String, Path> paths = profile.getValue().getPaths();
+            if (paths == null) {
+                continue;
+            }
+            for (Map.Entry<String, Path> path : paths.entrySet()) {
+                for (Map.Entry<HttpMethod, Operation> operation : path.getValue().getOperationMap().entrySet()) {
+                    String name = profile.getKey() + ": " + operation.getKey() + " " + path.getKey();
+                    DConnectOperation.validate(name, operation.getValue(), resultSet);
+                }
+            }
+        }
+    }
+
+    private static void printSpecDiff(final SpecDiff.Result result) {
+        for (SpecDiff.Change change : result.getChanges()) {
+            System.out.println(change);
+        }
+        if (result.getChanges().isEmpty()) {
+            System.out.println("No changes.");
+        } else if (result.isDocOnly()) {
+            System.out.println("Documentation changes only.");
+        } else {
+            System.out.println("Affected profiles: " + join(result.getAffectedProfiles()));
+        }
+    }
+
+    private static String join(final Collection<String> values) {
+        StringBuilder result = new StringBuilder();
+        for (String value : values) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(value);
+        }
+        return result.toString();
+    }
+
+    private static boolean checkSwagger(final SwaggerJsonValidator jsonValidator, final File file) throws IOException, ProcessingException {
         JsonNode jsonNode = new ObjectMapper().readTree(file);
-        SwaggerJsonValidator.Result result = JSON_VALIDATOR.validate(jsonNode);
+        SwaggerJsonValidator.Result result = jsonValidator.validate(jsonNode);
         if (result.isSuccess()) {
             return true;
         }
+        printValidationErrors(file.getName(), result);
+        return false;
+    }
 
+    private static void printValidationErrors(final String fileName, final SwaggerJsonValidator.Result result) {
         String template = Const.ErrorMessages.CommandOption.INVALID_SWAGGER.getMessage();
-        String errorMessage = template.replace("%file%", file.getName());
+        String errorMessage = template.replace("%file%", fileName);
         String reasons = "";
         for (SwaggerJsonValidator.Error error : result.getErrors()) {
             String pointer = error.getJsonPointer();
@@ -288,7 +504,6 @@ public class DConnectCodegen {
             reasons += " - Pointer = " + pointer + ", Reason = " + reason + "\n";
         }
         printError(errorMessage + ": \n" + reasons);
-        return false;
     }
 
     private static void printError(final String message) {
@@ -341,25 +556,23 @@ public class DConnectCodegen {
         return profile;
     }
 
-    private static void checkProfileName(final DConnectCodegenConfig config, final String profileName) {
+    private static boolean checkProfileName(final DConnectCodegenConfig config, final String profileName) {
         if (config instanceof HtmlAppCodegenConfig || config instanceof HtmlDocsCodegenConfig ||
             config instanceof MarkdownDocsCodegenConfig) {
-            return;
+            return true;
         }
 
         // プロファイル名が予約語の場合は異常終了
         if (isReservedName(profileName)) {
-            exitOnError("次の名前は予約語のためプロファイル名として使用できません: " + concat(RESERVED_NAMES));
+            printError("次の名前は予約語のためプロファイル名として使用できません: " + concat(RESERVED_NAMES));
+            return false;
         }
         // プロファイル名が基本プロファイル名の場合は異常終了
         if (isProhibitedProfile(profileName)) {
-            exitOnError("次のプロファイルは基本プロファイルのため入力できません: " + concat(PROHIBITED_PROFILES));
+            printError("次のプロファイルは基本プロファイルのため入力できません: " + concat(PROHIBITED_PROFILES));
+            return false;
         }
-    }
-
-    private static void exitOnError(final String message) {
-        System.err.println(message);
-        System.exit(1);
+        return true;
     }
 
     private static String concat(final String[] array) {
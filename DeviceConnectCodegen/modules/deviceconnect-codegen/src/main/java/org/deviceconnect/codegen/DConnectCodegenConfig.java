@@ -18,4 +18,11 @@ public interface DConnectCodegenConfig extends CodegenConfig {
     String getDefaultDisplayName();
 
     ValidationResultSet validateOptions(CommandLine cmd, ClientOpts clientOpts);
+
+    /**
+     * 生成処理の実行状態を設定する. 生成処理の開始時に呼び出される.
+     *
+     * @param context 実行状態
+     */
+    void setContext(CodegenContext context);
 }
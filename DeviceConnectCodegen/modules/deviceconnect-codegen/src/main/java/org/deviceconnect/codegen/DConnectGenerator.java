@@ -0,0 +1,222 @@
+package org.deviceconnect.codegen;
+
+
+import io.swagger.codegen.ClientOptInput;
+import io.swagger.codegen.Codegen;
+import io.swagger.codegen.CodegenConfig;
+import io.swagger.codegen.CodegenOperation;
+import io.swagger.codegen.Generator;
+import io.swagger.codegen.SupportingFile;
+import io.swagger.models.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * スケルトンコードの出力処理.
+ */
+class DConnectGenerator extends Codegen {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DConnectGenerator.class);
+
+    private final CodegenContext context;
+
+    private final StaticFileCopier staticFileCopier;
+
+    /**
+     * テンプレートの探索結果と内容. この生成処理の間のみ保持する.
+     */
+    private final TemplateRepository.Cache templateCache = new TemplateRepository.Cache();
+
+    /**
+     * 補助ファイルの出力前に取り除いた、テンプレート以外の補助ファイル. 出力処理の後に元に戻す.
+     */
+    private List<SupportingFile> staticFiles;
+
+    /**
+     * 出力 (検証モードでは比較) したテンプレート以外の補助ファイル.
+     */
+    private final List<File> staticFilesWritten = new ArrayList<>();
+
+    /**
+     * コンストラクタ.
+     *
+     * @param context 生成処理の実行状態
+     * @param assetCacheDir jar 内の補助ファイルを展開するディレクトリ. 展開しない場合は <code>null</code>
+     */
+    DConnectGenerator(final CodegenContext context, final File assetCacheDir) {
+        this.context = context;
+        staticFileCopier = new StaticFileCopier(assetCacheDir);
+    }
+
+    @Override
+    public Generator opts(final ClientOptInput opts) {
+        super.opts(opts);
+        if (config instanceof DConnectCodegenConfig) {
+            ((DConnectCodegenConfig) config).setContext(context);
+        }
+        if (config instanceof AbstractCodegenConfig) {
+            ((AbstractCodegenConfig) config).setTemplateCache(templateCache);
+        }
+        return this;
+    }
+
+    @Override
+    public List<File> generate() {
+        List<File> files;
+        try {
+            files = super.generate();
+        } finally {
+            if (staticFiles != null) {
+                config.supportingFiles().addAll(staticFiles);
+                staticFiles = null;
+            }
+        }
+        files.addAll(staticFilesWritten);
+        return files;
+    }
+
+    // swagger-codegen の generate() には補助ファイルの出力処理を差し替える手段がないため、
+    // 補助ファイルの出力の直前に呼ばれる processPaths() でテンプレート以外の補助ファイルを処理する.
+    @Override
+    public Map<String, List<CodegenOperation>> processPaths(final Map<String, Path> paths) {
+        Map<String, List<CodegenOperation>> result = super.processPaths(paths);
+        if (staticFiles == null) {
+            processStaticFiles();
+        }
+        return result;
+    }
+
+    @Override
+    public File writeToFile(final String filename, final String contents) throws IOException {
+        // LICENSE ファイルは出力させない
+        if (filename != null) {
+            if (filename.endsWith("LICENSE") || filename.endsWith(".swagger-codegen-ignore")) {
+                return null;
+            }
+        }
+        context.checkCancelled();
+        OutputVerifier verifier = context.getVerifier();
+        if (verifier != null) {
+            verifier.verify(filename, contents);
+            return new File(filename);
+        }
+        long start = System.nanoTime();
+        File file = super.writeToFile(filename, contents);
+        context.fileWritten(file, start);
+        return file;
+    }
+
+    // テンプレートの探索と読み込みは TemplateRepository に保持した結果を使用する
+    @Override
+    public String getFullTemplateFile(final CodegenConfig config, final String templateFile) {
+        return templateCache.get(config).getFullTemplateFile(templateFile);
+    }
+
+    @Override
+    public String readTemplate(final String name) {
+        return templateCache.get(config).read(name);
+    }
+
+    @Override
+    public Reader getTemplateReader(final String name) {
+        return templateCache.get(config).getReader(name);
+    }
+
+    @Override
+    public boolean embeddedTemplateExists(final String name) {
+        return templateCache.get(config).embeddedTemplateExists(name);
+    }
+
+    /**
+     * テンプレート以外の補助ファイルをコピー (検証モードでは内容を比較) し、補助ファイルの一覧から取り除く.
+     *
+     * 取り除いた補助ファイルは swagger-codegen によるヒープ経由のコピーの対象とならない.
+     */
+    private void processStaticFiles() {
+        staticFiles = new ArrayList<>();
+        for (SupportingFile support : config.supportingFiles()) {
+            if (!support.templateFile.endsWith("mustache")) {
+                staticFiles.add(support);
+            }
+        }
+        config.supportingFiles().removeAll(staticFiles);
+
+        for (SupportingFile support : staticFiles) {
+            File targetFile = getOutputFile(support);
+            if (targetFile.exists() && !config.shouldOverwrite(targetFile.getAbsolutePath())) {
+                LOGGER.info("Skipped overwriting " + targetFile.getName() + " as the file already exists in "
+                        + targetFile.getAbsolutePath());
+                continue;
+            }
+            if (!ignoreProcessor.allowsFile(targetFile)) {
+                LOGGER.info("Skipped generation of " + targetFile.getAbsolutePath()
+                        + " due to rule in .swagger-codegen-ignore");
+                continue;
+            }
+            if (context.getVerifier() != null) {
+                verifyStaticFile(support, targetFile);
+            } else {
+                File dir = targetFile.getParentFile();
+                if (!dir.isDirectory() && !dir.mkdirs()) {
+                    throw new RuntimeException("can't create directory " + dir.getAbsolutePath());
+                }
+                copyStaticFile(support, targetFile);
+            }
+            staticFilesWritten.add(targetFile);
+        }
+    }
+
+    private File getOutputFile(final SupportingFile support) {
+        String outputFolder = config.outputFolder();
+        if (support.folder != null && !support.folder.isEmpty()) {
+            outputFolder += File.separator + support.folder;
+        }
+        return new File(outputFolder + File.separator
+                + support.destinationFilename.replace('/', File.separatorChar));
+    }
+
+    private void copyStaticFile(final SupportingFile support, final File targetFile) {
+        String templateFile = getFullTemplateFile(config, support.templateFile);
+        try {
+            long start = System.nanoTime();
+            staticFileCopier.copy(templateFile, getCPResourcePath(templateFile), targetFile);
+            context.fileWritten(targetFile, start);
+        } catch (IOException e) {
+            throw new RuntimeException("can't copy " + targetFile.getAbsolutePath(), e);
+        }
+    }
+
+    private void verifyStaticFile(final SupportingFile support, final File targetFile) {
+        String templateFile = getFullTemplateFile(config, support.templateFile);
+        try {
+            // コピー時と同じく、-t で指定されたテンプレートのファイルをクラスパスのリソースより優先する
+            InputStream in;
+            if (new File(templateFile).isFile()) {
+                in = new FileInputStream(templateFile);
+            } else {
+                in = getClass().getClassLoader().getResourceAsStream(getCPResourcePath(templateFile));
+                if (in == null) {
+                    throw new IOException("Static file is not found: " + templateFile);
+                }
+            }
+            OutputStream out = context.getVerifier().openStream(targetFile.getPath());
+            try {
+                byte[] buf = new byte[8192];
+                int len;
+                while ((len = in.read(buf)) != -1) {
+                    out.write(buf, 0, len);
+                }
+            } finally {
+                in.close();
+                out.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("can't verify " + targetFile.getAbsolutePath(), e);
+        }
+    }
+}
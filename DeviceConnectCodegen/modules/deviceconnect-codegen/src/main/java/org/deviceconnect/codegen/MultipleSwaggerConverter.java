@@ -7,7 +7,6 @@ import io.swagger.models.Swagger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,17 +20,23 @@ class MultipleSwaggerConverter {
     Map<String, Swagger> convert(final List<Swagger> swaggerList)
             throws IllegalPathFormatException, DuplicatedPathException {
         Map<String, Swagger> result = new HashMap<>();
-        NameDuplicationCounter counter = new NameDuplicationCounter();
+        PathTrie trie = new PathTrie();
         for (Swagger swagger : swaggerList) {
-            convert(swagger, result, counter);
+            convert(swagger, result, trie);
+        }
+
+        // 重複チェック
+        List<NameDuplication> duplications = trie.getDuplications();
+        if (duplications.size() > 0) {
+            throw new DuplicatedPathException(duplications);
         }
         return result;
     }
 
     private void convert(final Swagger swagger,
                          final Map<String, Swagger> result,
-                         final NameDuplicationCounter counter)
-            throws IllegalPathFormatException, DuplicatedPathException {
+                         final PathTrie trie)
+            throws IllegalPathFormatException {
         String basePath = swagger.getBasePath();
         if (basePath == null || basePath.equals("")) {
             basePath = SEPARATOR;
@@ -40,15 +45,16 @@ class MultipleSwaggerConverter {
         Map<String, Path> paths = swagger.getPaths();
         for (Map.Entry<String, Path> entry : paths.entrySet()) {
             String pathName = entry.getKey();
-            DConnectPath path = DConnectPath.parsePath(basePath, pathName);
-            counter.count(path.toCanonicalPathName());
-            LOGGER.info("Base Path: " + path.getBathPath() + ", Sub Path: " + path.getSubPath() + ", Profile: " + path.getProfileName());
+            PathTrie.Entry path = trie.add(basePath, pathName, entry.getValue().getOperationMap().keySet());
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Base Path: {}, Sub Path: {}, Profile: {}", path.getBasePath(), path.getSubPath(), path.getProfileName());
+            }
 
             String key = path.getProfileName();
             Swagger cache = result.get(key);
             if (cache == null) {
                 cache = createProfileSpec(swagger);
-                cache.setBasePath(path.getBathPath());
+                cache.setBasePath(path.getBasePath());
                 result.put(key, cache);
             }
             String subPathName = path.getSubPath();
@@ -59,12 +65,6 @@ class MultipleSwaggerConverter {
             }
             cache.setPaths(pathSpecs);
         }
-
-        // 重複チェック
-        List<NameDuplication> duplications = counter.getDuplications();
-        if (duplications.size() > 0) {
-            throw new DuplicatedPathException(duplications);
-        }
     }
 
     private static Swagger createProfileSpec(final Swagger swagger) {
@@ -95,31 +95,4 @@ class MultipleSwaggerConverter {
         profile.setPaths(new HashMap<String, Path>());
         return profile;
     }
-
-    private static class NameDuplicationCounter {
-
-        private final Map<String, NameDuplication> duplications = new HashMap<>();
-
-        private NameDuplicationCounter() {}
-
-        void count(final String name) {
-            NameDuplication dup = duplications.get(name);
-            if (dup == null) {
-                dup = new NameDuplication(name);
-                duplications.put(name, dup);
-            }
-            dup.countUp();
-        }
-
-        List<NameDuplication> getDuplications() {
-            List<NameDuplication> result = new ArrayList<>();
-            for (Map.Entry<String, NameDuplication> entry : duplications.entrySet()) {
-                NameDuplication dup = entry.getValue();
-                if (dup.isDuplicated()) {
-                    result.add(dup);
-                }
-            }
-            return result;
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package org.deviceconnect.codegen;
+
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 出力済みのファイルが最新であるかどうかの検証.
+ *
+ * 検証モード (--verify) では、出力内容をファイルに書き込まずにハッシュ値を計算し、既存のファイルと比較する.
+ * インスタンスは生成処理ごとに作成し、{@link CodegenContext} を通して参照する.
+ */
+public class OutputVerifier {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final Set<String> verifiedFiles = new TreeSet<>();
+    private final Set<String> staleFiles = new TreeSet<>();
+
+    OutputVerifier() {
+    }
+
+    /**
+     * 出力内容を既存のファイルと比較する.
+     *
+     * @param filename 出力先のファイル名
+     * @param contents 出力内容
+     * @throws IOException 既存のファイルの読み込みに失敗した場合
+     */
+    public void verify(final String filename, final String contents) throws IOException {
+        OutputStream out = openStream(filename);
+        try {
+            out.write(contents.getBytes(UTF8));
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * 出力内容を既存のファイルと比較するための Writer を取得する. 比較は close 時に行う.
+     *
+     * @param filename 出力先のファイル名
+     * @return Writer
+     */
+    public Writer openWriter(final String filename) {
+        return new BufferedWriter(new OutputStreamWriter(openStream(filename), UTF8));
+    }
+
+    /**
+     * 出力内容を既存のファイルと比較するためのストリームを取得する. 比較は close 時に行う.
+     *
+     * @param filename 出力先のファイル名
+     * @return ストリーム
+     */
+    public OutputStream openStream(final String filename) {
+        final MessageDigest md = newDigest();
+        return new DigestOutputStream(new OutputStream() {
+            @Override
+            public void write(final int b) {
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+            }
+        }, md) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                super.close();
+                compare(filename, md.digest());
+            }
+        };
+    }
+
+    /**
+     * 指定されたファイルが出力されないことを確認する.
+     *
+     * @param filename ファイル名
+     */
+    public synchronized void verifyAbsent(final String filename) {
+        String path = new File(filename).getAbsolutePath();
+        verifiedFiles.add(path);
+        if (new File(path).exists()) {
+            staleFiles.add(path);
+        }
+    }
+
+    public synchronized Set<String> getVerifiedFiles() {
+        return new TreeSet<>(verifiedFiles);
+    }
+
+    /**
+     * 出力内容と異なる、または存在しないファイルを取得する.
+     *
+     * @return ファイルの絶対パス
+     */
+    public synchronized Set<String> getStaleFiles() {
+        return new TreeSet<>(staleFiles);
+    }
+
+    private void compare(final String filename, final byte[] expected) throws IOException {
+        File file = new File(filename);
+        boolean upToDate = file.isFile() && Arrays.equals(expected, digest(file));
+        synchronized (this) {
+            verifiedFiles.add(file.getAbsolutePath());
+            if (!upToDate) {
+                staleFiles.add(file.getAbsolutePath());
+            }
+        }
+    }
+
+    private static byte[] digest(final File file) throws IOException {
+        MessageDigest md = newDigest();
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                md.update(buf, 0, len);
+            }
+        } finally {
+            in.close();
+        }
+        return md.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
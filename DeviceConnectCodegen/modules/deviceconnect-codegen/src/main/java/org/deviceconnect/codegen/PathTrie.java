@@ -0,0 +1,331 @@
+package org.deviceconnect.codegen;
+
+
+import io.swagger.models.HttpMethod;
+
+import java.util.*;
+
+import static org.deviceconnect.codegen.IllegalPathFormatException.Reason;
+
+/**
+ * API パスのセグメント (API 名・プロファイル名・インタフェース名・属性名) ごとのトライ木.
+ *
+ * 各セグメントは大文字・小文字を区別せずに同一のノードにまとめ、文字列はトライ木の中で共有する.
+ * パスの追加と同時に、同一パスの重複・大文字小文字の違いのみのパス・同一メソッドの重複を検出する.
+ */
+public final class PathTrie {
+
+    private static final char SEPARATOR = '/';
+
+    private final SegmentTable segments = new SegmentTable();
+    private final Node root = new Node(null, null);
+    private final Set<Node> duplicatedNodes = new LinkedHashSet<>();
+    private Segment[] buffer = new Segment[8];
+    private int size;
+
+    /**
+     * パスを追加する.
+     *
+     * @param basePath ベースパス
+     * @param pathName ベースパス以下のパス
+     * @param methods パスに定義されたメソッド
+     * @return 追加したパス
+     * @throws IllegalPathFormatException パスの形式が不正な場合
+     */
+    public Entry add(final String basePath, final String pathName, final Set<HttpMethod> methods)
+            throws IllegalPathFormatException {
+        if (basePath.isEmpty() || basePath.charAt(0) != SEPARATOR) {
+            throw new IllegalPathFormatException(Reason.NOT_STARTED_WITH_ROOT, basePath);
+        }
+        if (pathName.isEmpty() || pathName.charAt(0) != SEPARATOR) {
+            throw new IllegalPathFormatException(Reason.NOT_STARTED_WITH_ROOT, pathName);
+        }
+        Segment[] parts = split(basePath, pathName);
+
+        Node node = root;
+        Node profileNode = null;
+        for (int i = 0; i < parts.length; i++) {
+            node = node.child(parts[i]);
+            if (i == 1) {
+                profileNode = node;
+            }
+        }
+        Entry entry = new Entry(parts, profileNode, methods);
+        if (node.entry == null) {
+            node.entry = entry;
+        } else {
+            if (node.duplicates == null) {
+                node.duplicates = new ArrayList<>();
+                node.duplicates.add(node.entry);
+                duplicatedNodes.add(node);
+            }
+            node.duplicates.add(entry);
+        }
+        size++;
+        return entry;
+    }
+
+    // ベースパスとパスを連結した文字列を String#split で分割した場合と同じセグメントを、連結せずに取得する.
+    // パスは区切り文字で始まるため、ベースパスとパスの境界をまたぐセグメントはない.
+    // 先頭の空文字列と末尾の空のセグメントは含めない.
+    private Segment[] split(final String basePath, final String pathName) throws IllegalPathFormatException {
+        int count = scan(basePath, 0);
+        count = scan(pathName, count);
+        while (count > 0 && buffer[count - 1].name.isEmpty()) {
+            count--;
+        }
+        if (count < 2) {
+            throw new IllegalPathFormatException(Reason.TOO_SHORT, basePath + pathName);
+        }
+        if (count > 4) {
+            throw new IllegalPathFormatException(Reason.TOO_LONG, basePath + pathName);
+        }
+        return Arrays.copyOf(buffer, count);
+    }
+
+    private int scan(final String path, int count) {
+        int length = path.length();
+        int start = 1;
+        while (start <= length) {
+            int next = path.indexOf(SEPARATOR, start);
+            if (next < 0) {
+                next = length;
+            }
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, count * 2);
+            }
+            buffer[count++] = segments.intern(path, start, next);
+            start = next + 1;
+        }
+        return count;
+    }
+
+    /**
+     * 追加されたパスの数を取得する.
+     *
+     * @return パスの数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 重複したパスのリストを取得する.
+     *
+     * 大文字・小文字の違いのみのパスは " = " で、複数回定義されたメソッドは角括弧内に列挙する.
+     *
+     * @return 重複したパスのリスト
+     */
+    public List<NameDuplication> getDuplications() {
+        List<NameDuplication> result = new ArrayList<>();
+        for (Node node : duplicatedNodes) {
+            Set<String> spellings = new LinkedHashSet<>();
+            Set<HttpMethod> methods = EnumSet.noneOf(HttpMethod.class);
+            Set<HttpMethod> conflicts = EnumSet.noneOf(HttpMethod.class);
+            for (Entry entry : node.duplicates) {
+                spellings.add(entry.getPath());
+                for (HttpMethod method : entry.methods) {
+                    if (!methods.add(method)) {
+                        conflicts.add(method);
+                    }
+                }
+            }
+            StringBuilder name = new StringBuilder();
+            for (String spelling : spellings) {
+                if (name.length() > 0) {
+                    name.append(" = ");
+                }
+                name.append(spelling);
+            }
+            if (!conflicts.isEmpty()) {
+                name.append(' ').append(conflicts);
+            }
+            NameDuplication dup = new NameDuplication(name.toString());
+            for (int i = 0; i < node.duplicates.size(); i++) {
+                dup.countUp();
+            }
+            result.add(dup);
+        }
+        return result;
+    }
+
+    private static final class Segment {
+        final String name;
+        final int hash;
+        // 小文字に変換したセグメント. 子ノードはこのインスタンスをキーとする.
+        Segment folded;
+
+        Segment(final String name, final int hash) {
+            this.name = name;
+            this.hash = hash;
+        }
+
+        // 同じ文字列のセグメントは SegmentTable で共有するため、等価性は同一性で判定する
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * セグメントの文字列を共有するためのハッシュ表.
+     *
+     * 文字列の一部の範囲のまま検索するため、既に登録されているセグメントについては文字列を作成しない.
+     */
+    private static final class SegmentTable {
+        private Segment[] table = new Segment[64];
+        private int count;
+
+        Segment intern(final String s, final int start, final int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + s.charAt(i);
+            }
+            int length = end - start;
+            int mask = table.length - 1;
+            int index = mix(hash) & mask;
+            for (Segment segment = table[index]; segment != null; segment = table[index]) {
+                if (segment.hash == hash && segment.name.length() == length
+                        && segment.name.regionMatches(0, s, start, length)) {
+                    return segment;
+                }
+                index = (index + 1) & mask;
+            }
+
+            Segment segment = new Segment(s.substring(start, end), hash);
+            put(segment);
+            String folded = segment.name.toLowerCase(Locale.ENGLISH);
+            segment.folded = folded.equals(segment.name) ? segment : intern(folded, 0, folded.length()).folded;
+            return segment;
+        }
+
+        private void put(final Segment segment) {
+            if (++count * 2 > table.length) {
+                Segment[] old = table;
+                table = new Segment[old.length * 2];
+                for (Segment s : old) {
+                    if (s != null) {
+                        insert(s);
+                    }
+                }
+            }
+            insert(segment);
+        }
+
+        private void insert(final Segment segment) {
+            int mask = table.length - 1;
+            int index = mix(segment.hash) & mask;
+            while (table[index] != null) {
+                index = (index + 1) & mask;
+            }
+            table[index] = segment;
+        }
+
+        private static int mix(final int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    private static final class Node {
+        final Segment segment;
+        final Node parent;
+        Map<Segment, Node> children;
+        Entry entry;
+        List<Entry> duplicates;
+        String path;
+
+        Node(final Segment segment, final Node parent) {
+            this.segment = segment;
+            this.parent = parent;
+        }
+
+        Node child(final Segment segment) {
+            if (children == null) {
+                children = new HashMap<>();
+            }
+            Node child = children.get(segment.folded);
+            if (child == null) {
+                child = new Node(segment, this);
+                children.put(segment.folded, child);
+            }
+            return child;
+        }
+
+        // 最初に追加された表記のパス
+        String getPath() {
+            if (path == null) {
+                path = (parent.segment == null ? "" : parent.getPath()) + SEPARATOR + segment.name;
+            }
+            return path;
+        }
+    }
+
+    /**
+     * トライ木に追加されたパス.
+     */
+    public static final class Entry {
+        private final Segment[] parts;
+        private final Node profileNode;
+        private final Set<HttpMethod> methods;
+
+        private Entry(final Segment[] parts, final Node profileNode, final Set<HttpMethod> methods) {
+            this.parts = parts;
+            this.profileNode = profileNode;
+            this.methods = methods;
+        }
+
+        /**
+         * プロファイル名を取得する.
+         *
+         * 大文字・小文字の違いのみのプロファイル名は、最初に追加された表記にまとめる.
+         *
+         * @return プロファイル名
+         */
+        public String getProfileName() {
+            return profileNode.segment.name;
+        }
+
+        /**
+         * プロファイルのパス (/API 名/プロファイル名) を取得する.
+         *
+         * @return プロファイルのパス
+         */
+        public String getBasePath() {
+            return profileNode.getPath();
+        }
+
+        /**
+         * プロファイル以下のパスを取得する.
+         *
+         * @return プロファイル以下のパス
+         */
+        public String getSubPath() {
+            switch (parts.length) {
+                case 2:
+                    return String.valueOf(SEPARATOR);
+                case 3:
+                    return SEPARATOR + parts[2].name;
+                default:
+                    return SEPARATOR + parts[2].name + SEPARATOR + parts[3].name;
+            }
+        }
+
+        /**
+         * API 名以下のパスを取得する.
+         *
+         * @return API 名以下のパス
+         */
+        public String getPath() {
+            StringBuilder path = new StringBuilder();
+            for (Segment part : parts) {
+                path.append(SEPARATOR).append(part.name);
+            }
+            return path.toString();
+        }
+
+        @Override
+        public String toString() {
+            return getPath();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package org.deviceconnect.codegen;
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.parser.Swagger20Parser;
+import io.swagger.util.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * 変換済みのプロファイル定義のキャッシュ.
+ *
+ * 入力ファイルの内容と本ツールのバージョンから算出したキーごとに、プロファイル定義を Smile 形式で保存する.
+ * キャッシュが有効な場合、プロファイル定義ファイルの検証・解析・変換を省略できる.
+ * ディレクトリには最近使用された {@link #DEFAULT_MAX_ENTRIES} 件までを残し、古いものから削除する.
+ */
+class ProfileSpecCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProfileSpecCache.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String FILE_EXTENSION = ".smile";
+    private static final String KEY_VERSION = "version";
+    private static final String KEY_PROFILES = "profiles";
+
+    /**
+     * 保持するキャッシュの件数のデフォルト値.
+     */
+    static final int DEFAULT_MAX_ENTRIES = 16;
+
+    private final File dir;
+    private final int maxEntries;
+    private final ObjectMapper mapper = new ObjectMapper(new SmileFactory());
+
+    ProfileSpecCache(final File dir) {
+        this(dir, DEFAULT_MAX_ENTRIES);
+    }
+
+    ProfileSpecCache(final File dir, final int maxEntries) {
+        this.dir = dir;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * キャッシュのキーを作成する.
+     *
+     * @param specFiles プロファイル定義ファイル
+     * @return キー
+     */
+    String createKey(final List<ProfileSpecFiles.Entry> specFiles) {
+        List<ProfileSpecFiles.Entry> files = new ArrayList<>(specFiles);
+        Collections.sort(files, new Comparator<ProfileSpecFiles.Entry>() {
+            @Override
+            public int compare(final ProfileSpecFiles.Entry f1, final ProfileSpecFiles.Entry f2) {
+                return f1.path.compareTo(f2.path);
+            }
+        });
+        MessageDigest md = newDigest();
+        md.update(getGeneratorVersion().getBytes(UTF8));
+        for (ProfileSpecFiles.Entry file : files) {
+            md.update((byte) 0);
+            md.update(file.path.getBytes(UTF8));
+            md.update((byte) 0);
+            md.update(newDigest().digest(file.data));
+        }
+        return toHex(md.digest());
+    }
+
+    /**
+     * キャッシュからプロファイル定義を読み込む.
+     *
+     * @param key キー
+     * @return プロファイル定義. キャッシュが存在しない、または読み込めない場合は <code>null</code>
+     */
+    Map<String, Swagger> load(final String key) {
+        File file = getCacheFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            JsonNode root;
+            FileInputStream in = new FileInputStream(file);
+            try {
+                FileChannel channel = in.getChannel();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                root = mapper.readTree(new ByteBufferInputStream(buffer));
+            } finally {
+                in.close();
+            }
+            if (root == null || !getGeneratorVersion().equals(root.path(KEY_VERSION).asText())) {
+                return null;
+            }
+
+            Map<String, Swagger> profileSpecs = new HashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> it = root.path(KEY_PROFILES).fields();
+            Swagger20Parser parser = new Swagger20Parser();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                Swagger profileSpec = parser.readWithInfo(entry.getValue()).getSwagger();
+                if (profileSpec == null) {
+                    return null;
+                }
+                removeEmptyPathParameters(profileSpec);
+                profileSpecs.put(entry.getKey(), profileSpec);
+            }
+            // 削除の対象を決めるため、使用した日時として更新日時を記録する
+            file.setLastModified(System.currentTimeMillis());
+            LOGGER.info("Loaded profile specs from cache: " + file.getAbsolutePath());
+            return profileSpecs;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read spec cache: " + file.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    /**
+     * プロファイル定義をキャッシュに保存する.
+     *
+     * @param key キー
+     * @param profileSpecs プロファイル定義
+     */
+    void store(final String key, final Map<String, Swagger> profileSpecs) {
+        File file = getCacheFile(key);
+        File tmpFile = new File(dir, key + FILE_EXTENSION + ".tmp");
+        try {
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("Failed to create directory: " + dir.getAbsolutePath());
+            }
+            ObjectNode root = mapper.createObjectNode();
+            root.put(KEY_VERSION, getGeneratorVersion());
+            ObjectNode profiles = root.putObject(KEY_PROFILES);
+            for (Map.Entry<String, Swagger> entry : profileSpecs.entrySet()) {
+                profiles.set(entry.getKey(), Json.mapper().valueToTree(entry.getValue()));
+            }
+
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpFile));
+            try {
+                mapper.writeValue(out, root);
+            } finally {
+                out.close();
+            }
+            // 書き込み途中のファイルを読み込まないように、書き込み完了後に置き換える
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Failed to delete file: " + file.getAbsolutePath());
+            }
+            if (!tmpFile.renameTo(file)) {
+                throw new IOException("Failed to rename file: " + tmpFile.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write spec cache: " + file.getAbsolutePath(), e);
+            tmpFile.delete();
+        }
+        evict(file);
+    }
+
+    // 最近使用されたものから maxEntries 件を残し、それ以外を削除する. 保存したばかりのファイルは残す.
+    private void evict(final File storedFile) {
+        File[] files = dir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(final File file) {
+                return file.isFile() && file.getName().endsWith(FILE_EXTENSION) && !file.equals(storedFile);
+            }
+        });
+        if (files == null || files.length < maxEntries) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(final File f1, final File f2) {
+                long t1 = f1.lastModified();
+                long t2 = f2.lastModified();
+                return t1 > t2 ? -1 : (t1 < t2 ? 1 : 0);
+            }
+        });
+        for (int i = Math.max(0, maxEntries - 1); i < files.length; i++) {
+            if (!files[i].delete()) {
+                LOGGER.warn("Failed to delete spec cache: " + files[i].getAbsolutePath());
+            }
+        }
+    }
+
+    // 定義ファイルから直接読み込んだ場合と同じく、パスの共通パラメータが無い場合は null とする
+    private static void removeEmptyPathParameters(final Swagger profileSpec) {
+        if (profileSpec.getPaths() == null) {
+            return;
+        }
+        for (Path path : profileSpec.getPaths().values()) {
+            if (path.getParameters() != null && path.getParameters().isEmpty()) {
+                path.setParameters(null);
+            }
+        }
+    }
+
+    private File getCacheFile(final String key) {
+        return new File(dir, key + FILE_EXTENSION);
+    }
+
+    /**
+     * 本ツールのバージョンを表すキーを取得する.
+     *
+     * @return キー
+     */
+    static String getGeneratorKey() {
+        return toHex(newDigest().digest(getGeneratorVersion().getBytes(UTF8)));
+    }
+
+    // 同じバージョンの開発中のビルドを区別するため、jar (またはクラスディレクトリ) の更新日時も含める
+    private static String getGeneratorVersion() {
+        String version = ProfileSpecCache.class.getPackage().getImplementationVersion();
+        StringBuilder result = new StringBuilder(version != null ? version : "unknown");
+        CodeSource source = ProfileSpecCache.class.getProtectionDomain().getCodeSource();
+        if (source != null && source.getLocation() != null) {
+            try {
+                File location = new File(source.getLocation().toURI());
+                result.append('-').append(location.lastModified());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                result.append('-').append(source.getLocation());
+            }
+        }
+        return result.toString();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(final byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b & 0xFF));
+        }
+        return hex.toString();
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.deviceconnect.codegen;
+
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * プロファイル定義ファイル群.
+ *
+ * ディレクトリ直下のファイル、または zip/jar アーカイブ内のファイルを読み込む.
+ * アーカイブは展開せず、zip ファイルシステム経由で直接読み込む.
+ */
+class ProfileSpecFiles {
+
+    private static final String[] ARCHIVE_EXTENSIONS = {".zip", ".jar"};
+
+    private ProfileSpecFiles() {
+    }
+
+    /**
+     * 指定されたファイルがアーカイブかどうかを確認する.
+     *
+     * @param file ファイル
+     * @return アーカイブの場合は <code>true</code>、そうでない場合は <code>false</code>
+     */
+    static boolean isArchive(final File file) {
+        if (!file.isFile()) {
+            return false;
+        }
+        String name = file.getName().toLowerCase(Locale.ENGLISH);
+        for (String ext : ARCHIVE_EXTENSIONS) {
+            if (name.endsWith(ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isSpecFile(final String name) {
+        return name.endsWith(".json") || name.endsWith(".yaml");
+    }
+
+    /**
+     * プロファイル定義ファイルの内容を読み込む.
+     *
+     * @param input ディレクトリまたはアーカイブ
+     * @param executor 読み込みに使用するスレッドプール
+     * @return プロファイル定義ファイルの一覧
+     * @throws IOException 読み込みに失敗した場合
+     */
+    static List<Entry> read(final File input, final ExecutorService executor) throws IOException {
+        if (isArchive(input)) {
+            FileSystem zipfs = FileSystems.newFileSystem(input.toPath(), (ClassLoader) null);
+            try {
+                return readAll(listArchive(zipfs), null, executor);
+            } finally {
+                zipfs.close();
+            }
+        }
+        File[] files = input.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(final File dir, final String name) {
+                return isSpecFile(name);
+            }
+        });
+        List<java.nio.file.Path> paths = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                paths.add(file.toPath());
+            }
+        }
+        return readAll(paths, input, executor);
+    }
+
+    private static List<java.nio.file.Path> listArchive(final FileSystem zipfs) throws IOException {
+        final List<java.nio.file.Path> paths = new ArrayList<>();
+        for (java.nio.file.Path root : zipfs.getRootDirectories()) {
+            Files.walkFileTree(root, new SimpleFileVisitor<java.nio.file.Path>() {
+                @Override
+                public FileVisitResult visitFile(final java.nio.file.Path file, final BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && isSpecFile(file.getFileName().toString())) {
+                        paths.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        // アーカイブ内の格納順に依存しないように並べ替える
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private static List<Entry> readAll(final List<java.nio.file.Path> paths, final File dir,
+                                       final ExecutorService executor) throws IOException {
+        List<Future<Entry>> futures = new ArrayList<>();
+        for (final java.nio.file.Path path : paths) {
+            futures.add(executor.submit(new Callable<Entry>() {
+                @Override
+                public Entry call() throws IOException {
+                    String name = path.getFileName().toString();
+                    if (dir != null) {
+                        return new Entry(name, name, path.toAbsolutePath().toString(), Files.readAllBytes(path));
+                    }
+                    return new Entry(path.toString(), name, null, Files.readAllBytes(path));
+                }
+            }));
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (Future<Entry> future : futures) {
+            entries.add(get(future));
+        }
+        return entries;
+    }
+
+    static <T> T get(final Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * プロファイル定義ファイル.
+     */
+    static class Entry {
+        /** ディレクトリからの相対パス、またはアーカイブ内のパス. */
+        final String path;
+        /** ファイル名. */
+        final String name;
+        /** 参照解決の基準となるファイルの場所. アーカイブ内のファイルの場合は <code>null</code>. */
+        final String location;
+        /** ファイルの内容. */
+        final byte[] data;
+
+        Entry(final String path, final String name, final String location, final byte[] data) {
+            this.path = path;
+            this.name = name;
+            this.location = location;
+            this.data = data;
+        }
+
+        boolean isYaml() {
+            return name.endsWith(".yaml");
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package org.deviceconnect.codegen;
 
 
+import java.util.Map;
+
 public class ProfileTemplate {
 
     public String templateFile;
     public String outputFile;
+
+    /**
+     * このテンプレートのみに渡すプロパティ. 共通のプロパティより優先される.
+     */
+    public Map<String, Object> properties;
 }
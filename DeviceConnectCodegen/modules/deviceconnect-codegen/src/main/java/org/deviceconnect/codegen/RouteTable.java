@@ -0,0 +1,88 @@
+package org.deviceconnect.codegen;
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * スケルトンコードに埋め込む API のルーティングテーブル.
+ *
+ * HTTP メソッドと API の正規化パスを小文字に変換した文字列をキーとする.
+ * 出力したテーブルをハッシュ表として参照することで、実行時に正規表現やパスの総当たりを使わずに API を特定できる.
+ */
+public class RouteTable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RouteTable.class);
+
+    private final Map<String, Map<String, Object>> routes = new LinkedHashMap<>();
+
+    /**
+     * ルーティングテーブルのキーを作成する.
+     *
+     * @param method HTTP メソッド
+     * @param path API のパス
+     * @return キー
+     */
+    public static String createKey(final String method, final String path) {
+        return method.toLowerCase(Locale.ENGLISH) + " " + createPathKey(path);
+    }
+
+    /**
+     * パスの大文字・小文字を区別せずに検索するためのキーを作成する.
+     *
+     * @param path API のパス
+     * @return キー
+     */
+    public static String createPathKey(final String path) {
+        return toCanonicalPath(path).toLowerCase(Locale.ENGLISH);
+    }
+
+    private static String toCanonicalPath(final String path) {
+        try {
+            String canonical = DConnectPath.parsePath(path).toCanonicalPathName();
+            // プロファイル直下の API の場合、末尾の区切り文字を除く
+            if (canonical.endsWith(DConnectPath.SEPARATOR)) {
+                canonical = canonical.substring(0, canonical.length() - 1);
+            }
+            return canonical;
+        } catch (IllegalPathFormatException e) {
+            return path;
+        }
+    }
+
+    /**
+     * API を追加する.
+     *
+     * 大文字・小文字の違いのみのパスが既に追加されている場合は追加しない.
+     *
+     * @param method HTTP メソッド
+     * @param path API のパス
+     * @param route テンプレートに渡す API の情報
+     * @return 追加した場合は <code>true</code>、そうでない場合は <code>false</code>
+     */
+    public boolean add(final String method, final String path, final Map<String, Object> route) {
+        String key = createKey(method, path);
+        if (routes.containsKey(key)) {
+            LOGGER.warn("Ignored a route which differs from another only in case: " + method + " " + path);
+            return false;
+        }
+        route.put("key", key);
+        routes.put(key, route);
+        return true;
+    }
+
+    /**
+     * テンプレートに渡すためのリストを取得する.
+     *
+     * @return 追加された順の API の情報のリスト
+     */
+    public List<Map<String, Object>> toList() {
+        List<Map<String, Object>> list = new ArrayList<>(routes.values());
+        for (Iterator<Map<String, Object>> it = list.iterator(); it.hasNext(); ) {
+            it.next().put("hasNext", it.hasNext());
+        }
+        return list;
+    }
+}
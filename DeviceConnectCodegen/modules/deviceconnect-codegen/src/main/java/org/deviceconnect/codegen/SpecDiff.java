@@ -0,0 +1,368 @@
+package org.deviceconnect.codegen;
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.models.HttpMethod;
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.util.Json;
+
+import java.util.*;
+
+/**
+ * 2つのプロファイル定義群の差分.
+ *
+ * API のパスとメソッドごとに、出力されるコードに影響する変更と説明文のみの変更を区別する.
+ * 定義 (definitions) への参照は展開してから比較するため、参照先の定義の変更も検出される.
+ */
+public class SpecDiff {
+
+    private static final String DEFINITION_REF_PREFIX = "#/definitions/";
+
+    /**
+     * 説明文のためのキー. これらのみが異なる場合は {@link Kind#DOC_CHANGED} とする.
+     */
+    private static final Set<String> DOC_KEYS = new HashSet<>(Arrays.asList(
+            "summary", "description", "title", "externalDocs"
+    ));
+
+    /**
+     * 値が名前をキーとするマップであるキー. マップのキーは説明文のキーとして扱わない.
+     */
+    private static final Set<String> NAME_MAP_KEYS = new HashSet<>(Arrays.asList(
+            "properties", "definitions", "responses", "headers"
+    ));
+
+    /**
+     * 値が任意のデータであるキー. 値の中身は説明文のキーとして扱わない.
+     */
+    private static final Set<String> RAW_VALUE_KEYS = new HashSet<>(Arrays.asList(
+            "example", "examples", "default", "enum"
+    ));
+
+    public enum Kind {
+        /** API が追加された. */
+        OPERATION_ADDED,
+        /** API が削除された. */
+        OPERATION_REMOVED,
+        /** リクエストパラメータが変更された. */
+        PARAMETERS_CHANGED,
+        /** レスポンスの定義が変更された. */
+        RESPONSE_CHANGED,
+        /** イベントの定義 (x-event) が変更された. */
+        EVENT_CHANGED,
+        /** 上記以外の API の属性 (x-type など) が変更された. */
+        OPERATION_CHANGED,
+        /** 説明文のみが変更された. */
+        DOC_CHANGED
+    }
+
+    /**
+     * 差分を取得する.
+     *
+     * @param baseSpecs 変更前のプロファイル定義群
+     * @param targetSpecs 変更後のプロファイル定義群
+     * @return 差分
+     */
+    public Result compare(final Map<String, Swagger> baseSpecs, final Map<String, Swagger> targetSpecs) {
+        Set<String> profileNames = new TreeSet<>();
+        profileNames.addAll(baseSpecs.keySet());
+        profileNames.addAll(targetSpecs.keySet());
+
+        List<Change> changes = new ArrayList<>();
+        for (String profileName : profileNames) {
+            Map<String, Map<HttpMethod, JsonNode>> baseOps = collectOperations(baseSpecs.get(profileName));
+            Map<String, Map<HttpMethod, JsonNode>> targetOps = collectOperations(targetSpecs.get(profileName));
+
+            Set<String> pathNames = new TreeSet<>();
+            pathNames.addAll(baseOps.keySet());
+            pathNames.addAll(targetOps.keySet());
+            for (String pathName : pathNames) {
+                Map<HttpMethod, JsonNode> baseMethods = baseOps.get(pathName);
+                Map<HttpMethod, JsonNode> targetMethods = targetOps.get(pathName);
+                Set<HttpMethod> methods = new TreeSet<>();
+                if (baseMethods != null) {
+                    methods.addAll(baseMethods.keySet());
+                }
+                if (targetMethods != null) {
+                    methods.addAll(targetMethods.keySet());
+                }
+                for (HttpMethod method : methods) {
+                    JsonNode baseOp = baseMethods != null ? baseMethods.get(method) : null;
+                    JsonNode targetOp = targetMethods != null ? targetMethods.get(method) : null;
+                    Set<Kind> kinds = compareOperation(baseOp, targetOp);
+                    if (!kinds.isEmpty()) {
+                        changes.add(new Change(profileName, pathName, method, kinds));
+                    }
+                }
+            }
+        }
+        return new Result(changes);
+    }
+
+    private Set<Kind> compareOperation(final JsonNode baseOp, final JsonNode targetOp) {
+        Set<Kind> kinds = EnumSet.noneOf(Kind.class);
+        if (baseOp == null) {
+            kinds.add(Kind.OPERATION_ADDED);
+            return kinds;
+        }
+        if (targetOp == null) {
+            kinds.add(Kind.OPERATION_REMOVED);
+            return kinds;
+        }
+        if (baseOp.equals(targetOp)) {
+            return kinds;
+        }
+
+        JsonNode baseSemantics = stripDocs(baseOp, false);
+        JsonNode targetSemantics = stripDocs(targetOp, false);
+        Set<String> keys = new TreeSet<>();
+        addFieldNames(baseSemantics, keys);
+        addFieldNames(targetSemantics, keys);
+        for (String key : keys) {
+            if (baseSemantics.path(key).equals(targetSemantics.path(key))) {
+                continue;
+            }
+            if ("parameters".equals(key)) {
+                kinds.add(Kind.PARAMETERS_CHANGED);
+            } else if ("responses".equals(key)) {
+                kinds.add(Kind.RESPONSE_CHANGED);
+            } else if ("x-event".equals(key)) {
+                kinds.add(Kind.EVENT_CHANGED);
+            } else {
+                kinds.add(Kind.OPERATION_CHANGED);
+            }
+        }
+        if (kinds.isEmpty()) {
+            kinds.add(Kind.DOC_CHANGED);
+        }
+        return kinds;
+    }
+
+    private Map<String, Map<HttpMethod, JsonNode>> collectOperations(final Swagger profileSpec) {
+        Map<String, Map<HttpMethod, JsonNode>> result = new HashMap<>();
+        if (profileSpec == null || profileSpec.getPaths() == null) {
+            return result;
+        }
+        String basePath = profileSpec.getBasePath();
+        JsonNode definitions = profileSpec.getDefinitions() != null
+                ? Json.mapper().valueToTree(profileSpec.getDefinitions())
+                : JsonNodeFactory.instance.objectNode();
+
+        for (Map.Entry<String, Path> pathEntry : profileSpec.getPaths().entrySet()) {
+            String pathName = createPathName(basePath, pathEntry.getKey());
+            Map<HttpMethod, JsonNode> methods = result.get(pathName);
+            if (methods == null) {
+                methods = new TreeMap<>();
+                result.put(pathName, methods);
+            }
+            Path path = pathEntry.getValue();
+            JsonNode pathParams = path.getParameters() != null
+                    ? Json.mapper().valueToTree(path.getParameters())
+                    : JsonNodeFactory.instance.arrayNode();
+            for (Map.Entry<HttpMethod, Operation> opEntry : path.getOperationMap().entrySet()) {
+                JsonNode op = mergeParameters(Json.mapper().valueToTree(opEntry.getValue()), pathParams);
+                methods.put(opEntry.getKey(), resolveRefs(op, definitions, new HashSet<String>()));
+            }
+        }
+        return result;
+    }
+
+    // パスに共通のパラメータを API のパラメータに加える. 名前と位置が同じ場合は API のパラメータを優先する.
+    private static JsonNode mergeParameters(final JsonNode op, final JsonNode pathParams) {
+        if (pathParams.size() == 0 || !op.isObject()) {
+            return op;
+        }
+        JsonNode opParams = op.path("parameters");
+        Set<String> opParamKeys = new HashSet<>();
+        for (JsonNode param : opParams) {
+            opParamKeys.add(createParameterKey(param));
+        }
+        ArrayNode merged = JsonNodeFactory.instance.arrayNode();
+        for (JsonNode param : pathParams) {
+            if (!opParamKeys.contains(createParameterKey(param))) {
+                merged.add(param);
+            }
+        }
+        for (JsonNode param : opParams) {
+            merged.add(param);
+        }
+        ObjectNode result = ((ObjectNode) op).deepCopy();
+        result.set("parameters", merged);
+        return result;
+    }
+
+    private static String createParameterKey(final JsonNode param) {
+        JsonNode ref = param.get("$ref");
+        if (ref != null) {
+            return ref.asText();
+        }
+        return param.path("in").asText() + ":" + param.path("name").asText();
+    }
+
+    private static String createPathName(final String basePath, final String subPath) {
+        try {
+            String pathName = DConnectPath.parsePath(basePath, subPath).toCanonicalPathName();
+            // プロファイル直下の API の場合、末尾の区切り文字を除く
+            if (pathName.endsWith(DConnectPath.SEPARATOR)) {
+                pathName = pathName.substring(0, pathName.length() - 1);
+            }
+            return pathName;
+        } catch (IllegalPathFormatException e) {
+            return basePath + subPath;
+        }
+    }
+
+    // 定義への参照を展開する. 循環参照は展開しない.
+    private static JsonNode resolveRefs(final JsonNode node, final JsonNode definitions, final Set<String> resolving) {
+        if (node.isObject()) {
+            JsonNode ref = node.get("$ref");
+            if (ref != null && ref.isTextual() && ref.asText().startsWith(DEFINITION_REF_PREFIX)) {
+                String name = ref.asText().substring(DEFINITION_REF_PREFIX.length());
+                JsonNode definition = definitions.get(name);
+                if (definition != null && resolving.add(name)) {
+                    JsonNode resolved = resolveRefs(definition, definitions, resolving);
+                    resolving.remove(name);
+                    return resolved;
+                }
+                return node;
+            }
+            ObjectNode result = JsonNodeFactory.instance.objectNode();
+            Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> field = it.next();
+                result.set(field.getKey(), resolveRefs(field.getValue(), definitions, resolving));
+            }
+            return result;
+        } else if (node.isArray()) {
+            ArrayNode result = JsonNodeFactory.instance.arrayNode();
+            for (JsonNode element : node) {
+                result.add(resolveRefs(element, definitions, resolving));
+            }
+            return result;
+        }
+        return node;
+    }
+
+    private static JsonNode stripDocs(final JsonNode node, final boolean isNameMap) {
+        if (node.isObject()) {
+            ObjectNode result = JsonNodeFactory.instance.objectNode();
+            Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> field = it.next();
+                String key = field.getKey();
+                if (isNameMap) {
+                    result.set(key, stripDocs(field.getValue(), false));
+                } else if (DOC_KEYS.contains(key)) {
+                    continue;
+                } else if (RAW_VALUE_KEYS.contains(key)) {
+                    result.set(key, field.getValue());
+                } else {
+                    result.set(key, stripDocs(field.getValue(), NAME_MAP_KEYS.contains(key)));
+                }
+            }
+            return result;
+        } else if (node.isArray()) {
+            ArrayNode result = JsonNodeFactory.instance.arrayNode();
+            for (JsonNode element : node) {
+                result.add(stripDocs(element, false));
+            }
+            return result;
+        }
+        return node;
+    }
+
+    private static void addFieldNames(final JsonNode node, final Set<String> names) {
+        Iterator<String> it = node.fieldNames();
+        while (it.hasNext()) {
+            names.add(it.next());
+        }
+    }
+
+    /**
+     * API ごとの変更.
+     */
+    public static class Change {
+
+        private final String profileName;
+        private final String pathName;
+        private final HttpMethod method;
+        private final Set<Kind> kinds;
+
+        Change(final String profileName, final String pathName, final HttpMethod method, final Set<Kind> kinds) {
+            this.profileName = profileName;
+            this.pathName = pathName;
+            this.method = method;
+            this.kinds = Collections.unmodifiableSet(kinds);
+        }
+
+        public String getProfileName() {
+            return profileName;
+        }
+
+        public String getPathName() {
+            return pathName;
+        }
+
+        public HttpMethod getMethod() {
+            return method;
+        }
+
+        public Set<Kind> getKinds() {
+            return kinds;
+        }
+
+        public boolean isDocOnly() {
+            return kinds.size() == 1 && kinds.contains(Kind.DOC_CHANGED);
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + pathName + " " + kinds;
+        }
+    }
+
+    /**
+     * 差分の取得結果.
+     */
+    public static class Result {
+
+        private final List<Change> changes;
+
+        Result(final List<Change> changes) {
+            this.changes = Collections.unmodifiableList(changes);
+        }
+
+        public List<Change> getChanges() {
+            return changes;
+        }
+
+        /**
+         * 説明文以外の変更があるプロファイルを取得する.
+         *
+         * @return プロファイル名
+         */
+        public Set<String> getAffectedProfiles() {
+            Set<String> profiles = new TreeSet<>();
+            for (Change change : changes) {
+                if (!change.isDocOnly()) {
+                    profiles.add(change.getProfileName());
+                }
+            }
+            return profiles;
+        }
+
+        /**
+         * 説明文のみの変更であるかどうかを確認する.
+         *
+         * @return 変更があり、かつすべて説明文のみの変更である場合は <code>true</code>、そうでない場合は <code>false</code>
+         */
+        public boolean isDocOnly() {
+            return !changes.isEmpty() && getAffectedProfiles().isEmpty();
+        }
+    }
+}
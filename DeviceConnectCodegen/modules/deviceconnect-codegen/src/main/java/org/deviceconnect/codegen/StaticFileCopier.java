@@ -0,0 +1,118 @@
+package org.deviceconnect.codegen;
+
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * テンプレート以外の補助ファイル (JavaScript・CSS・画像など) のコピー.
+ *
+ * ファイルとして存在する補助ファイルは、内容を Java のヒープに読み込まずにファイルシステムの機能でコピーする.
+ * jar 内の補助ファイルは、キャッシュのディレクトリが指定された場合は一度だけ展開し、以降は展開済みのファイルからコピーする.
+ * 指定されていない場合は、jar 内のリソースを伸長しながら出力先へ書き込むため、ヒープ上のバッファを経由する.
+ */
+class StaticFileCopier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StaticFileCopier.class);
+
+    private final File cacheDir;
+
+    /**
+     * コンストラクタ.
+     *
+     * @param cacheDir jar 内の補助ファイルを展開するディレクトリ. 展開しない場合は <code>null</code>
+     */
+    StaticFileCopier(final File cacheDir) {
+        this.cacheDir = cacheDir != null ? new File(cacheDir, ProfileSpecCache.getGeneratorKey()) : null;
+    }
+
+    /**
+     * 補助ファイルをコピーする.
+     *
+     * @param templateFile 補助ファイルのパス. ファイルが存在しない場合はクラスパス上のリソースのパスとみなす
+     * @param resourcePath クラスパス上のリソースのパス
+     * @param targetFile 出力先のファイル
+     * @throws IOException コピーに失敗した場合
+     */
+    void copy(final String templateFile, final String resourcePath, final File targetFile) throws IOException {
+        File source = new File(templateFile);
+        if (source.isFile()) {
+            copyFile(source, targetFile);
+            return;
+        }
+        URL url = getClass().getClassLoader().getResource(resourcePath);
+        if (url == null) {
+            throw new IOException("Static file is not found: " + templateFile);
+        }
+        source = toFile(url);
+        if (source == null) {
+            source = extract(url, resourcePath);
+        }
+        if (source != null) {
+            copyFile(source, targetFile);
+        } else {
+            transfer(url, targetFile);
+        }
+    }
+
+    // ファイル間のコピーは OS に任せる (Linux では sendfile・copy_file_range などが使用される)
+    private static void copyFile(final File source, final File targetFile) throws IOException {
+        Files.copy(source.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // クラスディレクトリから実行した場合など、リソースがファイルとして存在する場合はそのファイル
+    private static File toFile(final URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // キャッシュのディレクトリに展開済みのファイル. キャッシュを使用しない場合は null
+    private File extract(final URL url, final String resourcePath) throws IOException {
+        if (cacheDir == null) {
+            return null;
+        }
+        File cacheFile = new File(cacheDir, resourcePath.replace('/', File.separatorChar));
+        if (cacheFile.isFile()) {
+            return cacheFile;
+        }
+        File dir = cacheFile.getParentFile();
+        if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+            throw new IOException("Failed to create directory: " + dir.getAbsolutePath());
+        }
+        // 展開途中のファイルを使用しないように、展開完了後に置き換える
+        File tmpFile = File.createTempFile(cacheFile.getName(), ".tmp", dir);
+        try {
+            transfer(url, tmpFile);
+            Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Extracted static file to cache: " + cacheFile.getAbsolutePath());
+        } finally {
+            tmpFile.delete();
+        }
+        return cacheFile;
+    }
+
+    // jar 内のリソースは伸長が必要なため、ファイル間のコピーと異なりヒープ上のバッファを経由する
+    private static void transfer(final URL url, final File targetFile) throws IOException {
+        InputStream in = url.openStream();
+        try {
+            Files.copy(in, targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.deviceconnect.codegen;
+
+
+import io.swagger.codegen.CodegenConfig;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * テンプレートの格納場所.
+ *
+ * テンプレートディレクトリ (-t オプション)、ライブラリ用テンプレート、jar に同梱されたテンプレートの順に
+ * テンプレートを探索する. テンプレートディレクトリのファイル一覧は最初に一度だけ取得し、
+ * 探索結果と読み込んだ内容はメモリ上に保持するため、同じテンプレートのファイルアクセスは一度だけとなる.
+ * 保持した内容は {@link Cache} ごとに管理し、生成処理をまたいで使用しない.
+ */
+public class TemplateRepository {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final String templateDir;
+    private final String embeddedTemplateDir;
+    private final String library;
+    private final Set<String> overrideFiles;
+    private final ClassLoader classLoader = TemplateRepository.class.getClassLoader();
+
+    private final Map<String, String> fullPaths = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> embeddedResources = new ConcurrentHashMap<>();
+    private final Map<String, String> contents = new ConcurrentHashMap<>();
+
+    private TemplateRepository(final String templateDir, final String embeddedTemplateDir, final String library) {
+        this.templateDir = templateDir;
+        this.embeddedTemplateDir = embeddedTemplateDir;
+        this.library = library;
+        this.overrideFiles = listFiles(new File(templateDir));
+    }
+
+    /**
+     * テンプレートのパスを取得する.
+     *
+     * テンプレートディレクトリに存在する場合はそのパスを、存在しない場合は jar に同梱されたテンプレートのパスを返す.
+     *
+     * @param templateFile テンプレートファイル名
+     * @return テンプレートのパス
+     */
+    public String getFullTemplateFile(final String templateFile) {
+        String fullPath = fullPaths.get(templateFile);
+        if (fullPath == null) {
+            fullPath = resolve(templateFile);
+            fullPaths.put(templateFile, fullPath);
+        }
+        return fullPath;
+    }
+
+    /**
+     * テンプレートの内容を取得する.
+     *
+     * @param fullPath {@link #getFullTemplateFile(String)} で取得したテンプレートのパス
+     * @return テンプレートの内容
+     */
+    public String read(final String fullPath) {
+        String content = contents.get(fullPath);
+        if (content == null) {
+            content = load(fullPath);
+            contents.put(fullPath, content);
+        }
+        return content;
+    }
+
+    public Reader getReader(final String fullPath) {
+        return new StringReader(read(fullPath));
+    }
+
+    public boolean embeddedTemplateExists(final String name) {
+        Boolean exists = embeddedResources.get(name);
+        if (exists == null) {
+            exists = classLoader.getResource(getCPResourcePath(name)) != null;
+            embeddedResources.put(name, exists);
+        }
+        return exists;
+    }
+
+    private String resolve(final String templateFile) {
+        String relativePath = templateFile.replace('/', File.separatorChar);
+        if (overrideFiles.contains(relativePath)) {
+            return templateDir + File.separator + templateFile;
+        }
+        if (!"".equals(library)) {
+            String libTemplateFile = embeddedTemplateDir + File.separator +
+                    "libraries" + File.separator + library + File.separator +
+                    templateFile;
+            if (embeddedTemplateExists(libTemplateFile)) {
+                return libTemplateFile;
+            }
+        }
+        return embeddedTemplateDir + File.separator + templateFile;
+    }
+
+    private String load(final String fullPath) {
+        try {
+            InputStream is = classLoader.getResourceAsStream(getCPResourcePath(fullPath));
+            if (is == null) {
+                is = new FileInputStream(new File(fullPath));
+            }
+            Reader reader = new InputStreamReader(is, UTF8);
+            try {
+                StringBuilder content = new StringBuilder();
+                char[] buf = new char[8192];
+                int len;
+                while ((len = reader.read(buf)) != -1) {
+                    content.append(buf, 0, len);
+                }
+                return content.toString();
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("can't load template " + fullPath, e);
+        }
+    }
+
+    private static Set<String> listFiles(final File dir) {
+        Set<String> files = new HashSet<>();
+        listFiles(dir, "", files);
+        return files;
+    }
+
+    private static void listFiles(final File dir, final String prefix, final Set<String> files) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            String name = prefix + child.getName();
+            if (child.isDirectory()) {
+                listFiles(child, name + File.separator, files);
+            } else {
+                files.add(name);
+            }
+        }
+    }
+
+    private static String getCPResourcePath(final String name) {
+        if (!"/".equals(File.separator)) {
+            return name.replaceAll(Pattern.quote(File.separator), "/");
+        }
+        return name;
+    }
+
+    /**
+     * 1 回の生成処理で使用するテンプレートの格納場所の一覧.
+     *
+     * 前回の生成処理の後にテンプレートディレクトリが変更されていても新しい内容を使用するよう、生成処理ごとに作成する.
+     */
+    public static class Cache {
+
+        private final Map<String, TemplateRepository> repositories = new ConcurrentHashMap<>();
+
+        /**
+         * 指定された設定のテンプレートの格納場所を取得する.
+         *
+         * テンプレートディレクトリなどの設定が同じであれば、同じインスタンスを返す.
+         *
+         * @param config Codegen の設定
+         * @return テンプレートの格納場所
+         */
+        public TemplateRepository get(final CodegenConfig config) {
+            String library = config.getLibrary() != null ? config.getLibrary() : "";
+            String key = config.templateDir() + File.pathSeparator + config.embeddedTemplateDir()
+                    + File.pathSeparator + library;
+            TemplateRepository repository = repositories.get(key);
+            if (repository == null) {
+                repository = new TemplateRepository(config.templateDir(), config.embeddedTemplateDir(), library);
+                repositories.put(key, repository);
+            }
+            return repository;
+        }
+    }
+}
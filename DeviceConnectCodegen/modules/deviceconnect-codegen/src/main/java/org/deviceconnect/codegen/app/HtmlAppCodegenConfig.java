@@ -4,22 +4,45 @@ package org.deviceconnect.codegen.app;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.codegen.ClientOpts;
+import io.swagger.codegen.CodegenConstants;
 import io.swagger.codegen.CodegenType;
 import io.swagger.codegen.DefaultCodegen;
 import io.swagger.codegen.SupportingFile;
+import io.swagger.models.Info;
 import io.swagger.models.Swagger;
-import io.swagger.parser.SwaggerParser;
 import org.apache.commons.cli.CommandLine;
+import org.deviceconnect.codegen.CodegenContext;
 import org.deviceconnect.codegen.DConnectCodegenConfig;
+import org.deviceconnect.codegen.OutputVerifier;
 import org.deviceconnect.codegen.ValidationResultSet;
 
-import java.util.Map;
+import java.io.*;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
 
 public class HtmlAppCodegenConfig extends DefaultCodegen implements DConnectCodegenConfig {
 
+    /**
+     * プロファイルごとの定義ファイルの出力先.
+     */
+    private static final String SPEC_CHUNK_FOLDER = "specs" + File.separator + "profiles";
+
+    /**
+     * 事前圧縮するファイルの拡張子.
+     */
+    private static final String[] COMPRESSIBLE_EXTENSIONS = {".html", ".js", ".css"};
+
     private Map<String, Swagger> profileSpecs;
 
+    /**
+     * このターゲットが出力したファイル. 事前圧縮の対象とする.
+     */
+    private final List<File> writtenFiles = new ArrayList<>();
+
+    private CodegenContext codegenContext = CodegenContext.NONE;
+
     @Override
     public ValidationResultSet validateOptions(final CommandLine cmd, final ClientOpts clientOpts) {
         return new ValidationResultSet();
@@ -55,22 +78,172 @@ public class HtmlAppCodegenConfig extends DefaultCodegen implements DConnectCode
         this.profileSpecs = profileSpecs;
     }
 
+    @Override
+    public void setContext(final CodegenContext context) {
+        this.codegenContext = context;
+    }
+
     @Override
     public void preprocessSwagger(final Swagger swagger) {
+        // プロファイルごとに定義を分割し、アプリ側では必要になった時点で読み込む.
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        ObjectWriter writer = mapper.writer();
+
+        List<Object> profiles = new ArrayList<>();
+        for (Map.Entry<String, Swagger> entry : new TreeMap<>(profileSpecs).entrySet()) {
+            final String profileName = entry.getKey();
+            final Swagger profileSpec = entry.getValue();
+            codegenContext.checkCancelled();
+            long start = System.nanoTime();
+            if (profileSpec.getBasePath() == null) {
+                profileSpec.setBasePath("/gotapi/" + profileName);
+            }
+            try {
+                writeSpecChunk(writer, profileName, profileSpec);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to serialize the resolved swagger object: " + profileName, e);
+            }
+            codegenContext.profileGenerated(profileName, 1, start);
+
+            Map<String, Object> profile = new LinkedHashMap<>();
+            profile.put("name", profileName);
+            profile.put("title", getTitle(profileSpec, profileName));
+            profile.put("basePath", profileSpec.getBasePath());
+            profiles.add(profile);
+        }
+
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("profiles", profiles);
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-            String swaggerJson = mapper.writeValueAsString(swagger);
-            additionalProperties.put("resolvedSwagger", swaggerJson);
+            additionalProperties.put("specManifest", toScriptLiteral(writer.writeValueAsString(manifest)));
         } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to serialize the resolved swagger object.", e);
+            throw new RuntimeException("Failed to serialize the spec manifest.", e);
+        }
+    }
+
+    @Override
+    public void processSwagger(final Swagger swagger) {
+        // 出力先の他のファイルは対象とせず、このターゲットが出力したファイルのみ圧縮する.
+        try {
+            for (File file : writtenFiles) {
+                if (isCompressible(file.getName()) && file.isFile()) {
+                    compress(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String getTitle(final Swagger profileSpec, final String profileName) {
+        Info info = profileSpec.getInfo();
+        if (info != null && info.getTitle() != null) {
+            return info.getTitle();
+        }
+        return profileName;
+    }
+
+    /**
+     * JSON 文字列をスクリプトにそのまま埋め込めるようにする.
+     *
+     * JSON では許可されているが JavaScript の文字列リテラル内では改行扱いになる文字をエスケープする.
+     */
+    private static String toScriptLiteral(final String json) {
+        return json.replace(String.valueOf((char) 0x2028), "\\u2028")
+                .replace(String.valueOf((char) 0x2029), "\\u2029");
+    }
+
+    /**
+     * プロファイルの定義をスクリプトとして出力する. 定義は文字列を経由せずにファイルへ直接書き出す.
+     */
+    private void writeSpecChunk(final ObjectWriter writer, final String name, final Swagger profileSpec) throws IOException {
+        String filename = outputFolder() + File.separator + SPEC_CHUNK_FOLDER + File.separator + name + ".js";
+        writtenFiles.add(new File(filename));
+        Writer out = openWriter(filename);
+        try {
+            out.write("main.onLoadProfile('" + name + "', ");
+            writer.writeValue(new ScriptLiteralWriter(out), profileSpec);
+            out.write(");");
+        } finally {
+            out.close();
+        }
+    }
+
+    private Writer openWriter(final String filename) throws IOException {
+        OutputVerifier verifier = codegenContext.getVerifier();
+        if (verifier != null) {
+            return verifier.openWriter(filename);
+        }
+        File output = new File(filename);
+        File parent = output.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Failed to create directory: " + parent.getAbsolutePath());
+        }
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), "UTF-8"));
+    }
+
+    private static boolean isCompressible(final String fileName) {
+        for (String ext : COMPRESSIBLE_EXTENSIONS) {
+            if (fileName.endsWith(ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 静的ファイルの gzip 圧縮版 (*.gz) を出力する.
+     *
+     * gzip_static などに対応したサーバでは、転送時に圧縮処理を行わずに済む.
+     * 圧縮してもサイズが小さくならないファイルは対象外とする.
+     * ファイル全体をメモリに保持しないよう、圧縮後のサイズを求めてから改めて圧縮しながら書き出す.
+     */
+    private void compress(final File file) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream();
+        compress(file, counter);
+
+        File output = new File(file.getPath() + ".gz");
+        OutputVerifier verifier = codegenContext.getVerifier();
+        if (counter.count >= file.length()) {
+            if (verifier != null) {
+                verifier.verifyAbsent(output.getPath());
+            } else if (output.exists() && !output.delete()) {
+                throw new IOException("Failed to delete file: " + output.getAbsolutePath());
+            }
+            return;
+        }
+        // 検証モードでは既存のファイルを圧縮する. 既存のファイルが古い場合は、そのファイル自体が検出される.
+        OutputStream out = verifier != null ? verifier.openStream(output.getPath())
+                : new BufferedOutputStream(new FileOutputStream(output));
+        compress(file, out);
+    }
+
+    /**
+     * ファイルを gzip で圧縮して書き出す. 出力先は閉じられる.
+     */
+    private static void compress(final File file, final OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 8192);
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                gzip.write(buf, 0, len);
+            }
+        } finally {
+            in.close();
+            gzip.close();
         }
     }
 
     @Override
     public void processOpts() {
         super.processOpts();
-        embeddedTemplateDir = templateDir = getName();
+        embeddedTemplateDir = getName();
+        if (!additionalProperties.containsKey(CodegenConstants.TEMPLATE_DIR)) {
+            templateDir = getName();
+        }
         supportingFiles.add(new SupportingFile("index.html.mustache", "", "index.html"));
         supportingFiles.add(new SupportingFile("resource.html", "", "resource.html"));
         supportingFiles.add(new SupportingFile("css/accordion.css", "css", "accordion.css"));
@@ -83,5 +256,89 @@ public class HtmlAppCodegenConfig extends DefaultCodegen implements DConnectCode
         supportingFiles.add(new SupportingFile("js/resource.js", "js", "resource.js"));
         supportingFiles.add(new SupportingFile("js/util.js", "js", "util.js"));
         supportingFiles.add(new SupportingFile("specs/swagger.js.mustache", "specs", "swagger.js"));
+
+        // テンプレート以外の補助ファイルは出力処理の前に一覧から取り除かれるため、ここで出力先を控えておく
+        for (SupportingFile support : supportingFiles) {
+            String folder = outputFolder();
+            if (support.folder != null && !support.folder.isEmpty()) {
+                folder += File.separator + support.folder;
+            }
+            writtenFiles.add(new File(folder + File.separator + support.destinationFilename));
+        }
+    }
+
+    /**
+     * 書き込まれたバイト数のみを数える OutputStream.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(final int b) {
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+    }
+
+    /**
+     * {@link #toScriptLiteral(String)} と同じエスケープを行いながら書き出す Writer.
+     *
+     * close しても出力先は閉じない.
+     */
+    private static class ScriptLiteralWriter extends FilterWriter {
+
+        ScriptLiteralWriter(final Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int c) throws IOException {
+            if (c == 0x2028) {
+                out.write("\\u2028");
+            } else if (c == 0x2029) {
+                out.write("\\u2029");
+            } else {
+                out.write(c);
+            }
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) throws IOException {
+            int start = off;
+            int end = off + len;
+            for (int i = off; i < end; i++) {
+                char c = cbuf[i];
+                if (c == 0x2028 || c == 0x2029) {
+                    out.write(cbuf, start, i - start);
+                    write(c);
+                    start = i + 1;
+                }
+            }
+            out.write(cbuf, start, end - start);
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) throws IOException {
+            int start = off;
+            int end = off + len;
+            for (int i = off; i < end; i++) {
+                char c = str.charAt(i);
+                if (c == 0x2028 || c == 0x2029) {
+                    out.write(str, start, i - start);
+                    write(c);
+                    start = i + 1;
+                }
+            }
+            out.write(str, start, end - start);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
     }
 }
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.codegen.ClientOpts;
+import io.swagger.codegen.CodegenConstants;
 import io.swagger.codegen.CodegenType;
 import io.swagger.models.*;
 import io.swagger.models.parameters.FormParameter;
@@ -15,12 +16,15 @@ import io.swagger.models.properties.ArrayProperty;
 import io.swagger.models.properties.ObjectProperty;
 import io.swagger.models.properties.Property;
 import io.swagger.models.properties.RefProperty;
+import io.swagger.util.Json;
 import org.apache.commons.cli.CommandLine;
 import org.deviceconnect.codegen.AbstractCodegenConfig;
 import org.deviceconnect.codegen.ProfileTemplate;
+import org.deviceconnect.codegen.TemplateRepository;
 import org.deviceconnect.codegen.ValidationResultSet;
 import org.deviceconnect.codegen.models.DConnectOperation;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
@@ -28,10 +32,18 @@ public abstract class AbstractDocsCodegenConfig extends AbstractCodegenConfig {
 
     private ArrayList<OperationListDocs> swaggerList = new ArrayList<>();
 
+    private final Map<String, String> templateDigests = new HashMap<>();
+
     protected List<OperationListDocs> getSwaggerList() {
         return this.swaggerList;
     }
 
+    @Override
+    public void setTemplateCache(final TemplateRepository.Cache templateCache) {
+        super.setTemplateCache(templateCache);
+        templateDigests.clear();
+    }
+
     @Override
     public ValidationResultSet validateOptions(final CommandLine cmd, final ClientOpts clientOpts) {
         return new ValidationResultSet();
@@ -51,111 +63,18 @@ public abstract class AbstractDocsCodegenConfig extends AbstractCodegenConfig {
     public void processOpts() {
         super.processOpts();
 
-        embeddedTemplateDir = templateDir = getName();
+        embeddedTemplateDir = getName();
+        if (!additionalProperties.containsKey(CodegenConstants.TEMPLATE_DIR)) {
+            templateDir = getName();
+        }
 
         for (Map.Entry<String, Swagger> specEntry : profileSpecs.entrySet()) {
             final String profileKey = specEntry.getKey();
-            final String profileName;
             final Swagger profileSpec = specEntry.getValue();
-            String basePath = profileSpec.getBasePath();
-            if (basePath == null) {
-                basePath = "/gotapi/" + profileKey;
-                profileName = profileKey;
-            } else {
-                System.out.println("basePath: " + basePath);
-                profileName = basePath.split("/")[2];
+            if (profileSpec.getBasePath() != null) {
+                System.out.println("basePath: " + profileSpec.getBasePath());
             }
-
-            final List<Object> operationList = new ArrayList<>();
-            for (Map.Entry<String, Path> pathEntry : profileSpec.getPaths().entrySet()) {
-                String pathName = pathEntry.getKey();
-                Path path = pathEntry.getValue();
-                if ("/".equals(pathName)) {
-                    pathName = "";
-                }
-                final String fullPathName = basePath + pathName;
-
-                HttpMethod[] httpMethods = {
-                        HttpMethod.GET,
-                        HttpMethod.POST,
-                        HttpMethod.PUT,
-                        HttpMethod.DELETE
-                };
-                for (HttpMethod key : httpMethods) {
-                    final String method = key.name().toUpperCase();
-                    final Operation op = path.getOperationMap().get(key);
-                    if (op == null) {
-                        continue;
-                    }
-                    final List<Object> paramList = new ArrayList<>();
-                    for (final Parameter param : op.getParameters()) {
-                        paramList.add(new Object() {
-                            String name = param.getName();
-                            String type() {
-                                String type;
-                                String format;
-                                Property items;
-                                if (param instanceof QueryParameter) {
-                                    type = ((QueryParameter) param).getType();
-                                    format = ((QueryParameter) param).getFormat();
-                                    items = ((QueryParameter) param).getItems();
-                                } else if (param instanceof FormParameter) {
-                                    type = ((FormParameter) param).getType();
-                                    format = ((FormParameter) param).getFormat();
-                                    items = ((FormParameter) param).getItems();
-                                } else {
-                                    return null;
-                                }
-
-                                if ("array".equals(type)) {
-                                    if (items != null) {
-                                        return type + "(" + convertPropertyToCommonName(items) + ")";
-                                    } else {
-                                        return type;
-                                    }
-                                } else if ("object".equals(type)) {
-                                    return type;
-                                } else {
-                                    return convertPrimitiveProperty(type, format);
-                                }
-                            }
-                            String required = param.getRequired() ? "Yes" : "No";
-                            String description = param.getDescription();
-                        });
-                    }
-
-                    operationList.add(new Object() {
-                        String id() {
-                            return op.getOperationId();
-                        }
-                        String name = method + " " + fullPathName;
-                        String type = (String) op.getVendorExtensions().get("x-type");
-                        String summary = op.getSummary();
-                        String description() {
-                            String description = op.getDescription();
-                            if ("".equals(description)) {
-                                return null;
-                            }
-                            return description;
-                        }
-                        List<Object> paramList() {
-                            return paramList;
-                        }
-                        Object response = createResponseDocument(profileSpec, op);
-                        Object event = createEventDocument(profileSpec, op);
-                    });
-                }
-            }
-
-            OperationListDocs swaggerObj = new OperationListDocs() {
-                public String profileName() { return profileName; }
-                String profileNameCamelCase() { return toUpperCapital(profileName, false); }
-                String version = profileSpec.getInfo().getVersion();
-                String title = profileSpec.getInfo().getTitle();
-                String description = profileSpec.getInfo().getDescription();
-                public List<Object> operationList() { return operationList; }
-            };
-            swaggerList.add(swaggerObj);
+            swaggerList.add(createProfileDocs(profileKey, profileSpec));
         }
         Collections.sort(swaggerList, new Comparator<ProfileDocs>() {
             @Override
@@ -168,6 +87,100 @@ public abstract class AbstractDocsCodegenConfig extends AbstractCodegenConfig {
         filterProfiles();
     }
 
+    private OperationListDocs createProfileDocs(final String profileKey, final Swagger profileSpec) {
+        final String profileName;
+        String basePath = profileSpec.getBasePath();
+        if (basePath == null) {
+            basePath = "/gotapi/" + profileKey;
+            profileName = profileKey;
+        } else {
+            profileName = basePath.split("/")[2];
+        }
+
+        return new ProfileOperationListDocs(profileName, basePath, profileSpec);
+    }
+
+    private List<OperationDocs> createOperationList(final String basePath, final Swagger profileSpec) {
+        final int operationsPerPage = getOperationsPerPage();
+        final List<OperationDocs> operationList = new ArrayList<>();
+        for (Map.Entry<String, Path> pathEntry : profileSpec.getPaths().entrySet()) {
+            String pathName = pathEntry.getKey();
+            Path path = pathEntry.getValue();
+            if ("/".equals(pathName)) {
+                pathName = "";
+            }
+            final String fullPathName = basePath + pathName;
+
+            HttpMethod[] httpMethods = {
+                    HttpMethod.GET,
+                    HttpMethod.POST,
+                    HttpMethod.PUT,
+                    HttpMethod.DELETE
+            };
+            for (HttpMethod key : httpMethods) {
+                final String method = key.name().toUpperCase();
+                final Operation op = path.getOperationMap().get(key);
+                if (op == null) {
+                    continue;
+                }
+                int pageNumber = operationList.size() / operationsPerPage + 1;
+                operationList.add(new OperationDocs(profileSpec, op, method + " " + fullPathName, pageNumber));
+            }
+        }
+        return operationList;
+    }
+
+    private List<Object> createParamList(final Operation op) {
+        final List<Object> paramList = new ArrayList<>();
+        for (final Parameter param : op.getParameters()) {
+            Map<String, Object> paramDoc = new HashMap<>();
+            paramDoc.put("name", param.getName());
+            paramDoc.put("type", getParamType(param));
+            paramDoc.put("required", param.getRequired() ? "Yes" : "No");
+            paramDoc.put("description", param.getDescription());
+            paramList.add(paramDoc);
+        }
+        return paramList;
+    }
+
+    private String getParamType(final Parameter param) {
+        String type;
+        String format;
+        Property items;
+        if (param instanceof QueryParameter) {
+            type = ((QueryParameter) param).getType();
+            format = ((QueryParameter) param).getFormat();
+            items = ((QueryParameter) param).getItems();
+        } else if (param instanceof FormParameter) {
+            type = ((FormParameter) param).getType();
+            format = ((FormParameter) param).getFormat();
+            items = ((FormParameter) param).getItems();
+        } else {
+            return null;
+        }
+
+        if ("array".equals(type)) {
+            if (items != null) {
+                return type + "(" + convertPropertyToCommonName(items) + ")";
+            } else {
+                return type;
+            }
+        } else if ("object".equals(type)) {
+            return type;
+        } else {
+            return convertPrimitiveProperty(type, format);
+        }
+    }
+
+    /**
+     * 1ページに出力する API の数を取得する.
+     *
+     * @return API の数
+     */
+    protected int getOperationsPerPage() {
+        return Integer.MAX_VALUE;
+    }
+
     protected String[] getIgnoredProfiles() {
         return new String[] {"files"};
     }
@@ -184,34 +197,235 @@ public abstract class AbstractDocsCodegenConfig extends AbstractCodegenConfig {
         }
     }
 
-    private OperationListDocs findSwagger(final String profileName) {
-        for (final OperationListDocs doc : swaggerList) {
-            if (doc.profileName().equals(profileName)) {
-                return doc;
+    /**
+     * プロファイルごとの文書を描画する.
+     *
+     * 生成処理ではこの後にインラインのモデルが定義から切り出されるため、定義が書き換えられる前のこの時点で描画する.
+     */
+    @Override
+    public void preprocessSwagger(final Swagger swagger) {
+        try {
+            // 前回の出力から変更がないプロファイルは描画しない. 検証モードではすべてのプロファイルを描画して比較する.
+            boolean verifying = codegenContext.getVerifier() != null;
+            RenderStamps stamps = RenderStamps.load(renderStampsFile());
+
+            for (Map.Entry<String, Swagger> specEntry : profileSpecs.entrySet()) {
+                final String profileName = specEntry.getKey();
+                codegenContext.checkCancelled();
+                long start = System.nanoTime();
+                OperationListDocs profile = createProfileDocs(profileName, specEntry.getValue());
+                List<ProfileTemplate> templates = prepareAllTemplates(profileName, profile);
+                if (templates.size() == 0) {
+                    continue;
+                }
+
+                String specDigest = RenderStamps.digestJson(Json.mapper(), specEntry.getValue());
+                String digest = digestTemplates(specDigest, templates);
+                List<String> outputFiles = new ArrayList<>();
+                for (ProfileTemplate template : templates) {
+                    outputFiles.add(profileFileFolder() + File.separator + template.outputFile);
+                }
+                if (!verifying && stamps.isUpToDate(profileName, digest, outputFiles)) {
+                    LOGGER.info("skipped unchanged profile: {}", profileName);
+                    continue;
+                }
+
+                Map<String, Object> properties = new LinkedHashMap<>();
+                properties.put("profileSpec", profile);
+                prepareProperties(profileName, properties);
+                for (ProfileTemplate template : templates) {
+                    generateProfile(template, properties);
+                }
+                codegenContext.profileGenerated(profileName, templates.size(), start);
+                if (!verifying) {
+                    stamps.update(profileName, digest, outputFiles);
+                }
             }
+            if (!verifying) {
+                stamps.retain(profileSpecs.keySet());
+                stamps.save();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-        return null;
     }
 
     @Override
     public void processSwagger(final Swagger swagger) {
         try {
-            for (Map.Entry<String, Swagger> specEntry : profileSpecs.entrySet()) {
-                final String profileName = specEntry.getKey();
-                List<ProfileTemplate> templates = new ArrayList<>();
-                Map<String, Object> properties = new LinkedHashMap<>();
-                properties.put("profileSpec", findSwagger(profileName));
+            writeSearchIndex(buildSearchIndex());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * プロファイルごとの描画状態を保存するファイルを取得する.
+     *
+     * @return ファイル
+     */
+    protected File renderStampsFile() {
+        return new File(outputFolder(), ".docs-stamps");
+    }
+
+    /**
+     * API 一覧のページのテンプレートを取得する.
+     *
+     * @param profileName プロファイル名
+     * @param pageNumber ページ番号 (1 から開始)
+     * @return テンプレート. ページを出力しない場合は <code>null</code>
+     */
+    protected ProfileTemplate getOperationPageTemplate(final String profileName, final int pageNumber) {
+        return null;
+    }
 
-                prepareTemplates(profileName, templates);
-                if (templates.size() > 0) {
-                    prepareProperties(profileName, properties);
-                    for (ProfileTemplate template : templates) {
-                        generateProfile(template, properties);
+    private List<ProfileTemplate> prepareAllTemplates(final String profileName, final OperationListDocs profile) {
+        List<ProfileTemplate> templates = new ArrayList<>();
+        prepareTemplates(profileName, templates);
+        prepareOperationPages(profile, templates);
+        return templates;
+    }
+
+    private void prepareOperationPages(final OperationListDocs profile, final List<ProfileTemplate> templates) {
+        String profileName = profile.profileName();
+        List<OperationDocs> operations = profile.operationList();
+        int perPage = getOperationsPerPage();
+        int pageCount = Math.max(1, (operations.size() + perPage - 1) / perPage);
+
+        List<ProfileTemplate> pages = new ArrayList<>();
+        for (int number = 1; number <= pageCount; number++) {
+            ProfileTemplate page = getOperationPageTemplate(profileName, number);
+            if (page == null) {
+                return;
+            }
+            pages.add(page);
+        }
+        for (int i = 0; i < pageCount; i++) {
+            int from = i * perPage;
+            int to = Math.min(operations.size(), from + perPage);
+            String previous = i > 0 ? pages.get(i - 1).outputFile : null;
+            String next = i < pageCount - 1 ? pages.get(i + 1).outputFile : null;
+            ProfileTemplate page = pages.get(i);
+            page.properties = new HashMap<>();
+            page.properties.put("page", new OperationPage(profile, i + 1, pageCount,
+                    operations.subList(from, to), previous, next));
+            templates.add(page);
+        }
+    }
+
+    private String digestTemplates(final String profileDigest, final List<ProfileTemplate> templates) {
+        StringBuilder source = new StringBuilder(profileDigest);
+        source.append(getOperationsPerPage());
+        for (ProfileTemplate template : templates) {
+            source.append('\n').append(template.templateFile).append('\n').append(template.outputFile);
+            String templateDigest = templateDigests.get(template.templateFile);
+            if (templateDigest == null) {
+                templateDigest = RenderStamps.digest(readTemplateSource(template.templateFile));
+                templateDigests.put(template.templateFile, templateDigest);
+            }
+            source.append('\n').append(templateDigest);
+        }
+        return RenderStamps.digest(source.toString());
+    }
+
+    /**
+     * 検索用インデックスの出力先を取得する.
+     *
+     * @return 出力先のディレクトリ. インデックスを出力しない場合は <code>null</code>
+     */
+    protected String searchIndexFolder() {
+        return outputFolder() + File.separator + "search";
+    }
+
+    /**
+     * 検索用インデックスのファイルの拡張子を取得する.
+     *
+     * @return 拡張子
+     */
+    protected String searchIndexFileExtension() {
+        return ".json";
+    }
+
+    /**
+     * 検索用インデックスのファイルの内容を作成する.
+     *
+     * @param name ファイル名 (拡張子なし)
+     * @param json JSON 文字列
+     * @return ファイルの内容
+     */
+    protected String formatSearchIndexFile(final String name, final String json) {
+        return json;
+    }
+
+    /**
+     * 検索結果から文書へのリンクを作成する.
+     *
+     * @param profileName プロファイル名
+     * @param operation API. プロファイル自体へのリンクの場合は <code>null</code>
+     * @return リンク
+     */
+    protected abstract String getSearchResultLink(String profileName, OperationDocs operation);
+
+    private SearchIndex buildSearchIndex() {
+        SearchIndex index = new SearchIndex();
+        for (OperationListDocs profile : swaggerList) {
+            Swagger profileSpec = profileSpecs.get(profile.profileName());
+            if (profileSpec == null) {
+                continue;
+            }
+            String profileName = profile.profileName();
+            Info info = profileSpec.getInfo();
+            int profileDocId = index.addDocument(profileName, profileName, getSearchResultLink(profileName, null),
+                    info != null ? info.getTitle() : null);
+            index.addText(profileDocId, profileName);
+            if (info != null) {
+                index.addText(profileDocId, info.getTitle());
+                index.addText(profileDocId, info.getDescription());
+            }
+
+            for (OperationDocs operation : profile.operationList()) {
+                Operation op = operation.op;
+                int docId = index.addDocument(profileName, operation.name,
+                        getSearchResultLink(profileName, operation), op.getSummary());
+                index.addText(docId, profileName);
+                index.addText(docId, operation.name);
+                index.addText(docId, op.getSummary());
+                index.addText(docId, op.getDescription());
+                if (op.getParameters() != null) {
+                    for (Parameter param : op.getParameters()) {
+                        index.addText(docId, param.getName());
+                        index.addText(docId, param.getDescription());
                     }
                 }
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        }
+        return index;
+    }
+
+    private void writeSearchIndex(final SearchIndex index) throws IOException {
+        String folder = searchIndexFolder();
+        if (folder == null) {
+            return;
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        String ext = searchIndexFileExtension();
+
+        // 文書一覧とシャード名の一覧
+        List<Object> documents = new ArrayList<>();
+        for (SearchIndex.Document doc : index.getDocuments()) {
+            documents.add(Arrays.asList(doc.profile, doc.name, doc.anchor, doc.summary));
+        }
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("documents", documents);
+        manifest.put("shards", new ArrayList<>(index.getShards().keySet()));
+        writeToFile(folder + File.separator + "documents" + ext,
+                formatSearchIndexFile("documents", mapper.writeValueAsString(manifest)));
+
+        // 先頭文字ごとのシャード
+        for (Map.Entry<String, Map<String, SortedSet<Integer>>> shard : index.getShards().entrySet()) {
+            String name = "index-" + shard.getKey();
+            writeToFile(folder + File.separator + name + ext,
+                    formatSearchIndexFile(name, mapper.writeValueAsString(shard.getValue())));
         }
     }
 
@@ -322,30 +536,30 @@ public abstract class AbstractDocsCodegenConfig extends AbstractCodegenConfig {
             paramDoc.setMaxNestLevel(maxNestLevel);
         }
 
-        return new Object() {
-            List<ResponseParamDoc> paramList() { return paramDocList; }
-
-            int maxNestLevel() { return maxNestLevel; }
-
-            String example() {
-                String exampleJson = null;
-                Map<String, Object> examples = message.getExamples();
-                if (examples != null) {
-                    Map<String, Object> example = (Map<String, Object>) examples.get("application/json");
-                    if (example != null) {
-                        ObjectMapper mapper = new ObjectMapper();
-                        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-                        try {
-                            ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
-                            exampleJson = writer.writeValueAsString(example);
-                        } catch (JsonProcessingException e) {
-                            // NOP.
-                        }
-                    }
+        Map<String, Object> responseDoc = new HashMap<>();
+        responseDoc.put("paramList", paramDocList);
+        responseDoc.put("maxNestLevel", maxNestLevel);
+        responseDoc.put("example", getExampleJson(message));
+        return responseDoc;
+    }
+
+    private static String getExampleJson(final Response message) {
+        String exampleJson = null;
+        Map<String, Object> examples = message.getExamples();
+        if (examples != null) {
+            Map<String, Object> example = (Map<String, Object>) examples.get("application/json");
+            if (example != null) {
+                ObjectMapper mapper = new ObjectMapper();
+                mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+                try {
+                    ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
+                    exampleJson = writer.writeValueAsString(example);
+                } catch (JsonProcessingException e) {
+                    // NOP.
                 }
-                return exampleJson;
             }
-        };
+        }
+        return exampleJson;
     }
 
     private int getMaxNestLevel(final List<ResponseParamDoc> paramDocList) {
@@ -456,7 +670,119 @@ public abstract class AbstractDocsCodegenConfig extends AbstractCodegenConfig {
     }
 
     interface OperationListDocs extends ProfileDocs {
-        List<Object> operationList();
+        List<OperationDocs> operationList();
+    }
+
+    static class ProfileNameDocs implements ProfileDocs {
+        private final String profileName;
+
+        ProfileNameDocs(final String profileName) {
+            this.profileName = profileName;
+        }
+
+        @Override
+        public String profileName() {
+            return profileName;
+        }
+    }
+
+    class ProfileOperationListDocs implements OperationListDocs {
+        private final String profileName;
+        private final String basePath;
+        private final Swagger spec;
+        final String version;
+        final String title;
+        final String description;
+
+        ProfileOperationListDocs(final String profileName, final String basePath, final Swagger spec) {
+            this.profileName = profileName;
+            this.basePath = basePath;
+            this.spec = spec;
+            this.version = spec.getInfo().getVersion();
+            this.title = spec.getInfo().getTitle();
+            this.description = spec.getInfo().getDescription();
+        }
+
+        @Override
+        public String profileName() {
+            return profileName;
+        }
+
+        String profileNameCamelCase() {
+            return toUpperCapital(profileName, false);
+        }
+
+        @Override
+        public List<OperationDocs> operationList() {
+            // プロファイル単位で作成し、描画後は破棄できるように保持しない.
+            return createOperationList(basePath, spec);
+        }
+    }
+
+    class OperationDocs {
+        final Operation op;
+        final Swagger profileSpec;
+        final String name;
+        final String type;
+        final String summary;
+        final int pageNumber;
+
+        OperationDocs(final Swagger profileSpec, final Operation op, final String name, final int pageNumber) {
+            this.profileSpec = profileSpec;
+            this.op = op;
+            this.name = name;
+            this.type = (String) op.getVendorExtensions().get("x-type");
+            this.summary = op.getSummary();
+            this.pageNumber = pageNumber;
+        }
+
+        String id() {
+            return op.getOperationId();
+        }
+
+        String description() {
+            String description = op.getDescription();
+            if ("".equals(description)) {
+                return null;
+            }
+            return description;
+        }
+
+        List<Object> paramList() {
+            return createParamList(op);
+        }
+
+        // レスポンスとイベントの説明は描画時に作成する
+        Object response() {
+            return createResponseDocument(profileSpec, op);
+        }
+
+        Object event() {
+            return createEventDocument(profileSpec, op);
+        }
+    }
+
+    static class OperationPage {
+        final OperationListDocs profile;
+        final int number;
+        final int count;
+        final List<OperationDocs> operationList;
+        final String previous;
+        final String next;
+
+        OperationPage(final OperationListDocs profile, final int number, final int count,
+                      final List<OperationDocs> operationList, final String previous, final String next) {
+            this.profile = profile;
+            this.number = number;
+            this.count = count;
+            this.operationList = operationList;
+            this.previous = previous;
+            this.next = next;
+        }
+
+        boolean isFirst() {
+            return number == 1;
+        }
     }
 
     class ResponseParamDoc {
@@ -18,12 +18,19 @@ import io.swagger.models.properties.ObjectProperty;
 import io.swagger.models.properties.Property;
 import io.swagger.models.properties.RefProperty;
 import org.deviceconnect.codegen.DConnectCodegenConfig;
+import org.deviceconnect.codegen.ProfileTemplate;
 import org.deviceconnect.codegen.models.DConnectOperation;
 
+import java.io.File;
 import java.util.*;
 
 public class HtmlDocsCodegenConfig extends AbstractDocsCodegenConfig {
 
+    /**
+     * API 一覧の1ページに出力する API の数.
+     */
+    private static final int OPERATIONS_PER_PAGE = 20;
+
     @Override
     public String getName() {
         return "deviceConnectHtmlDocs";
@@ -36,7 +43,7 @@ public class HtmlDocsCodegenConfig extends AbstractDocsCodegenConfig {
 
     @Override
     protected String profileFileFolder() {
-        return null;
+        return outputFolder() + File.separator + "html";
     }
 
     @Override
@@ -45,10 +52,7 @@ public class HtmlDocsCodegenConfig extends AbstractDocsCodegenConfig {
 
         List<ProfileDocs> profileHtmlList = new ArrayList<>();
         for (Map.Entry<String, Swagger> specEntry : profileSpecs.entrySet()) {
-            final String profileName = specEntry.getKey();
-            profileHtmlList.add(new ProfileDocs() {
-                public String profileName() { return profileName; }
-            });
+            profileHtmlList.add(new ProfileNameDocs(specEntry.getKey()));
         }
         Collections.sort(profileHtmlList, new Comparator<ProfileDocs>() {
             @Override
@@ -64,6 +68,49 @@ public class HtmlDocsCodegenConfig extends AbstractDocsCodegenConfig {
         supportingFiles.add(new SupportingFile("html/profile-list.html.mustache", "html", "profile-list.html"));
         supportingFiles.add(new SupportingFile("html/operation-list.html.mustache", "html", "operation-list.html"));
         supportingFiles.add(new SupportingFile("html/all-operations.html.mustache", "html", "all-operations.html"));
+        supportingFiles.add(new SupportingFile("html/search.html", "html", "search.html"));
+        supportingFiles.add(new SupportingFile("js/search.js", "js", "search.js"));
+    }
+
+    @Override
+    protected String searchIndexFileExtension() {
+        return ".js";
+    }
+
+    @Override
+    protected String formatSearchIndexFile(final String name, final String json) {
+        // file:// で開いた場合も読み込めるように script タグで読み込む形式にする
+        return "DocsSearch.load('" + name + "', " + json + ");";
+    }
+
+    @Override
+    protected String getSearchResultLink(final String profileName, final OperationDocs operation) {
+        if (operation == null) {
+            return "operation-list.html#" + profileName;
+        }
+        String page = getOperationPageFile(profileName, operation.pageNumber);
+        String id = operation.id();
+        if (id == null || id.isEmpty()) {
+            return page;
+        }
+        return page + "#" + id;
+    }
+
+    @Override
+    protected int getOperationsPerPage() {
+        return OPERATIONS_PER_PAGE;
+    }
+
+    @Override
+    protected ProfileTemplate getOperationPageTemplate(final String profileName, final int pageNumber) {
+        ProfileTemplate template = new ProfileTemplate();
+        template.templateFile = "html/operations.html.mustache";
+        template.outputFile = getOperationPageFile(profileName, pageNumber);
+        return template;
+    }
+
+    private static String getOperationPageFile(final String profileName, final int pageNumber) {
+        return "all-operations-" + profileName + "-" + pageNumber + ".html";
     }
 
 }
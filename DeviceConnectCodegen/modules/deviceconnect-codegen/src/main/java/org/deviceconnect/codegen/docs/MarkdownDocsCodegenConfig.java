@@ -39,4 +39,9 @@ public class MarkdownDocsCodegenConfig extends AbstractDocsCodegenConfig {
         supportingFiles.add(new SupportingFile("index.md.mustache", "Device-Connect-API-Reference.md"));
         supportingFiles.add(new SupportingFile("sidebar.md.mustache", "_Sidebar.md"));
     }
+
+    @Override
+    protected String getSearchResultLink(final String profileName, final OperationDocs operation) {
+        return toUpperCapital(profileName, false);
+    }
 }
@@ -0,0 +1,210 @@
+package org.deviceconnect.codegen.docs;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * プロファイルごとの描画状態.
+ *
+ * 前回描画時のダイジェストと出力ファイルを記録し、変更のないプロファイルの再描画を省略するために使用する.
+ */
+class RenderStamps {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String SUFFIX_DIGEST = ".digest";
+    private static final String SUFFIX_FILES = ".files";
+    private static final String FILE_SEPARATOR = "\n";
+
+    private final File file;
+    private final Properties stamps;
+
+    private RenderStamps(final File file, final Properties stamps) {
+        this.file = file;
+        this.stamps = stamps;
+    }
+
+    static RenderStamps load(final File file) throws IOException {
+        Properties stamps = new Properties();
+        if (file.exists()) {
+            Reader in = new InputStreamReader(new FileInputStream(file), UTF8);
+            try {
+                stamps.load(in);
+            } finally {
+                in.close();
+            }
+        }
+        return new RenderStamps(file, stamps);
+    }
+
+    static String digest(final String text) {
+        MessageDigest md = newDigest();
+        return toHex(md.digest(text.getBytes(UTF8)));
+    }
+
+    /**
+     * オブジェクトを JSON としてシリアライズした内容のダイジェストを計算する.
+     *
+     * シリアライズした内容は文字列として保持せず、そのままダイジェストの計算に使用する.
+     *
+     * @param mapper シリアライズに使用する ObjectMapper
+     * @param value オブジェクト
+     * @return ダイジェスト
+     * @throws IOException シリアライズに失敗した場合
+     */
+    static String digestJson(final ObjectMapper mapper, final Object value) throws IOException {
+        MessageDigest md = newDigest();
+        OutputStream out = new DigestOutputStream(new OutputStream() {
+            @Override
+            public void write(final int b) {
+                // ダイジェストの計算のみを行う
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+                // ダイジェストの計算のみを行う
+            }
+        }, md);
+        mapper.writeValue(out, value);
+        return toHex(md.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(final byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b & 0xFF));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 前回の描画結果をそのまま使用できるかどうかを確認する.
+     *
+     * @param profileName プロファイル名
+     * @param digest 今回の入力のダイジェスト
+     * @param outputFiles 今回の出力ファイル
+     * @return 使用できる場合は <code>true</code>、そうでない場合は <code>false</code>
+     */
+    boolean isUpToDate(final String profileName, final String digest, final List<String> outputFiles) {
+        if (!digest.equals(stamps.getProperty(profileName + SUFFIX_DIGEST))) {
+            return false;
+        }
+        for (String outputFile : outputFiles) {
+            if (!new File(outputFile).exists()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 描画結果を記録する. 前回出力されて今回出力されなかったファイルは削除する.
+     *
+     * @param profileName プロファイル名
+     * @param digest 今回の入力のダイジェスト
+     * @param outputFiles 今回の出力ファイル
+     */
+    void update(final String profileName, final String digest, final List<String> outputFiles) {
+        // 出力先の指定方法 ("out/", "./out" など) によらず比較できるように、正規化した絶対パスで比較する
+        Set<String> currentFiles = new HashSet<>();
+        for (String outputFile : outputFiles) {
+            currentFiles.add(normalize(outputFile).toString());
+        }
+        List<String> obsoleteFiles = getFiles(profileName);
+        obsoleteFiles.removeAll(currentFiles);
+        deleteFiles(obsoleteFiles);
+
+        StringBuilder files = new StringBuilder();
+        for (String outputFile : outputFiles) {
+            if (files.length() > 0) {
+                files.append(FILE_SEPARATOR);
+            }
+            files.append(toRelativePath(outputFile));
+        }
+        stamps.setProperty(profileName + SUFFIX_DIGEST, digest);
+        stamps.setProperty(profileName + SUFFIX_FILES, files.toString());
+    }
+
+    /**
+     * 指定されたプロファイル以外の記録と出力ファイルを削除する.
+     *
+     * @param profileNames 残すプロファイル名
+     */
+    void retain(final Set<String> profileNames) {
+        for (String key : new ArrayList<>(stamps.stringPropertyNames())) {
+            if (!key.endsWith(SUFFIX_DIGEST)) {
+                continue;
+            }
+            String profileName = key.substring(0, key.length() - SUFFIX_DIGEST.length());
+            if (!profileNames.contains(profileName)) {
+                deleteFiles(getFiles(profileName));
+                stamps.remove(profileName + SUFFIX_DIGEST);
+                stamps.remove(profileName + SUFFIX_FILES);
+            }
+        }
+    }
+
+    void save() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Failed to create directory: " + parent.getAbsolutePath());
+        }
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), UTF8);
+        try {
+            stamps.store(out, null);
+        } finally {
+            out.close();
+        }
+    }
+
+    private List<String> getFiles(final String profileName) {
+        List<String> files = new ArrayList<>();
+        String value = stamps.getProperty(profileName + SUFFIX_FILES);
+        if (value != null && !value.isEmpty()) {
+            Path base = getBaseDir();
+            for (String path : value.split(FILE_SEPARATOR)) {
+                files.add(base.resolve(path).normalize().toString());
+            }
+        }
+        return files;
+    }
+
+    // 出力先を移動しても使えるように記録ファイルからの相対パスで保存する
+    private String toRelativePath(final String path) {
+        Path base = getBaseDir();
+        Path target = normalize(path);
+        return target.startsWith(base) ? base.relativize(target).toString() : target.toString();
+    }
+
+    private Path getBaseDir() {
+        return normalize(file.getPath()).getParent();
+    }
+
+    private static Path normalize(final String path) {
+        return new File(path).toPath().toAbsolutePath().normalize();
+    }
+
+    private static void deleteFiles(final List<String> files) {
+        for (String path : files) {
+            File f = new File(path);
+            if (f.exists() && !f.delete()) {
+                throw new RuntimeException("Failed to delete file: " + f.getAbsolutePath());
+            }
+        }
+    }
+}
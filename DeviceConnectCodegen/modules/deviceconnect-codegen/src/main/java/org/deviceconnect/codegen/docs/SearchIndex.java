@@ -0,0 +1,156 @@
+package org.deviceconnect.codegen.docs;
+
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * API リファレンスの検索用転置インデックス.
+ *
+ * 英数字は単語 (camelCase は分割した単語も含む)、日本語は 2-gram を索引語とする.
+ * 索引語は先頭文字ごとのシャードに分割され、検索時に必要なシャードのみを読み込めるようにする.
+ */
+class SearchIndex {
+
+    private static final Pattern HTML_TAG = Pattern.compile("<[^>]*>");
+
+    private final List<Document> documents = new ArrayList<>();
+
+    private final Map<String, Map<String, SortedSet<Integer>>> shards = new TreeMap<>();
+
+    /**
+     * 文書を追加する.
+     *
+     * @param profile プロファイル名
+     * @param name 文書名 (例: GET /gotapi/battery)
+     * @param anchor 文書内のアンカー. 存在しない場合は <code>null</code>
+     * @param summary 検索結果に表示する概要
+     * @return 文書ID
+     */
+    int addDocument(final String profile, final String name, final String anchor, final String summary) {
+        int id = documents.size();
+        documents.add(new Document(profile, name, anchor, summary));
+        return id;
+    }
+
+    /**
+     * 文書のテキストを索引に追加する.
+     *
+     * @param docId 文書ID
+     * @param text テキスト. <code>null</code> の場合は無視する.
+     */
+    void addText(final int docId, final String text) {
+        if (text == null) {
+            return;
+        }
+        for (String term : tokenize(text)) {
+            String shardName = getShardName(term);
+            Map<String, SortedSet<Integer>> shard = shards.get(shardName);
+            if (shard == null) {
+                shard = new TreeMap<>();
+                shards.put(shardName, shard);
+            }
+            SortedSet<Integer> postings = shard.get(term);
+            if (postings == null) {
+                postings = new TreeSet<>();
+                shard.put(term, postings);
+            }
+            postings.add(docId);
+        }
+    }
+
+    List<Document> getDocuments() {
+        return documents;
+    }
+
+    Map<String, Map<String, SortedSet<Integer>>> getShards() {
+        return shards;
+    }
+
+    static Set<String> tokenize(final String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        String plain = HTML_TAG.matcher(text).replaceAll(" ");
+        int length = plain.length();
+        int i = 0;
+        while (i < length) {
+            char c = plain.charAt(i);
+            if (isWordChar(c)) {
+                int start = i;
+                while (i < length && isWordChar(plain.charAt(i))) {
+                    i++;
+                }
+                addWord(plain.substring(start, i), terms);
+            } else if (isCjkChar(c)) {
+                int start = i;
+                while (i < length && isCjkChar(plain.charAt(i))) {
+                    i++;
+                }
+                addBigrams(plain.substring(start, i), terms);
+            } else {
+                i++;
+            }
+        }
+        return terms;
+    }
+
+    static String getShardName(final String term) {
+        char c = term.charAt(0);
+        if (isWordChar(c)) {
+            return String.valueOf(c);
+        }
+        // 日本語は Unicode の上位バイトごとにまとめる
+        return "u" + Integer.toHexString(c >> 8);
+    }
+
+    private static void addWord(final String word, final Set<String> terms) {
+        terms.add(word.toLowerCase(Locale.ENGLISH));
+
+        // camelCase の分割 (例: onDeviceOrientation -> on, device, orientation)
+        int start = 0;
+        for (int i = 1; i < word.length(); i++) {
+            if (Character.isUpperCase(word.charAt(i)) && !Character.isUpperCase(word.charAt(i - 1))) {
+                terms.add(word.substring(start, i).toLowerCase(Locale.ENGLISH));
+                start = i;
+            }
+        }
+        if (start > 0) {
+            terms.add(word.substring(start).toLowerCase(Locale.ENGLISH));
+        }
+    }
+
+    private static void addBigrams(final String run, final Set<String> terms) {
+        if (run.length() == 1) {
+            terms.add(run);
+            return;
+        }
+        for (int i = 0; i < run.length() - 1; i++) {
+            terms.add(run.substring(i, i + 2));
+        }
+    }
+
+    private static boolean isWordChar(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isCjkChar(final char c) {
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(c);
+        return block == Character.UnicodeBlock.HIRAGANA
+                || block == Character.UnicodeBlock.KATAKANA
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || block == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS;
+    }
+
+    static class Document {
+        final String profile;
+        final String name;
+        final String anchor;
+        final String summary;
+
+        Document(final String profile, final String name, final String anchor, final String summary) {
+            this.profile = profile;
+            this.name = name;
+            this.anchor = anchor;
+            this.summary = summary;
+        }
+    }
+}
@@ -9,6 +9,8 @@ import io.swagger.models.Response;
 import io.swagger.models.Swagger;
 import io.swagger.models.parameters.Parameter;
 import io.swagger.models.properties.*;
+import org.deviceconnect.codegen.ValidationResult;
+import org.deviceconnect.codegen.ValidationResultSet;
 
 import java.util.List;
 import java.util.Map;
@@ -16,22 +18,88 @@ import java.util.Map;
 public class DConnectOperation {
 
     private static final String TYPE = "x-type";
+    private static final String TIMEOUT = "x-timeout";
+    private static final String EVENT = "x-event";
+    private static final String EVENT_MIN_INTERVAL = "minInterval";
+    private static final String CACHE = "x-cache";
+    private static final String CACHE_TTL = "ttl";
+    private static final String CACHE_MAX_ENTRIES = "maxEntries";
+    private static final Integer DEFAULT_CACHE_MAX_ENTRIES = 16;
     private static final String PREFIX_DEFINITION_REF = "#/definitions/";
 
     private final Operation entity;
     private final Type type;
     private final Response eventModel;
+    private final Long timeout;
+    private final Long eventMinInterval;
+    private final Long cacheTtl;
+    private final Integer cacheMaxEntries;
 
     private DConnectOperation(final Operation entity, final Type type, final Response eventModel) {
+        this(entity, type, eventModel, null);
+    }
+
+    private DConnectOperation(final Operation entity, final Type type, final Response eventModel,
+                              final Long eventMinInterval) {
         this.entity = entity;
         this.type = type;
         this.eventModel = eventModel;
+        this.timeout = parseTimeout(entity);
+        this.eventMinInterval = eventMinInterval;
+        this.cacheTtl = parseCacheOption(entity, CACHE_TTL, Long.MAX_VALUE);
+        // 生成するキャッシュクラスは最大エントリ数を int で扱う
+        Long maxEntries = parseCacheOption(entity, CACHE_MAX_ENTRIES, Integer.MAX_VALUE);
+        if (maxEntries != null) {
+            this.cacheMaxEntries = maxEntries.intValue();
+        } else {
+            this.cacheMaxEntries = cacheTtl != null ? DEFAULT_CACHE_MAX_ENTRIES : null;
+        }
     }
 
     public Type getType() {
         return type;
     }
 
+    /**
+     * x-timeout で指定されたタイムアウト時間 (ミリ秒) を取得する.
+     *
+     * @return タイムアウト時間. 未指定の場合は <code>null</code>
+     */
+    public Long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * x-event の minInterval で指定されたイベントの最小送信間隔 (ミリ秒) を取得する.
+     *
+     * @return 最小送信間隔. 未指定の場合は <code>null</code>
+     */
+    public Long getEventMinInterval() {
+        return eventMinInterval;
+    }
+
+    /**
+     * x-cache の ttl で指定されたレスポンスの有効期間 (ミリ秒) を取得する.
+     *
+     * @return 有効期間. キャッシュが指定されていない場合は <code>null</code>
+     */
+    public Long getCacheTtl() {
+        return cacheTtl;
+    }
+
+    /**
+     * x-cache の maxEntries で指定されたキャッシュの最大エントリ数を取得する.
+     *
+     * @return 最大エントリ数. キャッシュが指定されていない場合は <code>null</code>
+     */
+    public Integer getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public boolean isCacheable() {
+        return type == Type.ONE_SHOT && cacheTtl != null;
+    }
+
     public List<Parameter> getParameters() {
         return entity.getParameters();
     }
@@ -51,7 +119,8 @@ public class DConnectOperation {
             if (tmp != null && tmp instanceof String) {
                 if ("event".equals(tmp)) {
                     Response eventModel = parseEventModel(entity);
-                    return new DConnectOperation(entity, Type.EVENT, eventModel);
+                    Long minInterval = parseEventMinInterval(entity);
+                    return new DConnectOperation(entity, Type.EVENT, eventModel, minInterval);
                 } else if ("streaming".equals(tmp)) {
                     return new DConnectOperation(entity, Type.STREAMING, null);
                 }
@@ -60,19 +129,142 @@ public class DConnectOperation {
         return new DConnectOperation(entity, Type.ONE_SHOT, null);
     }
 
-    static Response parseEventModel(final Operation parent) {
+    /**
+     * オペレーションのベンダー拡張 (x-timeout・x-cache) の値を検証する.
+     *
+     * 不正な値は生成処理では無視されるため、生成処理の前にこのメソッドで検証して利用者に通知すること.
+     *
+     * @param name 検証結果に表示するオペレーションの名前
+     * @param entity オペレーション
+     * @param results 検証結果の格納先
+     */
+    public static void validate(final String name, final Operation entity, final ValidationResultSet results) {
+        Map<String, Object> extensions = entity.getVendorExtensions();
+        if (extensions == null) {
+            return;
+        }
+        Object timeout = extensions.get(TIMEOUT);
+        if (timeout != null && !isInRange(parseLong(timeout), Long.MAX_VALUE)) {
+            results.addResult(ValidationResult.invalid(name + " " + TIMEOUT,
+                    "must be an integer between 1 and " + Long.MAX_VALUE + ": " + timeout));
+        }
+        ObjectNode cache = toObjectNode(extensions.get(CACHE));
+        if (cache != null) {
+            validateCacheOption(name, cache, CACHE_TTL, Long.MAX_VALUE, results);
+            validateCacheOption(name, cache, CACHE_MAX_ENTRIES, Integer.MAX_VALUE, results);
+        }
+    }
+
+    private static void validateCacheOption(final String name, final ObjectNode cache, final String option,
+                                            final long max, final ValidationResultSet results) {
+        JsonNode node = cache.get(option);
+        if (node != null && !node.isNull() && !isInRange(parseLong(node), max)) {
+            results.addResult(ValidationResult.invalid(name + " " + CACHE + "." + option,
+                    "must be an integer between 1 and " + max + ": " + node));
+        }
+    }
+
+    private static boolean isInRange(final Long value, final long max) {
+        return value != null && value > 0 && value <= max;
+    }
+
+    /**
+     * x-timeout で指定されたタイムアウト時間を取得する.
+     *
+     * @param parent オペレーション
+     * @return タイムアウト時間. 未指定または 1 以上の整数ではない場合は <code>null</code>
+     */
+    static Long parseTimeout(final Operation parent) {
+        Map<String, Object> extensions = parent.getVendorExtensions();
+        if (extensions == null) {
+            return null;
+        }
+        Long timeout = parseLong(extensions.get(TIMEOUT));
+        return isInRange(timeout, Long.MAX_VALUE) ? timeout : null;
+    }
+
+    static Long parseLong(final Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof JsonNode) {
+            JsonNode node = (JsonNode) value;
+            if (node.canConvertToLong()) {
+                return node.asLong();
+            }
+        } else if (value instanceof String) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * x-cache のオプションを取得する.
+     *
+     * @param parent オペレーション
+     * @param name オプション名
+     * @param max オプションの最大値
+     * @return オプションの値. 未指定または 1 以上 max 以下の整数ではない場合は <code>null</code>
+     */
+    static Long parseCacheOption(final Operation parent, final String name, final long max) {
         Map<String, Object> extensions = parent.getVendorExtensions();
         if (extensions == null) {
             return null;
         }
-        Object root = extensions.get("x-event");
+        ObjectNode root = toObjectNode(extensions.get(CACHE));
         if (root == null) {
             return null;
         }
-        if (!(root instanceof ObjectNode)) {
+        JsonNode node = root.get(name);
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        Long value = parseLong(node);
+        return isInRange(value, max) ? value : null;
+    }
+
+    static Long parseEventMinInterval(final Operation parent) {
+        Map<String, Object> extensions = parent.getVendorExtensions();
+        if (extensions == null) {
+            return null;
+        }
+        ObjectNode root = toObjectNode(extensions.get(EVENT));
+        if (root == null) {
+            return null;
+        }
+        Long interval = parseLong(root.get(EVENT_MIN_INTERVAL));
+        if (interval == null || interval <= 0) {
+            return null;
+        }
+        return interval;
+    }
+
+    /**
+     * ベンダー拡張の値を ObjectNode として取得する.
+     *
+     * シリアライズした定義を読み直した場合など、JSON オブジェクトが Map として格納されている場合にも対応する.
+     */
+    static ObjectNode toObjectNode(final Object value) {
+        if (value instanceof ObjectNode) {
+            return (ObjectNode) value;
+        } else if (value instanceof Map) {
+            return new ObjectMapper().valueToTree(value);
+        }
+        return null;
+    }
+
+    static Response parseEventModel(final Operation parent) {
+        Map<String, Object> extensions = parent.getVendorExtensions();
+        if (extensions == null) {
+            return null;
+        }
+        ObjectNode rootNode = toObjectNode(extensions.get(EVENT));
+        if (rootNode == null) {
             return null;
         }
-        ObjectNode rootNode = (ObjectNode) root;
         JsonNode schema = rootNode.get("schema");
         if (schema == null) {
             return null;
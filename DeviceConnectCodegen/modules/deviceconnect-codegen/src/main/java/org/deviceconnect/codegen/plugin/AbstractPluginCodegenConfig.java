@@ -8,6 +8,7 @@ import io.swagger.models.properties.Property;
 import io.swagger.util.Json;
 import org.deviceconnect.codegen.AbstractCodegenConfig;
 import org.deviceconnect.codegen.ProfileTemplate;
+import org.deviceconnect.codegen.RouteTable;
 import org.deviceconnect.codegen.models.DConnectOperation;
 import org.deviceconnect.codegen.util.JsonStringifyPrettyPrinter;
 
@@ -115,6 +116,7 @@ public abstract class AbstractPluginCodegenConfig extends AbstractCodegenConfig
                 api.put("apiPath", apiPath); // プロファイル名以下のパス
                 api.put("apiFullPath", apiFullPath); // フルパス
                 api.put("apiId", apiId);
+                api.put("timeout", operation.getTimeout());
 
                 switch (method) {
                     case GET:
@@ -140,6 +142,15 @@ public abstract class AbstractPluginCodegenConfig extends AbstractCodegenConfig
                         api.put("isOneShotApi", true);
                         profile.put("hasOneShotApi", true);
 
+                        // Response cache
+                        if (method == HttpMethod.GET && operation.isCacheable()) {
+                            api.put("isCachedApi", true);
+                            api.put("cacheTtl", operation.getCacheTtl());
+                            api.put("cacheMaxEntries", operation.getCacheMaxEntries());
+                            api.put("cacheKeyParams", getCacheKeyParams(operation));
+                            profile.put("hasCachedApi", true);
+                        }
+
                         // Response data creation
                         for (Map.Entry<String, Response> entity : operation.getResponses().entrySet()) {
                             if ("200".equals(entity.getKey())) { // HTTP Code
@@ -151,6 +162,7 @@ public abstract class AbstractPluginCodegenConfig extends AbstractCodegenConfig
                     case EVENT:
                         api.put("isEventApi", true);
                         profile.put("hasEventApi", true);
+                        api.put("eventMinInterval", operation.getEventMinInterval());
 
                         // Event data creation
                         if (method == HttpMethod.PUT) {
@@ -168,15 +180,16 @@ public abstract class AbstractPluginCodegenConfig extends AbstractCodegenConfig
 
                 // Parameter declarations
                 List<Object> paramList = new ArrayList<>();
+                List<Object> validationList = new ArrayList<>();
                 for (final Parameter param : operation.getParameters()) {
-                    paramList.add(new Object() {
-                        String declaration = getDeclaration(param);
-                    });
+                    paramList.add(Collections.singletonMap("declaration", getDeclaration(param)));
+                    validationList.addAll(getValidations(param));
                 }
                 api.put("paramList", paramList);
+                api.put("validationList", validationList);
                 apiList.add(api);
 
-                LOGGER.info("Parsed path: profile = " + profileName + ", interface = " + interfaceName + ", attribute = " + attributeName);
+                LOGGER.debug("Parsed path: profile = {}, interface = {}, attribute = {}", profileName, interfaceName, attributeName);
             }
             for (Iterator<Map<String, Object>> it = apiList.iterator(); it.hasNext(); ) {
                 it.next().put("hasNext", it.hasNext());
@@ -184,28 +197,44 @@ public abstract class AbstractPluginCodegenConfig extends AbstractCodegenConfig
         }
 
 
+        // 各プロファイルの API のルーティングテーブル (apiList のインデックスを引く)
+        for (Map<String, Object> profile : profiles.values()) {
+            List<Map<String, Object>> apiList = (List<Map<String, Object>>) profile.get("apiList");
+            RouteTable routes = new RouteTable();
+            for (int i = 0; i < apiList.size(); i++) {
+                Map<String, Object> api = apiList.get(i);
+                Map<String, Object> route = new HashMap<>();
+                route.put("index", i);
+                routes.add((String) api.get("method"), (String) api.get("apiFullPath"), route);
+            }
+            profile.put("routeList", routes.toList());
+        }
+
         // 各プロファイルのスケルトンコード生成
         List<Object> supportedProfileNames = new ArrayList<>();
         for (final Iterator<Map.Entry<String, Map<String, Object>>> it = profiles.entrySet().iterator(); it.hasNext(); ) {
             final Map.Entry<String, Map<String, Object>> entry = it.next();
             final String profileName = entry.getKey();
             final Map<String, Object> profile = entry.getValue();
+            codegenContext.checkCancelled();
             try {
+                long start = System.nanoTime();
                 List<ProfileTemplate> profileTemplates = prepareProfileTemplates(profileName, profile);
                 if (profileTemplates != null) {
                     for (ProfileTemplate template : profileTemplates) {
                         generateProfile(template, profile);
                     }
+                    codegenContext.profileGenerated(profileName, profileTemplates.size(), start);
                 }
             } catch (IOException e) {
                 throw new RuntimeException("Failed to generate profile source code: profile = " + profileName, e);
             }
 
-            supportedProfileNames.add(new Object() {
-                String name = profileName;
-                String id = profileName.toLowerCase();
-                boolean hasNext = it.hasNext();
-            });
+            Map<String, Object> supportedProfile = new HashMap<>();
+            supportedProfile.put("name", profileName);
+            supportedProfile.put("id", profileName.toLowerCase());
+            supportedProfile.put("hasNext", it.hasNext());
+            supportedProfileNames.add(supportedProfile);
         }
         additionalProperties.put("supportedProfileNames", supportedProfileNames);
 
@@ -217,8 +246,48 @@ public abstract class AbstractPluginCodegenConfig extends AbstractCodegenConfig
         }
     }
 
+    private static List<Object> getCacheKeyParams(final DConnectOperation operation) {
+        List<Object> names = new ArrayList<>();
+        if (operation.getParameters() != null) {
+            for (Iterator<Parameter> it = operation.getParameters().iterator(); it.hasNext(); ) {
+                Map<String, Object> name = new HashMap<>();
+                name.put("name", it.next().getName());
+                name.put("hasNext", it.hasNext());
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
     protected abstract String getDeclaration(Parameter p);
 
+    /**
+     * パラメータの制約 (required, minimum, maximum, enum, format など) を検証するコードを取得する.
+     *
+     * 各要素は、エラーとなる条件式 (condition) とエラー時にレスポンスを設定する文 (error) を持つ.
+     * 検証を行わない場合は空のリストを返す.
+     *
+     * @param p パラメータ
+     * @return パラメータの検証コードのリスト
+     */
+    protected List<Object> getValidations(final Parameter p) {
+        return new ArrayList<>();
+    }
+
+    protected static Object createValidation(final String condition, final String error) {
+        Map<String, Object> validation = new HashMap<>();
+        validation.put("conditionCode", condition);
+        validation.put("errorCode", error);
+        return validation;
+    }
+
+    protected static String toNumberLiteral(final Double value) {
+        if (value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+            return Long.toString(value.longValue());
+        }
+        return Double.toString(value);
+    }
+
     protected abstract List<String> getResponseCreation(Swagger swagger, Response response);
 
     protected abstract List<String> getEventCreation(Swagger swagger, Response event);
@@ -291,17 +360,16 @@ public abstract class AbstractPluginCodegenConfig extends AbstractCodegenConfig
             return;
         }
         File dir = new File(dirPath);
-        if (!dir.mkdirs()) {
+        if (codegenContext.getVerifier() == null && !dir.mkdirs()) {
             throw new IOException("Failed to copy profile spec directory: " + dirPath);
         }
         if (profileSpecs != null) {
             ObjectWriter writer = createJsonWriter();
             for (Map.Entry<String, Swagger> spec : profileSpecs.entrySet()) {
                 String fileName = spec.getKey() + ".json";
-                String content = writer.writeValueAsString(spec.getValue());
                 File destination = new File(getProfileSpecFolder(), fileName);
-                LOGGER.info("Output profile spec file: " + destination.getAbsolutePath());
-                writeFile(content, destination);
+                LOGGER.info("Output profile spec file: {}", destination);
+                writeJsonFile(writer, spec.getValue(), destination);
             }
         }
     }
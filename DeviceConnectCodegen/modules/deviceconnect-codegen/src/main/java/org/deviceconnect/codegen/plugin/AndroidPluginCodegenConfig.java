@@ -1,8 +1,11 @@
 package org.deviceconnect.codegen.plugin;
 
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.codegen.*;
 import io.swagger.models.*;
+import io.swagger.models.parameters.AbstractSerializableParameter;
 import io.swagger.models.parameters.FormParameter;
 import io.swagger.models.parameters.Parameter;
 import io.swagger.models.parameters.QueryParameter;
@@ -14,7 +17,12 @@ import org.deviceconnect.codegen.ValidationResult;
 import org.deviceconnect.codegen.ValidationResultSet;
 
 import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class AndroidPluginCodegenConfig extends AbstractPluginCodegenConfig {
 
@@ -23,12 +31,23 @@ public class AndroidPluginCodegenConfig extends AbstractPluginCodegenConfig {
         BINDER
     }
 
+    // パラメータの宣言に含まれるパラメータ解析メソッドの呼び出し
+    private static final Pattern PARSER_CALL = Pattern.compile("(parse[A-Z][a-zA-Z]*)\\(request, ");
+
     private final String pluginModuleFolder = "plugin";
     private final String projectFolder = pluginModuleFolder + "/src/main";
     private final String sourceFolder = projectFolder + "/java";
     private final String resFolder = projectFolder + "/res";
     private String invokerPackage;
     private ConnectionType connectionType = ConnectionType.BINDER;
+    private boolean asyncHandlers;
+    private boolean streamingTransport;
+    private boolean hasEventDispatcher;
+    private boolean hasResponseCache;
+    private boolean hasStreamWriter;
+    private int splitProfileThreshold;
+    private int rawExampleThreshold;
+    private final Map<String, String> rawExamples = new HashMap<>();
 
     private final String apiDocPath = "docs/";
     private final String modelDocPath = "docs/";
@@ -38,6 +57,10 @@ public class AndroidPluginCodegenConfig extends AbstractPluginCodegenConfig {
         ValidationResultSet resultSet = new ValidationResultSet();
         resultSet.addResult(readPackageName(cmd, clientOpts));
         resultSet.addResult(readConnectionType(cmd));
+        resultSet.addResult(readAsyncHandlers(cmd));
+        resultSet.addResult(readStreamingTransport(cmd));
+        resultSet.addResult(readSplitProfileThreshold(cmd));
+        resultSet.addResult(readRawExampleThreshold(cmd));
         return resultSet;
     }
 
@@ -61,6 +84,54 @@ public class AndroidPluginCodegenConfig extends AbstractPluginCodegenConfig {
         return ValidationResult.valid("b");
     }
 
+    private ValidationResult readAsyncHandlers(final CommandLine cmd) {
+        // 非同期リクエスト処理の指定
+        asyncHandlers = cmd.hasOption("async-handlers");
+        return ValidationResult.valid("async-handlers");
+    }
+
+    private ValidationResult readStreamingTransport(final CommandLine cmd) {
+        // ストリーミング転送の指定
+        streamingTransport = cmd.hasOption("streaming-transport");
+        if (streamingTransport && connectionType != ConnectionType.BINDER) {
+            // ブロードキャストではファイルディスクリプタを受け渡せない
+            return ValidationResult.invalid("streaming-transport", "Streaming transport requires binder connection type.");
+        }
+        return ValidationResult.valid("streaming-transport");
+    }
+
+    private ValidationResult readSplitProfileThreshold(final CommandLine cmd) {
+        // プロファイルクラスを分割する API 数の指定
+        String value = cmd.getOptionValue("split-profile-threshold");
+        if (value != null) {
+            splitProfileThreshold = parsePositiveInt(value);
+            if (splitProfileThreshold <= 0) {
+                return ValidationResult.invalid("split-profile-threshold", "Threshold must be a positive integer: " + value);
+            }
+        }
+        return ValidationResult.valid("split-profile-threshold");
+    }
+
+    private ValidationResult readRawExampleThreshold(final CommandLine cmd) {
+        // サンプルのレスポンスをリソースに出力する文の数の指定
+        String value = cmd.getOptionValue("raw-example-threshold");
+        if (value != null) {
+            rawExampleThreshold = parsePositiveInt(value);
+            if (rawExampleThreshold <= 0) {
+                return ValidationResult.invalid("raw-example-threshold", "Threshold must be a positive integer: " + value);
+            }
+        }
+        return ValidationResult.valid("raw-example-threshold");
+    }
+
+    private static int parsePositiveInt(final String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     //----- AbstractPluginCodegenConfig ----//
 
     @Override
@@ -99,20 +170,180 @@ public class AndroidPluginCodegenConfig extends AbstractPluginCodegenConfig {
         properties.put("profileNameDefinition", profileName);
         properties.put("profilePackage", getProfilePackage());
         properties.put("isStandardProfile", isStandardProfile);
+        if (asyncHandlers) {
+            // ワンショットAPIのみ共有スレッドプール上で処理する
+            for (Map<String, Object> api : (List<Map<String, Object>>) properties.get("apiList")) {
+                if (Boolean.TRUE.equals(api.get("isOneShotApi"))) {
+                    api.put("isAsyncApi", true);
+                    properties.put("hasAsyncApi", true);
+                }
+            }
+        }
+
+        if (Boolean.TRUE.equals(properties.get("hasEventApi")) && !hasEventDispatcher) {
+            // イベント配信クラスは全プロファイルで共有する
+            hasEventDispatcher = true;
+            additionalProperties.put("hasEventDispatcher", true);
+            supportingFiles.add(new SupportingFile("EventDispatcher.java.mustache", getPackageFolder() + File.separator + "profiles", getEventDispatcherClass() + ".java"));
+        }
+
+        if (Boolean.TRUE.equals(properties.get("hasCachedApi")) && !hasResponseCache) {
+            // レスポンスキャッシュクラスは全プロファイルで共有する
+            hasResponseCache = true;
+            supportingFiles.add(new SupportingFile("ResponseCache.java.mustache", getPackageFolder() + File.separator + "profiles", getResponseCacheClass() + ".java"));
+        }
+
+        if (streamingTransport && Boolean.TRUE.equals(properties.get("hasStreamingApi")) && !hasStreamWriter) {
+            // ストリーム送信クラスは全プロファイルで共有する
+            hasStreamWriter = true;
+            supportingFiles.add(new SupportingFile("StreamWriter.java.mustache", getPackageFolder() + File.separator + "profiles", getStreamWriterClass() + ".java"));
+        }
 
-        ((List<Object>) additionalProperties.get("supportedProfileClasses")).add(new Object() { String name = profileClassName;});
+        // イベントAPIを持つプロファイルはサービスの終了時に破棄する
+        Map<String, Object> profileClass = new HashMap<>();
+        profileClass.put("name", profileClassName);
+        profileClass.put("hasEventApi", Boolean.TRUE.equals(properties.get("hasEventApi")));
+        ((List<Object>) additionalProperties.get("supportedProfileClasses")).add(profileClass);
+
+        List<Map<String, Object>> apiList = (List<Map<String, Object>>) properties.get("apiList");
+        boolean isSplitProfile = splitProfileThreshold > 0 && apiList.size() > splitProfileThreshold;
+        properties.put("isSplitProfile", isSplitProfile);
+        if (isSplitProfile) {
+            // API の登録処理をインタフェースごとの補助クラスに分割し、プロファイルクラスのコンストラクタからは補助クラスを呼び出すのみとする
+            List<Object> apiGroups = new ArrayList<>();
+            for (Map.Entry<String, List<Map<String, Object>>> group : groupApis(profileClassName, apiList).entrySet()) {
+                String apiGroupClass = group.getKey();
+                apiGroups.add(Collections.singletonMap("apiGroupClass", apiGroupClass));
+
+                ProfileTemplate groupTemplate = new ProfileTemplate();
+                groupTemplate.templateFile = "profileApis.mustache";
+                groupTemplate.outputFile = apiGroupClass + ".java";
+                groupTemplate.properties = createApiGroupProperties(apiGroupClass, group.getValue());
+                profileTemplates.add(groupTemplate);
+            }
+            properties.put("apiGroups", apiGroups);
+        }
 
         ProfileTemplate template = new ProfileTemplate();
         template.templateFile = "profile.mustache";
         template.outputFile = profileClassName + ".java";
-        profileTemplates.add(template);
+        profileTemplates.add(0, template);
         return profileTemplates;
     }
 
+    /**
+     * API をインタフェースごとに分類する. 1つの補助クラスに含める API の数は分割の閾値までとする.
+     *
+     * @param profileClassName プロファイルのクラス名
+     * @param apiList プロファイルの API のリスト
+     * @return 補助クラス名と API のリストのマップ
+     */
+    private Map<String, List<Map<String, Object>>> groupApis(final String profileClassName,
+                                                           final List<Map<String, Object>> apiList) {
+        // クラス名の大文字・小文字のみが異なるとファイル名が衝突する環境があるため、インタフェース名は小文字で分類する
+        Map<String, List<Map<String, Object>>> interfaces = new LinkedHashMap<>();
+        Map<String, String> interfaceNames = new HashMap<>();
+        for (Map<String, Object> api : apiList) {
+            String interfaceName = (String) api.get("interface");
+            String key = interfaceName != null ? interfaceName.toLowerCase() : "";
+            List<Map<String, Object>> apis = interfaces.get(key);
+            if (apis == null) {
+                apis = new ArrayList<>();
+                interfaces.put(key, apis);
+                interfaceNames.put(key, interfaceName != null ? camelize(sanitizeName(interfaceName)) : "");
+            }
+            apis.add(api);
+        }
+
+        Map<String, List<Map<String, Object>>> groups = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Map<String, Object>>> entry : interfaces.entrySet()) {
+            String baseName = profileClassName + interfaceNames.get(entry.getKey()) + "Apis";
+            List<Map<String, Object>> apis = entry.getValue();
+            int chunks = (apis.size() + splitProfileThreshold - 1) / splitProfileThreshold;
+            for (int i = 0; i < chunks; i++) {
+                List<Map<String, Object>> chunk = apis.subList(i * splitProfileThreshold,
+                        Math.min((i + 1) * splitProfileThreshold, apis.size()));
+                groups.put(chunks > 1 ? baseName + (i + 1) : baseName, new ArrayList<>(chunk));
+            }
+        }
+        return groups;
+    }
+
+    private static Map<String, Object> createApiGroupProperties(final String apiGroupClass,
+                                                                final List<Map<String, Object>> apis) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("apiGroupClass", apiGroupClass);
+        properties.put("apiList", apis);
+        // 補助クラスのメソッドから、プロファイルのメソッド・フィールドを参照する
+        properties.put("profileRef", "profile.");
+        // 補助クラスで使用するクラスのみをインポートする
+        String[][] flags = {
+                {"getApi", "hasGetApi"},
+                {"postApi", "hasPostApi"},
+                {"putApi", "hasPutApi"},
+                {"deleteApi", "hasDeleteApi"},
+                {"isEventApi", "hasEventApi"},
+                {"isStreamingApi", "hasStreamingApi"},
+                {"isAsyncApi", "hasAsyncApi"}
+        };
+        for (String[] flag : flags) {
+            boolean has = false;
+            for (Map<String, Object> api : apis) {
+                if (Boolean.TRUE.equals(api.get(flag[0]))) {
+                    has = true;
+                    break;
+                }
+            }
+            properties.put(flag[1], has);
+        }
+        // プロファイルクラスの static メソッドは補助クラスに継承されないため、使用するものをインポートする
+        Set<String> staticMethods = new TreeSet<>();
+        staticMethods.add("setResult");
+        for (Map<String, Object> api : apis) {
+            for (Object param : (List<Object>) api.get("paramList")) {
+                String declaration = (String) ((Map<String, Object>) param).get("declaration");
+                Matcher m = PARSER_CALL.matcher(declaration != null ? declaration : "");
+                if (m.find()) {
+                    staticMethods.add(m.group(1));
+                }
+            }
+        }
+        List<Object> staticImports = new ArrayList<>();
+        for (String name : staticMethods) {
+            staticImports.add(Collections.singletonMap("name", name));
+        }
+        properties.put("staticImports", staticImports);
+        return properties;
+    }
+
     private String getProfilePackage() {
         return invokerPackage + ".profiles";
     }
 
+    private String getPackageFolder() {
+        return (sourceFolder + File.separator + invokerPackage).replace(".", File.separator);
+    }
+
+    private String getEventDispatcherClass() {
+        return getClassPrefix() + "EventDispatcher";
+    }
+
+    private String getStreamWriterClass() {
+        return getClassPrefix() + "StreamWriter";
+    }
+
+    private String getResponseCacheClass() {
+        return getClassPrefix() + "ResponseCache";
+    }
+
+    private String getAsyncExecutorClass() {
+        return getClassPrefix() + "RequestExecutor";
+    }
+
+    private String getExampleLoaderClass() {
+        return getClassPrefix() + "ExampleLoader";
+    }
+
     //----- CodegenConfig ----//
 
     @Override
@@ -206,7 +437,10 @@ public class AndroidPluginCodegenConfig extends AbstractPluginCodegenConfig {
     public void processOpts() {
         super.processOpts();
         invokerPackage = (String) additionalProperties.get("packageName");
-        embeddedTemplateDir = templateDir = getName();
+        embeddedTemplateDir = getName();
+        if (!additionalProperties.containsKey(CodegenConstants.TEMPLATE_DIR)) {
+            templateDir = getName();
+        }
         additionalProperties.put("profilePackage", getProfilePackage());
         additionalProperties.put("devicePluginXml", getDevicePluginXmlName());
         additionalProperties.put("specPath", getSpecPath());
@@ -218,6 +452,9 @@ public class AndroidPluginCodegenConfig extends AbstractPluginCodegenConfig {
         additionalProperties.put("serviceId", classPrefix.toLowerCase() + "_service_id");
         additionalProperties.put("messageServiceClass", messageServiceClass);
         additionalProperties.put("messageServiceProviderClass", messageServiceProviderClass);
+        additionalProperties.put("eventDispatcherClass", getEventDispatcherClass());
+        additionalProperties.put("responseCacheClass", getResponseCacheClass());
+        additionalProperties.put("exampleLoaderClass", getExampleLoaderClass());
 
         // README
         supportingFiles.add(new SupportingFile("README.md.mustache", "", "README.md"));
@@ -250,11 +487,17 @@ public class AndroidPluginCodegenConfig extends AbstractPluginCodegenConfig {
         supportingFiles.add(new SupportingFile("res/drawable-xxhdpi/ic_launcher.png", resFolder + "/drawable-xxhdpi/", "ic_launcher.png"));
 
         // 実装ファイル (全プラグイン共通)
-        final String packageFolder = (sourceFolder + File.separator + invokerPackage).replace(".", File.separator);
+        final String packageFolder = getPackageFolder();
         supportingFiles.add(new SupportingFile("MessageServiceProvider.java.mustache", packageFolder, messageServiceProviderClass + ".java"));
         supportingFiles.add(new SupportingFile("MessageService.java.mustache", packageFolder, messageServiceClass + ".java"));
         supportingFiles.add(new SupportingFile("SystemProfile.java.mustache", packageFolder + File.separator + "profiles", classPrefix + "SystemProfile.java"));
         supportingFiles.add(new SupportingFile("SettingActivity.java.mustache", packageFolder, classPrefix + "SettingActivity.java"));
+        additionalProperties.put("streamingTransport", streamingTransport);
+        additionalProperties.put("streamWriterClass", getStreamWriterClass());
+        if (asyncHandlers) {
+            additionalProperties.put("asyncExecutorClass", getAsyncExecutorClass());
+            supportingFiles.add(new SupportingFile("RequestExecutor.java.mustache", packageFolder + File.separator + "profiles", getAsyncExecutorClass() + ".java"));
+        }
     }
 
     @Override
@@ -420,43 +663,193 @@ public class AndroidPluginCodegenConfig extends AbstractPluginCodegenConfig {
         }
 
         String varName = p.getName();
-        String typeName;
-        boolean hasParser;
+        String typeName = getTypeName(type, format);
+        boolean hasParser = hasParser(typeName);
+        String leftOperand = typeName + " " + varName;
+        String rightOperand;
+        if (hasParser) {
+            rightOperand = "parse" + typeName + "(request, \"" + varName + "\")";
+        } else {
+            rightOperand = "(" + typeName + ") request.getExtras().get(\"" + varName + "\")";
+        }
+        return leftOperand + " = " + rightOperand + ";";
+    }
+
+    private static String getTypeName(final String type, final String format) {
         if ("number".equals(type)) {
             if ("double".equals(format)) {
-                typeName = "Double";
+                return "Double";
             } else {
-                typeName = "Float";
+                return "Float";
             }
-            hasParser = true;
         } else if ("integer".equals(type)) {
             if ("int64".equals(format)) {
-                typeName = "Long";
+                return "Long";
             } else {
-                typeName = "Integer";
+                return "Integer";
             }
-            hasParser = true;
         } else if ("boolean".equals(type)) {
-            typeName = "Boolean";
-            hasParser = true;
+            return "Boolean";
         } else if ("string".equals(type) || "array".equals(type)) {
-            typeName = "String";
-            hasParser = false;
+            return "String";
         } else if ("file".equals(type)) {
-            typeName = "byte[]";
-            hasParser = false;
+            return "byte[]";
         } else {
-            typeName = "Object";
-            hasParser = false;
+            return "Object";
         }
-        String leftOperand = typeName + " " + varName;
-        String rightOperand;
-        if (hasParser) {
-            rightOperand = "parse" + typeName + "(request, \"" + varName + "\")";
-        } else {
-            rightOperand = "(" + typeName + ") request.getExtras().get(\"" + varName + "\")";
+    }
+
+    private static boolean hasParser(final String typeName) {
+        return "Double".equals(typeName) || "Float".equals(typeName)
+                || "Long".equals(typeName) || "Integer".equals(typeName)
+                || "Boolean".equals(typeName);
+    }
+
+    private static boolean isNumberType(final String typeName) {
+        return "Double".equals(typeName) || "Float".equals(typeName)
+                || "Long".equals(typeName) || "Integer".equals(typeName);
+    }
+
+    @Override
+    protected List<Object> getValidations(final Parameter p) {
+        List<Object> validations = new ArrayList<>();
+        if (!(p instanceof QueryParameter || p instanceof FormParameter)) {
+            return validations;
         }
-        return leftOperand + " = " + rightOperand + ";";
+        AbstractSerializableParameter<?> param = (AbstractSerializableParameter<?>) p;
+        String varName = p.getName();
+        String typeName = getTypeName(param.getType(), param.getFormat());
+
+        if (p.getRequired()) {
+            validations.add(createValidation(varName + " == null",
+                    getInvalidParameterError(varName + " is required.")));
+        }
+        if (hasParser(typeName)) {
+            // 値が指定されているが型・フォーマットに合わない場合
+            validations.add(createValidation("request.hasExtra(\"" + varName + "\") && " + varName + " == null",
+                    getInvalidParameterError(varName + " is not " + param.getType()
+                            + (param.getFormat() != null ? " (" + param.getFormat() + ")" : "") + ".")));
+        }
+        if (isNumberType(typeName)) {
+            Double min = param.getMinimum();
+            if (min != null) {
+                boolean exclusive = Boolean.TRUE.equals(param.isExclusiveMinimum());
+                String literal = toNumberLiteral(min);
+                validations.add(createValidation(varName + " != null && " + varName + (exclusive ? " <= " : " < ") + toBoundLiteral(typeName, min),
+                        getInvalidParameterError(varName + " must be " + (exclusive ? "greater than " : "greater than or equal to ") + literal + ".")));
+            }
+            Double max = param.getMaximum();
+            if (max != null) {
+                boolean exclusive = Boolean.TRUE.equals(param.isExclusiveMaximum());
+                String literal = toNumberLiteral(max);
+                validations.add(createValidation(varName + " != null && " + varName + (exclusive ? " >= " : " > ") + toBoundLiteral(typeName, max),
+                        getInvalidParameterError(varName + " must be " + (exclusive ? "less than " : "less than or equal to ") + literal + ".")));
+            }
+        }
+        if ("String".equals(typeName) && "string".equals(param.getType())) {
+            Integer minLength = param.getMinLength();
+            if (minLength != null) {
+                validations.add(createValidation(varName + " != null && " + varName + ".length() < " + minLength,
+                        getInvalidParameterError(varName + " must be at least " + minLength + " characters.")));
+            }
+            Integer maxLength = param.getMaxLength();
+            if (maxLength != null) {
+                validations.add(createValidation(varName + " != null && " + varName + ".length() > " + maxLength,
+                        getInvalidParameterError(varName + " must be at most " + maxLength + " characters.")));
+            }
+        }
+        List<String> enumList = param.getEnum();
+        if (enumList != null && enumList.size() > 0) {
+            String condition = getEnumCondition(varName, typeName, enumList);
+            if (condition != null) {
+                validations.add(createValidation(varName + " != null && !(" + condition + ")",
+                        getInvalidParameterError(varName + " must be one of " + enumList + ".")));
+            }
+        }
+        return validations;
+    }
+
+    private static String getEnumCondition(final String varName, final String typeName, final List<String> enumList) {
+        StringBuilder condition = new StringBuilder();
+        for (String value : enumList) {
+            if (value == null) {
+                // 文字列として解釈できない値
+                return null;
+            }
+            if (condition.length() > 0) {
+                condition.append(" || ");
+            }
+            if ("String".equals(typeName)) {
+                condition.append(varName).append(".equals(\"").append(escapeJavaString(value)).append("\")");
+            } else if (isNumberType(typeName)) {
+                String literal;
+                try {
+                    literal = toJavaLiteral(typeName, new BigDecimal(value));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                if (literal == null) {
+                    return null;
+                }
+                condition.append(varName).append(" == ").append(literal);
+            } else if ("Boolean".equals(typeName)) {
+                condition.append(varName).append(" == ").append(Boolean.parseBoolean(value));
+            } else {
+                return null;
+            }
+        }
+        return condition.toString();
+    }
+
+    /**
+     * 最小値・最大値をパラメータの型のリテラルに変換する.
+     *
+     * 型で表せない値の場合は double のリテラルとして比較する.
+     */
+    private static String toBoundLiteral(final String typeName, final Double value) {
+        String literal = toJavaLiteral(typeName, BigDecimal.valueOf(value));
+        return literal != null ? literal : Double.toString(value);
+    }
+
+    /**
+     * 数値をパラメータの型 (Integer, Long, Float, Double) のリテラルに変換する.
+     *
+     * float の値と double のリテラルの比較で一致しなくなることや、int の範囲を超えるリテラルで
+     * コンパイルエラーになることを避けるため、型に合わせた接尾辞を付ける.
+     *
+     * @param typeName パラメータの型名
+     * @param value 数値
+     * @return リテラル. 型で表せない値の場合は <code>null</code>
+     */
+    private static String toJavaLiteral(final String typeName, final BigDecimal value) {
+        if ("Float".equals(typeName)) {
+            float f = value.floatValue();
+            return Float.isInfinite(f) ? null : Float.toString(f) + "f";
+        } else if ("Double".equals(typeName)) {
+            double d = value.doubleValue();
+            return Double.isInfinite(d) ? null : Double.toString(d);
+        }
+        BigInteger integer;
+        try {
+            integer = value.toBigIntegerExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+        if (integer.bitLength() >= Long.SIZE) {
+            return null;
+        }
+        if ("Integer".equals(typeName) && integer.bitLength() < Integer.SIZE) {
+            return integer.toString();
+        }
+        return integer.toString() + "L";
+    }
+
+    private static String escapeJavaString(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String getInvalidParameterError(final String message) {
+        return "MessageUtils.setInvalidRequestParameterError(response, \"" + escapeJavaString(message) + "\");";
     }
 
     @Override
@@ -496,6 +889,10 @@ public class AndroidPluginCodegenConfig extends AbstractPluginCodegenConfig {
         Map<String, Property> props = root.getProperties();
         if (props != null && props.size() > 0) {
             writeExampleResponse(root, "root", lines);
+            if (isRawExample(lines)) {
+                lines.clear();
+                lines.add("response.putExtras(" + getExampleLoaderClass() + ".load(" + writeRawExample(root) + "));");
+            }
         }
         return lines;
     }
@@ -537,10 +934,138 @@ public class AndroidPluginCodegenConfig extends AbstractPluginCodegenConfig {
         Map<String, Property> props = root.getProperties();
         if (props != null && props.size() > 0) {
             writeExampleEvent(root, "root", lines);
+            if (isRawExample(lines)) {
+                lines.clear();
+                lines.add("message.putExtras(" + getExampleLoaderClass() + ".load(" + writeRawExample(root) + "));");
+            }
         }
         return lines;
     }
 
+    private boolean isRawExample(final List<String> lines) {
+        return rawExampleThreshold > 0 && lines.size() >= rawExampleThreshold;
+    }
+
+    /**
+     * サンプルのメッセージを res/raw に JSON 形式で出力する.
+     *
+     * 同じ内容のサンプルは1つのリソースにまとめる.
+     *
+     * @param root メッセージの定義
+     * @return リソース ID を参照するコード
+     */
+    private String writeRawExample(final ObjectProperty root) {
+        final String json;
+        try {
+            json = new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(createExampleMessage(root));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize an example message.", e);
+        }
+
+        String name = String.format("example_%08x", json.hashCode());
+        for (int i = 2; rawExamples.containsKey(name) && !json.equals(rawExamples.get(name)); i++) {
+            name = String.format("example_%08x_%d", json.hashCode(), i);
+        }
+        if (!rawExamples.containsKey(name)) {
+            rawExamples.put(name, json);
+            try {
+                writeToFile(outputFolder + File.separator + resFolder + File.separator + "raw" + File.separator + name + ".json", json);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to write an example message: " + name, e);
+            }
+            if (!additionalProperties.containsKey("hasRawExamples")) {
+                // サンプルの読み込みクラスは全プロファイルで共有する
+                additionalProperties.put("hasRawExamples", true);
+                supportingFiles.add(new SupportingFile("ExampleLoader.java.mustache", getPackageFolder() + File.separator + "profiles", getExampleLoaderClass() + ".java"));
+            }
+        }
+        return invokerPackage + ".R.raw." + name;
+    }
+
+    // writeExampleMessage と同じ内容のメッセージを、型と値の組で表す
+    private Map<String, Object> createExampleMessage(final ObjectProperty root) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        Map<String, Property> props = root.getProperties();
+        if (props == null) {
+            return message;
+        }
+        for (Map.Entry<String, Property> propEntry : props.entrySet()) {
+            String propName = propEntry.getKey();
+            Property prop = propEntry.getValue();
+
+            String type = prop.getType();
+            if ("array".equals(type)) {
+                if (!(prop instanceof ArrayProperty)) {
+                    continue;
+                }
+                Property itemsProp = ((ArrayProperty) prop).getItems();
+                if (getArrayClassName(itemsProp) == null) {
+                    continue;
+                }
+                if ("object".equals(itemsProp.getType())) {
+                    message.put(propName, createExampleValue("bundle[]",
+                            Collections.singletonList(createExampleMessage((ObjectProperty) itemsProp))));
+                } else {
+                    String valueType = getExampleType(itemsProp);
+                    if (valueType == null) {
+                        continue;
+                    }
+                    message.put(propName, createExampleValue(valueType + "[]",
+                            Collections.singletonList(getExampleJsonValue(itemsProp))));
+                }
+            } else if ("object".equals(type)) {
+                if (!(prop instanceof ObjectProperty)) {
+                    continue;
+                }
+                message.put(propName, createExampleValue("bundle", createExampleMessage((ObjectProperty) prop)));
+            } else {
+                String valueType = getExampleType(prop);
+                if (valueType == null) {
+                    continue;
+                }
+                message.put(propName, createExampleValue(valueType, getExampleJsonValue(prop)));
+            }
+        }
+        return message;
+    }
+
+    private static Map<String, Object> createExampleValue(final String type, final Object value) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("type", type);
+        entry.put("value", value);
+        return entry;
+    }
+
+    // Bundle の setter 名から型名を取得する (例: putInt → int)
+    private String getExampleType(final Property prop) {
+        String setterName = getSetterName(prop.getType(), prop.getFormat());
+        if (setterName == null) {
+            return null;
+        }
+        return setterName.substring("put".length()).toLowerCase();
+    }
+
+    // getExampleValue と同じ値
+    private static Object getExampleJsonValue(final Property prop) {
+        final String type = prop.getType();
+        if ("boolean".equals(type)) {
+            return false;
+        } else if ("string".equals(type)) {
+            List<String> enumList = ((StringProperty) prop).getEnum();
+            if (enumList != null && enumList.size() > 0) {
+                return enumList.get(0);
+            } else {
+                return "test";
+            }
+        } else if ("integer".equals(type)) {
+            return 0;
+        } else if ("number".equals(type)) {
+            return 0.0;
+        } else {
+            return null;
+        }
+    }
+
     private void writeExampleResponse(final ObjectProperty root, final String rootName,
                                       final List<String> lines) {
         lines.add("Bundle " + rootName + " = response.getExtras();");
@@ -1,6 +1,7 @@
 package org.deviceconnect.codegen.plugin;
 
 
+import io.swagger.codegen.CodegenConstants;
 import io.swagger.codegen.CodegenType;
 import io.swagger.codegen.SupportingFile;
 import io.swagger.models.*;
@@ -12,15 +13,21 @@ import org.deviceconnect.codegen.ProfileTemplate;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 public class IosPluginCodegenConfig extends AbstractPluginCodegenConfig {
 
+    private boolean hasResponseCache;
+
     @Override
     public void processOpts() {
         super.processOpts();
-        embeddedTemplateDir = templateDir = getName();
+        embeddedTemplateDir = getName();
+        if (!additionalProperties.containsKey(CodegenConstants.TEMPLATE_DIR)) {
+            templateDir = getName();
+        }
 
         // README
         supportingFiles.add(new SupportingFile("README.md.mustache", "", "README.md"));
@@ -30,12 +37,17 @@ public class IosPluginCodegenConfig extends AbstractPluginCodegenConfig {
         String pluginClass = classPrefix + "Plugin";
         additionalProperties.put("pluginClass", pluginClass);
         additionalProperties.put("basePluginClass", "DConnectDevicePlugin");
+        additionalProperties.put("responseCacheClass", getResponseCacheClass());
 
         String classesDir = getClassesDirName();
         supportingFiles.add(new SupportingFile("plugin.h.mustache", classesDir, pluginClass + ".h"));
         supportingFiles.add(new SupportingFile("plugin.m.mustache", classesDir, pluginClass + ".m"));
     }
 
+    private String getResponseCacheClass() {
+        return getClassPrefix() + "ResponseCache";
+    }
+
     private String getClassesDirName() {
         String[] dirs = outputFolder.split("/");
         return dirs[dirs.length - 1];
@@ -345,7 +357,15 @@ public class IosPluginCodegenConfig extends AbstractPluginCodegenConfig {
         impl.outputFile = profileClassName + ".m";
         profileTemplates.add(impl);
 
-        ((List<Object>) additionalProperties.get("supportedProfileClasses")).add(new Object() { String name = profileClassName; });
+        if (Boolean.TRUE.equals(properties.get("hasCachedApi")) && !hasResponseCache) {
+            // レスポンスキャッシュクラスは全プロファイルで共有する
+            hasResponseCache = true;
+            String profilesDir = getClassesDirName() + File.separator + "Profiles";
+            supportingFiles.add(new SupportingFile("ResponseCache.h.mustache", profilesDir, getResponseCacheClass() + ".h"));
+            supportingFiles.add(new SupportingFile("ResponseCache.m.mustache", profilesDir, getResponseCacheClass() + ".m"));
+        }
+
+        ((List<Object>) additionalProperties.get("supportedProfileClasses")).add(Collections.singletonMap("name", profileClassName));
 
         return profileTemplates;
     }
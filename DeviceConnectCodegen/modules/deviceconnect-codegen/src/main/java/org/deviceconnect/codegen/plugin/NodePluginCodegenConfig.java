@@ -1,10 +1,14 @@
 package org.deviceconnect.codegen.plugin;
 
 
+import io.swagger.codegen.CodegenConstants;
 import io.swagger.codegen.CodegenType;
 import io.swagger.codegen.SupportingFile;
 import io.swagger.models.*;
+import io.swagger.models.parameters.AbstractSerializableParameter;
+import io.swagger.models.parameters.FormParameter;
 import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.QueryParameter;
 import io.swagger.models.properties.*;
 import org.deviceconnect.codegen.ProfileTemplate;
 
@@ -20,6 +24,83 @@ public class NodePluginCodegenConfig extends AbstractPluginCodegenConfig {
         return "let " + p.getName() + " = message.params." + p.getName() + ";";
     }
 
+    @Override
+    protected List<Object> getValidations(final Parameter p) {
+        List<Object> validations = new ArrayList<>();
+        if (!(p instanceof QueryParameter || p instanceof FormParameter)) {
+            return validations;
+        }
+        AbstractSerializableParameter<?> param = (AbstractSerializableParameter<?>) p;
+        String varName = p.getName();
+        String type = param.getType();
+        String defined = varName + " !== undefined";
+
+        if (p.getRequired()) {
+            validations.add(createValidation(varName + " === undefined",
+                    getInvalidParameterError(varName + " is required.")));
+        }
+        boolean isNumber = "integer".equals(type) || "number".equals(type);
+        if ("integer".equals(type)) {
+            validations.add(createValidation(defined + " && !Number.isInteger(Number(" + varName + "))",
+                    getInvalidParameterError(varName + " is not integer.")));
+        } else if ("number".equals(type)) {
+            validations.add(createValidation(defined + " && isNaN(Number(" + varName + "))",
+                    getInvalidParameterError(varName + " is not number.")));
+        } else if ("boolean".equals(type)) {
+            validations.add(createValidation(defined + " && String(" + varName + ") !== 'true' && String(" + varName + ") !== 'false'",
+                    getInvalidParameterError(varName + " is not boolean.")));
+        }
+        if (isNumber) {
+            Double min = param.getMinimum();
+            if (min != null) {
+                boolean exclusive = Boolean.TRUE.equals(param.isExclusiveMinimum());
+                String literal = toNumberLiteral(min);
+                validations.add(createValidation(defined + " && Number(" + varName + ")" + (exclusive ? " <= " : " < ") + literal,
+                        getInvalidParameterError(varName + " must be " + (exclusive ? "greater than " : "greater than or equal to ") + literal + ".")));
+            }
+            Double max = param.getMaximum();
+            if (max != null) {
+                boolean exclusive = Boolean.TRUE.equals(param.isExclusiveMaximum());
+                String literal = toNumberLiteral(max);
+                validations.add(createValidation(defined + " && Number(" + varName + ")" + (exclusive ? " >= " : " > ") + literal,
+                        getInvalidParameterError(varName + " must be " + (exclusive ? "less than " : "less than or equal to ") + literal + ".")));
+            }
+        }
+        if ("string".equals(type)) {
+            Integer minLength = param.getMinLength();
+            if (minLength != null) {
+                validations.add(createValidation(defined + " && String(" + varName + ").length < " + minLength,
+                        getInvalidParameterError(varName + " must be at least " + minLength + " characters.")));
+            }
+            Integer maxLength = param.getMaxLength();
+            if (maxLength != null) {
+                validations.add(createValidation(defined + " && String(" + varName + ").length > " + maxLength,
+                        getInvalidParameterError(varName + " must be at most " + maxLength + " characters.")));
+            }
+        }
+        List<String> enumList = param.getEnum();
+        if (enumList != null && enumList.size() > 0) {
+            StringBuilder condition = new StringBuilder();
+            for (String value : enumList) {
+                if (condition.length() > 0) {
+                    condition.append(" || ");
+                }
+                condition.append("String(").append(varName).append(") === '").append(escapeJsString(value)).append("'");
+            }
+            validations.add(createValidation(defined + " && !(" + condition + ")",
+                    getInvalidParameterError(varName + " must be one of " + enumList + ".")));
+        }
+        return validations;
+    }
+
+    private static String escapeJsString(final String value) {
+        return value.replace("\\", "\\\\").replace("'", "\\'");
+    }
+
+    private static String getInvalidParameterError(final String message) {
+        return "message.result = 400; message.errorMessage = '" + escapeJsString(message) + "';";
+    }
+
     @Override
     protected List<String> getResponseCreation(final Swagger swagger, final Response response) {
         List<String> lines = new ArrayList<>();
@@ -160,7 +241,10 @@ public class NodePluginCodegenConfig extends AbstractPluginCodegenConfig {
     @Override
     public void processOpts() {
         super.processOpts();
-        embeddedTemplateDir = templateDir = getName();
+        embeddedTemplateDir = getName();
+        if (!additionalProperties.containsKey(CodegenConstants.TEMPLATE_DIR)) {
+            templateDir = getName();
+        }
 
         final String classPrefix = getClassPrefix();
         additionalProperties.put("serviceId", classPrefix.toLowerCase() + "_service_id");
@@ -176,6 +260,8 @@ public class NodePluginCodegenConfig extends AbstractPluginCodegenConfig {
 
         // 共通ロジック
         supportingFiles.add(new SupportingFile("profile.js", "", "profile.js"));
+        supportingFiles.add(new SupportingFile("event-dispatcher.js", "", "event-dispatcher.js"));
+        supportingFiles.add(new SupportingFile("response-cache.js", "", "response-cache.js"));
         supportingFiles.add(new SupportingFile("serviceinformation.js.mustache", "", "profiles/serviceinformation.js"));
     }
 
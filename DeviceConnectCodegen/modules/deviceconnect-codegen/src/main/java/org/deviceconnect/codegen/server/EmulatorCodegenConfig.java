@@ -13,18 +13,23 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.samskivert.mustache.Mustache;
+import com.samskivert.mustache.Template;
 import com.sun.org.apache.xml.internal.utils.Hashtree2Node;
 import io.swagger.codegen.*;
 import io.swagger.models.*;
 import io.swagger.parser.SwaggerParser;
 import io.swagger.util.Yaml;
 import org.apache.commons.cli.CommandLine;
+import org.deviceconnect.codegen.CodegenContext;
 import org.deviceconnect.codegen.DConnectCodegenConfig;
+import org.deviceconnect.codegen.RouteTable;
 import org.deviceconnect.codegen.ValidationResultSet;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.util.*;
 
@@ -70,6 +75,9 @@ public class EmulatorCodegenConfig extends DefaultCodegen implements DConnectCod
         writeOptional(outputFolder, new SupportingFile("index.mustache", "", "index.js"));
         writeOptional(outputFolder, new SupportingFile("package.mustache", "", "package.json"));
         writeOptional(outputFolder, new SupportingFile("README.mustache", "", "README.md"));
+        // 通信の記録と再生
+        supportingFiles.add(new SupportingFile("trace.js", "", "trace.js"));
+        supportingFiles.add(new SupportingFile("recorder.mustache", "", "recorder.js"));
         if (System.getProperty("noservice") == null) {
             apiTemplateFiles.put(
                     "service.mustache",   // the template to use
@@ -231,30 +239,66 @@ public class EmulatorCodegenConfig extends DefaultCodegen implements DConnectCod
                 }
             }
         }
+        checkRoutes(swagger);
     }
 
     private void checkPaths(final Swagger swagger) {
         List<Object> pathList = new ArrayList<>();
-        final String basePath = swagger.getBasePath();
+        final String basePath = getBasePath(swagger);
         Map<String, Path> paths = swagger.getPaths();
         if (paths != null) {
             for (final Iterator<String> it = paths.keySet().iterator(); it.hasNext(); ) {
                 final String path = it.next();
                 final boolean hasNext = it.hasNext();
-                pathList.add(new Object() {
-                    String path() { return basePath + path; }
-                    boolean hasNext() { return hasNext; }
-                });
+                Map<String, Object> pathEntry = new HashMap<>();
+                pathEntry.put("path", basePath + path);
+                pathEntry.put("key", RouteTable.createPathKey(basePath + path));
+                pathEntry.put("hasNext", hasNext);
+                pathList.add(pathEntry);
             }
         }
         additionalProperties.put("pathList", pathList);
     }
 
+    // メソッドとパスからコントローラの関数を引くためのテーブル
+    private void checkRoutes(final Swagger swagger) {
+        RouteTable routes = new RouteTable();
+        final String basePath = getBasePath(swagger);
+        Map<String, Path> paths = swagger.getPaths();
+        if (paths != null) {
+            for (Map.Entry<String, Path> pathEntry : paths.entrySet()) {
+                Map<HttpMethod, Operation> operationMap = pathEntry.getValue().getOperationMap();
+                // 出力内容が実行ごとに変わらないように、メソッドの定義順に追加する
+                for (HttpMethod method : HttpMethod.values()) {
+                    Operation operation = operationMap.get(method);
+                    if (operation == null) {
+                        continue;
+                    }
+                    String tag = "default";
+                    if (operation.getTags() != null && operation.getTags().size() > 0) {
+                        tag = operation.getTags().get(0);
+                    }
+                    Map<String, Object> route = new HashMap<>();
+                    route.put("path", basePath + pathEntry.getKey());
+                    route.put("controller", toApiFilename(sanitizeTag(tag)));
+                    route.put("nickname", toOperationId(operation.getOperationId()));
+                    routes.add(method.name(), basePath + pathEntry.getKey(), route);
+                }
+            }
+        }
+        additionalProperties.put("routeList", routes.toList());
+    }
+
+    private static String getBasePath(final Swagger swagger) {
+        String basePath = swagger.getBasePath();
+        return basePath == null ? "" : basePath;
+    }
+
     private void checkEvents(final Swagger swagger) {
         List<Object> eventList = new ArrayList<>();
 
         // Collect event examples from swagger.json
-        final String basePath = swagger.getBasePath();
+        final String basePath = getBasePath(swagger);
         Map<String, Path> paths = swagger.getPaths();
         ObjectMapper mapper = new ObjectMapper();
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
@@ -273,11 +317,10 @@ public class EmulatorCodegenConfig extends DefaultCodegen implements DConnectCod
                                     if (examples != null) {
                                         JsonNode json = examples.get("application/json");
                                         if (json != null) {
-                                            final String eventJson = mapper.writeValueAsString(json);
-                                            eventList.add(new Object() {
-                                                String key = (basePath + pathname).toLowerCase();
-                                                String json = eventJson;
-                                            });
+                                            Map<String, Object> eventEntry = new HashMap<>();
+                                            eventEntry.put("key", RouteTable.createPathKey(basePath + pathname));
+                                            eventEntry.put("json", mapper.writeValueAsString(json));
+                                            eventList.add(eventEntry);
                                         }
                                     }
                                 }
@@ -380,9 +423,8 @@ public class EmulatorCodegenConfig extends DefaultCodegen implements DConnectCod
     private Map<String, Object> convertToMap(final Swagger swagger) throws IOException {
         ObjectMapper mapper = new ObjectMapper();
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        String jsonAsString = mapper.writeValueAsString(swagger);
-        JsonNode json = mapper.readTree(jsonAsString);
-        return mapper.convertValue(json, Map.class);
+        // 文字列を経由せずに変換する
+        return mapper.convertValue(swagger, Map.class);
     }
 
     private Map<String, Object> findExample(final Path root) {
@@ -404,19 +446,15 @@ public class EmulatorCodegenConfig extends DefaultCodegen implements DConnectCod
     public Map<String, Object> postProcessSupportingFileData(Map<String, Object> objs) {
         Swagger swagger = (Swagger)objs.get("swagger");
         if(swagger != null) {
-            try {
-                SimpleModule module = new SimpleModule();
-                module.addSerializer(Double.class, new JsonSerializer<Double>() {
-                    @Override
-                    public void serialize(Double val, JsonGenerator jgen,
-                                          SerializerProvider provider) throws IOException, JsonProcessingException {
-                        jgen.writeNumber(new BigDecimal(val));
-                    }
-                });
-                objs.put("swagger-yaml", Yaml.mapper().registerModule(module).writeValueAsString(swagger));
-            } catch (JsonProcessingException e) {
-                LOGGER.error(e.getMessage(), e);
-            }
+            SimpleModule module = new SimpleModule();
+            module.addSerializer(Double.class, new JsonSerializer<Double>() {
+                @Override
+                public void serialize(Double val, JsonGenerator jgen,
+                                      SerializerProvider provider) throws IOException, JsonProcessingException {
+                    jgen.writeNumber(new BigDecimal(val));
+                }
+            });
+            objs.put("swagger-yaml", new SwaggerYaml(Yaml.mapper().registerModule(module), swagger));
         }
         for (Map<String, Object> operations : getOperations(objs)) {
             @SuppressWarnings("unchecked")
@@ -473,4 +511,47 @@ public class EmulatorCodegenConfig extends DefaultCodegen implements DConnectCod
     public void setProfileSpecs(final Map<String, Swagger> profileSpecs) {
         this.profileSpecs = profileSpecs;
     }
+
+    @Override
+    public void setContext(final CodegenContext context) {
+        // 進捗の通知と検証モードには対応しない
+    }
+
+    /**
+     * プロファイル定義を YAML 形式で描画する.
+     *
+     * セクション ({{#swagger-yaml}}{{/swagger-yaml}}) として使用した場合は、文字列を経由せずに描画先へ直接書き出す.
+     */
+    private static class SwaggerYaml implements Mustache.Lambda {
+        private final ObjectMapper mapper;
+        private final Swagger swagger;
+
+        SwaggerYaml(final ObjectMapper mapper, final Swagger swagger) {
+            this.mapper = mapper;
+            this.swagger = swagger;
+        }
+
+        @Override
+        public void execute(final Template.Fragment frag, final Writer out) throws IOException {
+            JsonGenerator generator = mapper.getFactory().createGenerator(out);
+            // 描画先は JMustache が管理するため閉じない
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            try {
+                mapper.writeValue(generator, swagger);
+            } finally {
+                generator.close();
+            }
+        }
+
+        // 変数 ({{{swagger-yaml}}}) として使用するテンプレートのための文字列表現
+        @Override
+        public String toString() {
+            try {
+                return mapper.writeValueAsString(swagger);
+            } catch (JsonProcessingException e) {
+                LOGGER.error(e.getMessage(), e);
+                return "";
+            }
+        }
+    }
 }
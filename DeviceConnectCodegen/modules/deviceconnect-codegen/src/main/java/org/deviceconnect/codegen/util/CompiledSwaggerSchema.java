@@ -0,0 +1,897 @@
+package org.deviceconnect.codegen.util;
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.github.fge.jsonschema.core.util.RhinoHelper;
+
+import javax.mail.internet.AddressException;
+import javax.mail.internet.InternetAddress;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Swagger 2.0 のスキーマ (v2.schema.json) を検証処理の木に変換したもの.
+ *
+ * json-schema-validator と同じ順序でキーワードと子要素を検証し、同じポインタとメッセージのエラーを返す.
+ * スキーマの解釈と参照の解決は生成時に一度だけ行う.
+ * oneOf などの部分スキーマは一致したかどうかだけを判定し、最初のエラーで打ち切る.
+ * スキーマが本クラスの対応していないキーワードを含む場合は、生成時に例外を投げる.
+ */
+final class CompiledSwaggerSchema {
+
+    private static final JsonNodeFactory FACTORY = JsonNodeFactory.instance;
+
+    /**
+     * 検証に影響しないキーワード、または他のキーワードの検証で参照するキーワード.
+     */
+    private static final Set<String> PASSIVE_KEYWORDS = new HashSet<>(Arrays.asList(
+            "$schema", "id", "title", "description", "default", "definitions",
+            "properties", "patternProperties", "items", "exclusiveMinimum"
+    ));
+
+    private static final String TYPE_ARRAY = "array";
+    private static final String TYPE_BOOLEAN = "boolean";
+    private static final String TYPE_INTEGER = "integer";
+    private static final String TYPE_NULL = "null";
+    private static final String TYPE_NUMBER = "number";
+    private static final String TYPE_OBJECT = "object";
+    private static final String TYPE_STRING = "string";
+
+    /**
+     * json-schema-validator での型の並び順.
+     */
+    private static final List<String> TYPE_ORDER = Arrays.asList(
+            TYPE_ARRAY, TYPE_BOOLEAN, TYPE_INTEGER, TYPE_NULL, TYPE_NUMBER, TYPE_OBJECT, TYPE_STRING
+    );
+
+    private static final Set<String> ALL_TYPES = new HashSet<>(TYPE_ORDER);
+    private static final Set<String> ARRAY_TYPES = Collections.singleton(TYPE_ARRAY);
+    private static final Set<String> OBJECT_TYPES = Collections.singleton(TYPE_OBJECT);
+    private static final Set<String> STRING_TYPES = Collections.singleton(TYPE_STRING);
+    private static final Set<String> NUMERIC_TYPES = new HashSet<>(Arrays.asList(TYPE_INTEGER, TYPE_NUMBER));
+
+    private final Map<String, JsonNode> documents = new HashMap<>();
+    private final Map<String, Schema> schemas = new HashMap<>();
+    private final Schema root;
+
+    /**
+     * コンストラクタ.
+     *
+     * @param schema Swagger 2.0 のスキーマ
+     * @param metaSchema スキーマから参照される JSON Schema draft-04 のメタスキーマ
+     */
+    CompiledSwaggerSchema(final JsonNode schema, final JsonNode metaSchema) {
+        String rootUri = documentUri(schema.path("id").asText());
+        documents.put(rootUri, schema);
+        documents.put(documentUri(metaSchema.path("id").asText()), metaSchema);
+        root = compile(rootUri, "");
+    }
+
+    /**
+     * Swagger 定義を検証する.
+     *
+     * @param instance Swagger 定義
+     * @return エラーの一覧. エラーがない場合は空のリスト
+     */
+    List<SwaggerJsonValidator.Error> validate(final JsonNode instance) {
+        List<SwaggerJsonValidator.Error> errors = new ArrayList<>();
+        root.validate(instance, "", errors);
+        return errors;
+    }
+
+    private static String documentUri(final String uri) {
+        int index = uri.indexOf('#');
+        return index >= 0 ? uri.substring(0, index) : uri;
+    }
+
+    private Schema compile(final String uri, final String pointer) {
+        String location = uri + "#" + pointer;
+        Schema schema = schemas.get(location);
+        if (schema != null) {
+            return schema;
+        }
+        JsonNode node = resolvePointer(documents.get(uri), pointer);
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Schema not found: " + location);
+        }
+
+        // 参照は参照先のスキーマに置き換える
+        JsonNode ref = node.get("$ref");
+        if (ref != null) {
+            String target = ref.asText();
+            int index = target.indexOf('#');
+            String targetUri = index > 0 ? documentUri(target) : uri;
+            String targetPointer = index >= 0 ? target.substring(index + 1) : "";
+            if (!documents.containsKey(targetUri)) {
+                throw new IllegalArgumentException("Unsupported reference: " + target);
+            }
+            schema = compile(targetUri, targetPointer);
+            schemas.put(location, schema);
+            return schema;
+        }
+
+        schema = new Schema();
+        schemas.put(location, schema);
+        schema.compile(this, uri, pointer, node);
+        return schema;
+    }
+
+    private static JsonNode resolvePointer(final JsonNode document, final String pointer) {
+        JsonNode node = document;
+        if (node == null || pointer.isEmpty()) {
+            return node;
+        }
+        for (String token : pointer.substring(1).split("/", -1)) {
+            if (node.isArray()) {
+                node = node.get(Integer.parseInt(token));
+            } else {
+                node = node.get(token.replace("~1", "/").replace("~0", "~"));
+            }
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private static String appendPointer(final String pointer, final String token) {
+        if (pointer == null) {
+            return null;
+        }
+        return pointer + "/" + token.replace("~", "~0").replace("/", "~1");
+    }
+
+    private static String getType(final JsonNode node) {
+        switch (node.getNodeType()) {
+            case ARRAY:
+                return TYPE_ARRAY;
+            case BOOLEAN:
+                return TYPE_BOOLEAN;
+            case NUMBER:
+                return node.isIntegralNumber() ? TYPE_INTEGER : TYPE_NUMBER;
+            case OBJECT:
+                return TYPE_OBJECT;
+            case STRING:
+                return TYPE_STRING;
+            default:
+                return TYPE_NULL;
+        }
+    }
+
+    // 数値は値が等しければ型が異なっても同じとみなす
+    private static boolean equivalent(final JsonNode a, final JsonNode b) {
+        if (a.isNumber() && b.isNumber()) {
+            return a.decimalValue().compareTo(b.decimalValue()) == 0;
+        }
+        if (a.isArray() && b.isArray()) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < a.size(); i++) {
+                if (!equivalent(a.get(i), b.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a.isObject() && b.isObject()) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            Iterator<Map.Entry<String, JsonNode>> it = a.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> field = it.next();
+                JsonNode other = b.get(field.getKey());
+                if (other == null || !equivalent(field.getValue(), other)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return a.equals(b);
+    }
+
+    private static ArrayNode toArrayNode(final Collection<String> values) {
+        ArrayNode array = FACTORY.arrayNode();
+        for (String value : values) {
+            array.add(value);
+        }
+        return array;
+    }
+
+    private static boolean report(final List<SwaggerJsonValidator.Error> errors, final String pointer,
+                                  final String message) {
+        if (errors != null) {
+            errors.add(new SwaggerJsonValidator.Error(pointer.isEmpty() ? "/" : pointer, message));
+        }
+        return false;
+    }
+
+    /**
+     * スキーマ.
+     */
+    private static final class Schema {
+
+        /** キーワードの検証処理. json-schema-validator と同じくキーワード名の順に並べる. */
+        private final List<Keyword> keywords = new ArrayList<>();
+        private final Map<String, Schema> properties = new HashMap<>();
+        private final Map<Pattern, Schema> patternProperties = new LinkedHashMap<>();
+        private Schema additionalProperties;
+        private Schema items;
+        private final List<Schema> itemList = new ArrayList<>();
+        private Schema additionalItems;
+
+        void compile(final CompiledSwaggerSchema owner, final String uri, final String pointer, final JsonNode node) {
+            SortedMap<String, Keyword> sorted = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> field = it.next();
+                String name = field.getKey();
+                JsonNode value = field.getValue();
+                String childPointer = appendPointer(pointer, name);
+                switch (name) {
+                    case "additionalItems":
+                        sorted.put(name, new AdditionalItems(node));
+                        if (value.isObject()) {
+                            additionalItems = owner.compile(uri, childPointer);
+                        }
+                        break;
+                    case "additionalProperties":
+                        sorted.put(name, new AdditionalProperties(node));
+                        if (value.isObject()) {
+                            additionalProperties = owner.compile(uri, childPointer);
+                        }
+                        break;
+                    case "allOf":
+                    case "anyOf":
+                    case "oneOf":
+                        List<Schema> subSchemas = new ArrayList<>();
+                        for (int i = 0; i < value.size(); i++) {
+                            subSchemas.add(owner.compile(uri, childPointer + "/" + i));
+                        }
+                        sorted.put(name, new Combination(name, subSchemas));
+                        break;
+                    case "not":
+                        sorted.put(name, new Not(owner.compile(uri, childPointer)));
+                        break;
+                    case "enum":
+                        sorted.put(name, new Enum(value));
+                        break;
+                    case "format":
+                        // format は他のキーワードの後に検証される
+                        break;
+                    case "minItems":
+                        sorted.put(name, new MinItems(value.intValue()));
+                        break;
+                    case "minProperties":
+                        sorted.put(name, new MinProperties(value.intValue()));
+                        break;
+                    case "minimum":
+                        sorted.put(name, new Minimum(value, node.path("exclusiveMinimum").asBoolean(false)));
+                        break;
+                    case "pattern":
+                        sorted.put(name, new PatternKeyword(value.textValue()));
+                        break;
+                    case "required":
+                        sorted.put(name, new Required(value));
+                        break;
+                    case "type":
+                        sorted.put(name, new Type(value));
+                        break;
+                    case "uniqueItems":
+                        if (value.booleanValue()) {
+                            sorted.put(name, new UniqueItems());
+                        }
+                        break;
+                    default:
+                        if (!PASSIVE_KEYWORDS.contains(name)) {
+                            throw new IllegalArgumentException("Unsupported keyword: " + name
+                                    + " (" + uri + "#" + pointer + ")");
+                        }
+                        break;
+                }
+            }
+            keywords.addAll(sorted.values());
+            if (node.has("format")) {
+                keywords.add(Format.create(node.get("format").asText()));
+            }
+
+            JsonNode props = node.get("properties");
+            if (props != null) {
+                Iterator<String> names = props.fieldNames();
+                while (names.hasNext()) {
+                    String name = names.next();
+                    properties.put(name, owner.compile(uri, appendPointer(appendPointer(pointer, "properties"), name)));
+                }
+            }
+            JsonNode patterns = node.get("patternProperties");
+            if (patterns != null) {
+                List<String> regexes = new ArrayList<>();
+                Iterator<String> names = patterns.fieldNames();
+                while (names.hasNext()) {
+                    regexes.add(names.next());
+                }
+                Collections.sort(regexes);
+                for (String regex : regexes) {
+                    patternProperties.put(Pattern.compile(regex),
+                            owner.compile(uri, appendPointer(appendPointer(pointer, "patternProperties"), regex)));
+                }
+            }
+            JsonNode itemsNode = node.get("items");
+            if (itemsNode != null) {
+                if (itemsNode.isArray()) {
+                    for (int i = 0; i < itemsNode.size(); i++) {
+                        itemList.add(owner.compile(uri, appendPointer(pointer, "items") + "/" + i));
+                    }
+                } else {
+                    items = owner.compile(uri, appendPointer(pointer, "items"));
+                }
+            }
+        }
+
+        /**
+         * インスタンスを検証する.
+         *
+         * @param instance 検証対象
+         * @param pointer 検証対象のポインタ. エラーを収集しない場合は <code>null</code>
+         * @param errors エラーの格納先. <code>null</code> の場合は最初のエラーで検証を打ち切る
+         * @return エラーがない場合は <code>true</code>、そうでない場合は <code>false</code>
+         */
+        boolean validate(final JsonNode instance, final String pointer, final List<SwaggerJsonValidator.Error> errors) {
+            boolean valid = true;
+            String type = getType(instance);
+            for (Keyword keyword : keywords) {
+                if (!keyword.types().contains(type)) {
+                    continue;
+                }
+                if (!keyword.validate(this, instance, pointer, errors)) {
+                    valid = false;
+                    if (errors == null) {
+                        return false;
+                    }
+                }
+            }
+            if (instance.size() == 0) {
+                return valid;
+            }
+            if (instance.isArray()) {
+                for (int i = 0; i < instance.size(); i++) {
+                    Schema schema = selectItemSchema(i);
+                    if (schema != null && !schema.validate(instance.get(i), pointer != null ? pointer + "/" + i : null, errors)) {
+                        valid = false;
+                        if (errors == null) {
+                            return false;
+                        }
+                    }
+                }
+            } else if (instance.isObject()) {
+                Iterator<String> names;
+                if (errors != null) {
+                    // エラーの順序を json-schema-validator に合わせる
+                    List<String> sorted = new ArrayList<>();
+                    Iterator<String> it = instance.fieldNames();
+                    while (it.hasNext()) {
+                        sorted.add(it.next());
+                    }
+                    Collections.sort(sorted);
+                    names = sorted.iterator();
+                } else {
+                    names = instance.fieldNames();
+                }
+                while (names.hasNext()) {
+                    String name = names.next();
+                    if (!validateProperty(name, instance.get(name), appendPointer(pointer, name), errors)) {
+                        valid = false;
+                        if (errors == null) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return valid;
+        }
+
+        private Schema selectItemSchema(final int index) {
+            if (items != null) {
+                return items;
+            }
+            if (index < itemList.size()) {
+                return itemList.get(index);
+            }
+            return itemList.isEmpty() ? null : additionalItems;
+        }
+
+        private boolean validateProperty(final String name, final JsonNode value, final String pointer,
+                                         final List<SwaggerJsonValidator.Error> errors) {
+            boolean valid = true;
+            boolean matched = false;
+            Schema schema = properties.get(name);
+            if (schema != null) {
+                matched = true;
+                valid = schema.validate(value, pointer, errors);
+                if (!valid && errors == null) {
+                    return false;
+                }
+            }
+            for (Map.Entry<Pattern, Schema> entry : patternProperties.entrySet()) {
+                if (entry.getKey().matcher(name).find()) {
+                    matched = true;
+                    if (!entry.getValue().validate(value, pointer, errors)) {
+                        valid = false;
+                        if (errors == null) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            if (!matched && additionalProperties != null) {
+                if (!additionalProperties.validate(value, pointer, errors)) {
+                    valid = false;
+                }
+            }
+            return valid;
+        }
+
+        boolean isDefinedProperty(final String name) {
+            if (properties.containsKey(name)) {
+                return true;
+            }
+            for (Pattern pattern : patternProperties.keySet()) {
+                if (pattern.matcher(name).find()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * キーワードの検証処理.
+     */
+    private interface Keyword {
+
+        /**
+         * 検証対象となるインスタンスの型.
+         *
+         * @return 型の名前
+         */
+        Set<String> types();
+
+        boolean validate(Schema schema, JsonNode instance, String pointer, List<SwaggerJsonValidator.Error> errors);
+    }
+
+    private static final class AdditionalItems implements Keyword {
+        private final boolean allowed;
+        private final int itemCount;
+
+        AdditionalItems(final JsonNode node) {
+            JsonNode items = node.get("items");
+            // items が配列でない場合、additionalItems は無視される
+            allowed = items == null || !items.isArray() || !node.get("additionalItems").isBoolean()
+                    || node.get("additionalItems").booleanValue();
+            itemCount = items != null ? items.size() : 0;
+        }
+
+        @Override
+        public Set<String> types() {
+            return ARRAY_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            if (allowed || instance.size() <= itemCount) {
+                return true;
+            }
+            return report(errors, pointer, String.format(
+                    "schema only allows %d elements in array but instance has %d elements",
+                    itemCount, instance.size()));
+        }
+    }
+
+    private static final class AdditionalProperties implements Keyword {
+        private final boolean allowed;
+
+        AdditionalProperties(final JsonNode node) {
+            JsonNode value = node.get("additionalProperties");
+            allowed = !value.isBoolean() || value.booleanValue();
+        }
+
+        @Override
+        public Set<String> types() {
+            return OBJECT_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            if (allowed) {
+                return true;
+            }
+            Set<String> unwanted = null;
+            Iterator<String> names = instance.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (!schema.isDefinedProperty(name)) {
+                    if (errors == null) {
+                        return false;
+                    }
+                    if (unwanted == null) {
+                        unwanted = new TreeSet<>();
+                    }
+                    unwanted.add(name);
+                }
+            }
+            if (unwanted == null) {
+                return true;
+            }
+            return report(errors, pointer, "object instance has properties which are not allowed by the schema: "
+                    + toArrayNode(unwanted));
+        }
+    }
+
+    private static final class Combination implements Keyword {
+        private final String name;
+        private final List<Schema> schemas;
+
+        Combination(final String name, final List<Schema> schemas) {
+            this.name = name;
+            this.schemas = schemas;
+        }
+
+        @Override
+        public Set<String> types() {
+            return ALL_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            int matched = 0;
+            for (Schema subSchema : schemas) {
+                if (subSchema.validate(instance, null, null)) {
+                    matched++;
+                    if ("anyOf".equals(name)) {
+                        return true;
+                    }
+                    if ("oneOf".equals(name) && matched > 1 && errors == null) {
+                        return false;
+                    }
+                } else if ("allOf".equals(name) && errors == null) {
+                    return false;
+                }
+            }
+            int count = schemas.size();
+            switch (name) {
+                case "allOf":
+                    return matched == count || report(errors, pointer, String.format(
+                            "instance failed to match all required schemas (matched only %d out of %d)",
+                            matched, count));
+                case "anyOf":
+                    return report(errors, pointer, String.format(
+                            "instance failed to match at least one required schema among %d", count));
+                default:
+                    return matched == 1 || report(errors, pointer, String.format(
+                            "instance failed to match exactly one schema (matched %d out of %d)",
+                            matched, count));
+            }
+        }
+    }
+
+    private static final class Not implements Keyword {
+        private final Schema schema;
+
+        Not(final Schema schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public Set<String> types() {
+            return ALL_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema parent, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            return !schema.validate(instance, null, null)
+                    || report(errors, pointer, "instance matched a schema which it should not have");
+        }
+    }
+
+    private static final class Enum implements Keyword {
+        private final JsonNode values;
+
+        Enum(final JsonNode values) {
+            this.values = values;
+        }
+
+        @Override
+        public Set<String> types() {
+            return ALL_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            for (JsonNode value : values) {
+                if (equivalent(value, instance)) {
+                    return true;
+                }
+            }
+            return report(errors, pointer, String.format(
+                    "instance value (%s) not found in enum (possible values: %s)", instance, values));
+        }
+    }
+
+    private static final class MinItems implements Keyword {
+        private final int min;
+
+        MinItems(final int min) {
+            this.min = min;
+        }
+
+        @Override
+        public Set<String> types() {
+            return ARRAY_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            return instance.size() >= min || report(errors, pointer, String.format(
+                    "array is too short: must have at least %d elements but instance has %d elements",
+                    min, instance.size()));
+        }
+    }
+
+    private static final class MinProperties implements Keyword {
+        private final int min;
+
+        MinProperties(final int min) {
+            this.min = min;
+        }
+
+        @Override
+        public Set<String> types() {
+            return OBJECT_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            return instance.size() >= min || report(errors, pointer, String.format(
+                    "object has too few properties (found %d but schema requires at least %d)",
+                    instance.size(), min));
+        }
+    }
+
+    private static final class Minimum implements Keyword {
+        private final JsonNode min;
+        private final BigDecimal minValue;
+        private final boolean exclusive;
+
+        Minimum(final JsonNode min, final boolean exclusive) {
+            this.min = min;
+            this.minValue = min.decimalValue();
+            this.exclusive = exclusive;
+        }
+
+        @Override
+        public Set<String> types() {
+            return NUMERIC_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            int cmp = instance.decimalValue().compareTo(minValue);
+            if (cmp < 0) {
+                return report(errors, pointer, String.format(
+                        "numeric instance is lower than the required minimum (minimum: %s, found: %s)",
+                        min, instance));
+            }
+            if (cmp == 0 && exclusive) {
+                return report(errors, pointer, String.format(
+                        "numeric instance is not strictly greater than the required minimum %s", min));
+            }
+            return true;
+        }
+    }
+
+    private static final class PatternKeyword implements Keyword {
+        private final String regex;
+        private final Pattern pattern;
+
+        PatternKeyword(final String regex) {
+            this.regex = regex;
+            this.pattern = Pattern.compile(regex);
+        }
+
+        @Override
+        public Set<String> types() {
+            return STRING_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            return pattern.matcher(instance.textValue()).find() || report(errors, pointer, String.format(
+                    "ECMA 262 regex \"%s\" does not match input string \"%s\"", regex, instance.textValue()));
+        }
+    }
+
+    private static final class Required implements Keyword {
+        /** 必須のプロパティ名. json-schema-validator と同じく名前順に並べる. */
+        private final Set<String> names = new TreeSet<>();
+
+        Required(final JsonNode value) {
+            for (JsonNode name : value) {
+                names.add(name.textValue());
+            }
+        }
+
+        @Override
+        public Set<String> types() {
+            return OBJECT_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            List<String> missing = null;
+            for (String name : names) {
+                if (!instance.has(name)) {
+                    if (errors == null) {
+                        return false;
+                    }
+                    if (missing == null) {
+                        missing = new ArrayList<>();
+                    }
+                    missing.add(name);
+                }
+            }
+            return missing == null || report(errors, pointer,
+                    "object has missing required properties (" + toArrayNode(missing) + ")");
+        }
+    }
+
+    private static final class Type implements Keyword {
+        private final Set<String> allowed = new HashSet<>();
+        private final ArrayNode expected;
+
+        Type(final JsonNode value) {
+            if (value.isArray()) {
+                for (JsonNode type : value) {
+                    allowed.add(type.textValue());
+                }
+            } else {
+                allowed.add(value.textValue());
+            }
+            // number は integer を含む
+            if (allowed.contains(TYPE_NUMBER)) {
+                allowed.add(TYPE_INTEGER);
+            }
+            List<String> sorted = new ArrayList<>();
+            for (String type : TYPE_ORDER) {
+                if (allowed.contains(type)) {
+                    sorted.add(type);
+                }
+            }
+            expected = toArrayNode(sorted);
+        }
+
+        @Override
+        public Set<String> types() {
+            return ALL_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            String type = getType(instance);
+            return allowed.contains(type) || report(errors, pointer, String.format(
+                    "instance type (%s) does not match any allowed primitive type (allowed: %s)", type, expected));
+        }
+    }
+
+    private static final class UniqueItems implements Keyword {
+
+        @Override
+        public Set<String> types() {
+            return ARRAY_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            for (int i = 0; i < instance.size(); i++) {
+                for (int j = i + 1; j < instance.size(); j++) {
+                    if (equivalent(instance.get(i), instance.get(j))) {
+                        return report(errors, pointer, "array must not contain duplicate elements");
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * format キーワードの検証処理.
+     */
+    private abstract static class Format implements Keyword {
+
+        static Format create(final String name) {
+            switch (name) {
+                case "uri":
+                    return new Format() {
+                        @Override
+                        boolean isValid(final String value) {
+                            try {
+                                new URI(value);
+                                return true;
+                            } catch (URISyntaxException e) {
+                                return false;
+                            }
+                        }
+
+                        @Override
+                        String getMessage(final String value) {
+                            return String.format("string \"%s\" is not a valid URI", value);
+                        }
+                    };
+                case "email":
+                    return new Format() {
+                        @Override
+                        boolean isValid(final String value) {
+                            try {
+                                new InternetAddress(value, true);
+                                return true;
+                            } catch (AddressException e) {
+                                return false;
+                            }
+                        }
+
+                        @Override
+                        String getMessage(final String value) {
+                            return String.format("string \"%s\" is not a valid email address", value);
+                        }
+                    };
+                case "regex":
+                    return new Format() {
+                        @Override
+                        boolean isValid(final String value) {
+                            return RhinoHelper.regexIsValid(value);
+                        }
+
+                        @Override
+                        String getMessage(final String value) {
+                            return String.format("string \"%s\" is not a valid ECMA 262 regular expression", value);
+                        }
+                    };
+                default:
+                    throw new IllegalArgumentException("Unsupported format: " + name);
+            }
+        }
+
+        abstract boolean isValid(String value);
+
+        abstract String getMessage(String value);
+
+        @Override
+        public Set<String> types() {
+            return STRING_TYPES;
+        }
+
+        @Override
+        public boolean validate(final Schema schema, final JsonNode instance, final String pointer,
+                                final List<SwaggerJsonValidator.Error> errors) {
+            String value = instance.textValue();
+            return isValid(value) || report(errors, pointer, getMessage(value));
+        }
+    }
+}
@@ -5,13 +5,15 @@ import com.fasterxml.jackson.core.PrettyPrinter;
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Stack;
 
 /**
  * Google Chrome における JSON.stringify() に近い pretty print を実現します。
  * <p>
  * このオブジェクトはスレッドセーフではありません。
  * </p>
+ * <p>
+ * 配列の入れ子の状態はプリミティブ型の配列で管理し、出力中にオブジェクトを生成しません。
+ * </p>
  *
  * @author KOMIYA Atsushi
  */
@@ -39,7 +41,8 @@ public class JsonStringifyPrettyPrinter implements PrettyPrinter {
     private final int numSpacesPerIndent;
     private int indentLevel;
     private State lastState;
-    private Stack<Boolean> listContainsLiteralOnly = new Stack<>();
+    private boolean[] listContainsLiteralOnly = new boolean[16];
+    private int listDepth;
 
     /**
      * インデントのときのスペース個数を指定して、JsonStringifyPrettyPrinter オブジェクトを生成します。
@@ -72,12 +75,11 @@ public class JsonStringifyPrettyPrinter implements PrettyPrinter {
         if (lastState != State.OBJECT_FIELD_VALUES_SEPARATOR) {
             indent(jg);
         }
-        jg.writeRaw("{");
+        jg.writeRaw('{');
         indentLevel++;
 
-        if (!listContainsLiteralOnly.empty() && listContainsLiteralOnly.peek()) {
-            listContainsLiteralOnly.pop();
-            listContainsLiteralOnly.push(false);
+        if (listDepth > 0) {
+            listContainsLiteralOnly[listDepth - 1] = false;
         }
 
         lastState = State.START_OBJECT;
@@ -87,14 +89,14 @@ public class JsonStringifyPrettyPrinter implements PrettyPrinter {
     public void writeEndObject(JsonGenerator jg, int nrOfEntries) throws IOException {
         indentLevel--;
         indent(jg);
-        jg.writeRaw("}");
+        jg.writeRaw('}');
 
         lastState = State.END_OBJECT;
     }
 
     @Override
     public void writeObjectEntrySeparator(JsonGenerator jg) throws IOException {
-        jg.writeRaw(",");
+        jg.writeRaw(',');
         indent(jg);
 
         lastState = State.OBJECT_ENTRY_SEPARATOR;
@@ -112,10 +114,13 @@ public class JsonStringifyPrettyPrinter implements PrettyPrinter {
         if (lastState != State.OBJECT_FIELD_VALUES_SEPARATOR) {
             indent(jg);
         }
-        jg.writeRaw("[");
+        jg.writeRaw('[');
         indentLevel++;
 
-        listContainsLiteralOnly.push(true);
+        if (listDepth == listContainsLiteralOnly.length) {
+            listContainsLiteralOnly = Arrays.copyOf(listContainsLiteralOnly, listDepth * 2);
+        }
+        listContainsLiteralOnly[listDepth++] = true;
 
         lastState = State.START_ARRAY;
     }
@@ -124,10 +129,10 @@ public class JsonStringifyPrettyPrinter implements PrettyPrinter {
     public void writeEndArray(JsonGenerator jg, int nrOfValues) throws IOException {
         indentLevel--;
 
-        if (!listContainsLiteralOnly.pop()) {
+        if (!listContainsLiteralOnly[--listDepth]) {
             indent(jg);
         }
-        jg.writeRaw("]");
+        jg.writeRaw(']');
 
         lastState = State.END_ARRAY;
     }
@@ -0,0 +1,136 @@
+package org.deviceconnect.codegen.util;
+
+
+import io.swagger.models.HttpMethod;
+import org.apache.commons.cli.*;
+import org.deviceconnect.codegen.DConnectPath;
+import org.deviceconnect.codegen.IllegalPathFormatException;
+import org.deviceconnect.codegen.PathTrie;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * API パスの重複チェックの処理時間とメモリ割り当て量を計測するツール.
+ *
+ * 指定された数の API パスを生成し、正規化したパス文字列を数える方法 (string) と
+ * セグメントのトライ木に追加する方法 (trie) で、重複チェックとプロファイルごとの分類に必要な処理を行う.
+ */
+public final class PathIndexBenchmark {
+
+    private static final Set<HttpMethod> METHODS = Collections.unmodifiableSet(EnumSet.of(HttpMethod.GET));
+
+    private PathIndexBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        Options options = new Options();
+        options.addOption(null, "paths", true, "number of API paths (default: 100000)");
+        options.addOption(null, "iterations", true, "number of timed runs (default: 10)");
+        options.addOption("h", "help", false, "shows this message");
+
+        try {
+            CommandLine cmd = new BasicParser().parse(options, args);
+            if (cmd.hasOption("h")) {
+                new HelpFormatter().printHelp("PathIndexBenchmark [options]", options);
+                return;
+            }
+            int pathCount = cmd.hasOption("paths") ? Integer.parseInt(cmd.getOptionValue("paths")) : 100000;
+            int iterations = cmd.hasOption("iterations") ? Integer.parseInt(cmd.getOptionValue("iterations")) : 10;
+
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (!threads.isThreadAllocatedMemorySupported()) {
+                System.err.println("Thread allocated memory measurement is not supported on this JVM.");
+                System.exit(1);
+            }
+            threads.setThreadAllocatedMemoryEnabled(true);
+
+            String[][] paths = createPaths(pathCount);
+            System.out.println(pathCount + " paths, " + iterations + " iterations");
+            for (boolean trie : new boolean[] {false, true}) {
+                measure(threads, trie ? "trie" : "string", paths, iterations, trie);
+            }
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp("PathIndexBenchmark [options]", options);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    // 1000 個のプロファイルに、属性のみのパスとインタフェースを含むパスを半数ずつ割り当てる
+    private static String[][] createPaths(final int count) {
+        String[][] paths = new String[count][];
+        for (int i = 0; i < count; i++) {
+            int profile = i % 1000;
+            int api = i / 1000;
+            String basePath = "/gotapi/profile" + profile;
+            String pathName = (api % 2 == 0) ? "/attribute" + api : "/interface" + (api % 7) + "/attribute" + api;
+            paths[i] = new String[] {basePath, pathName};
+        }
+        return paths;
+    }
+
+    private static void measure(final com.sun.management.ThreadMXBean threads, final String label,
+                                final String[][] paths, final int iterations, final boolean trie)
+            throws IllegalPathFormatException {
+        // ウォームアップ
+        for (int i = 0; i < iterations; i++) {
+            index(paths, trie);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        int duplications = 0;
+        for (int i = 0; i < iterations; i++) {
+            duplications += index(paths, trie);
+        }
+        long time = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.println(String.format("%-8s %10.1f KB allocated/run %8.2f ms/run (%d duplications)",
+                label + ":", allocated / 1024.0 / iterations, time / 1e6 / iterations, duplications / iterations));
+    }
+
+    private static int index(final String[][] paths, final boolean trie) throws IllegalPathFormatException {
+        Map<String, Object> profiles = new HashMap<>();
+        if (trie) {
+            PathTrie index = new PathTrie();
+            for (String[] path : paths) {
+                PathTrie.Entry entry = index.add(path[0], path[1], METHODS);
+                group(profiles, entry.getProfileName(), entry.getBasePath(), entry.getSubPath());
+            }
+            return index.getDuplications().size();
+        } else {
+            Map<String, Integer> counts = new HashMap<>();
+            for (String[] path : paths) {
+                DConnectPath parsed = DConnectPath.parsePath(path[0], path[1]);
+                String name = parsed.toCanonicalPathName();
+                Integer count = counts.get(name);
+                counts.put(name, count == null ? 1 : count + 1);
+                group(profiles, parsed.getProfileName(), parsed.getBathPath(), parsed.getSubPath());
+            }
+            int duplications = 0;
+            for (Integer count : counts.values()) {
+                if (count > 1) {
+                    duplications++;
+                }
+            }
+            return duplications;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void group(final Map<String, Object> profiles, final String profileName,
+                              final String basePath, final String subPath) {
+        Map<String, String> subPaths = (Map<String, String>) profiles.get(profileName);
+        if (subPaths == null) {
+            subPaths = new HashMap<>();
+            profiles.put(profileName, subPaths);
+        }
+        subPaths.put(subPath, basePath);
+    }
+}
@@ -0,0 +1,385 @@
+package org.deviceconnect.codegen.util;
+
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.cli.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 性能試験用のプロファイル定義ファイル群を生成するツール.
+ *
+ * プロファイル数、パスの階層、定義の数、allOf のネスト数、イベントのプロパティ数を指定できる.
+ * 同じ設定とシード値からは常に同じ定義ファイルが生成される.
+ */
+public final class SpecCorpusGenerator {
+
+    private static final JsonNodeFactory FACTORY = JsonNodeFactory.instance;
+
+    private static final String API_NAME = "gotapi";
+
+    private static final String[] PARAM_TYPES = {"string", "integer", "number", "boolean"};
+
+    private static final String[] WORDS = {
+            "light", "sound", "power", "level", "mode", "color", "volume", "status",
+            "sensor", "value", "timer", "camera", "record", "frame", "target", "device"
+    };
+
+    public static void main(final String[] args) {
+        Options options = new Options();
+        options.addOption("o", "output", true, "directory to write the generated specs");
+        options.addOption(null, "profiles", true, "number of profiles (default: 10)");
+        options.addOption(null, "apis", true, "number of paths per profile (default: 8)");
+        options.addOption(null, "min-depth", true, "minimum number of path segments, 2-4 (default: 2)");
+        options.addOption(null, "max-depth", true, "maximum number of path segments, 2-4 (default: 4)");
+        options.addOption(null, "definitions", true, "number of payload definitions per profile (default: 4)");
+        options.addOption(null, "all-of-depth", true, "nesting depth of allOf in payload definitions (default: 2)");
+        options.addOption(null, "event-properties", true, "number of properties in each x-event payload (default: 8)");
+        options.addOption(null, "seed", true, "seed of the random generator (default: 0)");
+        options.addOption("h", "help", false, "shows this message");
+
+        try {
+            CommandLine cmd = new BasicParser().parse(options, args);
+            if (cmd.hasOption("h") || !cmd.hasOption("o")) {
+                new HelpFormatter().printHelp("SpecCorpusGenerator", options);
+                return;
+            }
+            Config config = new Config();
+            config.profiles = getInt(cmd, "profiles", config.profiles);
+            config.apis = getInt(cmd, "apis", config.apis);
+            config.minDepth = getInt(cmd, "min-depth", config.minDepth);
+            config.maxDepth = getInt(cmd, "max-depth", config.maxDepth);
+            config.definitions = getInt(cmd, "definitions", config.definitions);
+            config.allOfDepth = getInt(cmd, "all-of-depth", config.allOfDepth);
+            config.eventProperties = getInt(cmd, "event-properties", config.eventProperties);
+            if (cmd.hasOption("seed")) {
+                config.seed = Long.parseLong(cmd.getOptionValue("seed"));
+            }
+
+            List<File> files = new SpecCorpusGenerator(config).write(new File(cmd.getOptionValue("o")));
+            System.out.println("Generated " + files.size() + " profile specs.");
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp("SpecCorpusGenerator", options);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int getInt(final CommandLine cmd, final String name, final int defaultValue) {
+        if (!cmd.hasOption(name)) {
+            return defaultValue;
+        }
+        return Integer.parseInt(cmd.getOptionValue(name));
+    }
+
+    private final Config config;
+
+    private Random random;
+
+    public SpecCorpusGenerator(final Config config) {
+        if (config.profiles < 1 || config.apis < 1) {
+            throw new IllegalArgumentException("profiles and apis must be positive.");
+        }
+        if (config.minDepth < 2 || config.maxDepth > 4 || config.minDepth > config.maxDepth) {
+            throw new IllegalArgumentException("depth must be within 2-4.");
+        }
+        if (config.maxDepth == 2 && config.apis > 1) {
+            // 階層数 2 のパスはプロファイルごとに 1 つしか作れない
+            throw new IllegalArgumentException("max-depth must be greater than 2 when apis is more than 1.");
+        }
+        if (config.definitions < 1) {
+            throw new IllegalArgumentException("definitions must be positive.");
+        }
+        if (config.allOfDepth < 0 || config.eventProperties < 0) {
+            throw new IllegalArgumentException("all-of-depth and event-properties must not be negative.");
+        }
+        this.config = config;
+    }
+
+    /**
+     * プロファイル定義を生成する.
+     *
+     * @return プロファイル名をキーとしたプロファイル定義
+     */
+    public Map<String, ObjectNode> generate() {
+        random = new Random(config.seed);
+        Map<String, ObjectNode> specs = new LinkedHashMap<>();
+        for (int i = 0; i < config.profiles; i++) {
+            String profileName = String.format("corpus%04d", i);
+            specs.put(profileName, createProfileSpec(profileName));
+        }
+        return specs;
+    }
+
+    /**
+     * プロファイル定義を生成して、ファイルに出力する.
+     *
+     * @param dir 出力先のディレクトリ
+     * @return 出力したファイル
+     * @throws IOException 出力に失敗した場合
+     */
+    public List<File> write(final File dir) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Failed to create directory: " + dir.getAbsolutePath());
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        List<File> files = new ArrayList<>();
+        for (Map.Entry<String, ObjectNode> spec : generate().entrySet()) {
+            File file = new File(dir, spec.getKey() + ".json");
+            mapper.writerWithDefaultPrettyPrinter().writeValue(file, spec.getValue());
+            files.add(file);
+        }
+        return files;
+    }
+
+    private ObjectNode createProfileSpec(final String profileName) {
+        ObjectNode spec = FACTORY.objectNode();
+        spec.put("swagger", "2.0");
+        ObjectNode info = spec.putObject("info");
+        info.put("version", "2.0.0");
+        info.put("title", "Corpus Profile " + profileName);
+        info.put("description", "Generated profile for scaling tests.");
+        spec.put("basePath", "/" + API_NAME + "/" + profileName);
+
+        ObjectNode definitions = FACTORY.objectNode();
+        addCommonDefinitions(definitions);
+        for (int i = 0; i < config.definitions; i++) {
+            addPayloadDefinition(definitions, i);
+        }
+
+        ObjectNode paths = spec.putObject("paths");
+        Set<String> usedPaths = new HashSet<>();
+        for (int i = 0; i < config.apis; i++) {
+            String path = createPath(i, usedPaths);
+            String attribute = toUpperCapital("/".equals(path)
+                    ? profileName : path.substring(path.lastIndexOf('/') + 1));
+            if (random.nextInt(4) == 0) {
+                paths.set(path, createEventPath(attribute + i, definitions));
+            } else {
+                paths.set(path, createOneShotPath(attribute + i, definitions));
+            }
+        }
+        spec.set("definitions", definitions);
+        return spec;
+    }
+
+    private String createPath(final int index, final Set<String> usedPaths) {
+        while (true) {
+            int depth = config.minDepth + random.nextInt(config.maxDepth - config.minDepth + 1);
+            String path;
+            switch (depth) {
+                case 2:
+                    path = "/";
+                    break;
+                case 3:
+                    path = "/" + word() + index;
+                    break;
+                default:
+                    path = "/" + word() + "/" + word() + index;
+                    break;
+            }
+            if (usedPaths.add(path)) {
+                return path;
+            }
+        }
+    }
+
+    private ObjectNode createOneShotPath(final String name, final ObjectNode definitions) {
+        ObjectNode path = FACTORY.objectNode();
+        String[] methods = {"get", "post", "put", "delete"};
+        boolean added = false;
+        for (String method : methods) {
+            if (random.nextBoolean() || (!added && "delete".equals(method))) {
+                String responseRef = "CommonResponse";
+                if ("get".equals(method)) {
+                    responseRef = name + "Response";
+                    ObjectNode response = FACTORY.objectNode();
+                    ArrayNode allOf = response.putArray("allOf");
+                    allOf.add(ref("CommonResponse"));
+                    allOf.add(ref(payloadName(random.nextInt(config.definitions), config.allOfDepth)));
+                    definitions.set(responseRef, response);
+                }
+                path.set(method, createOperation(method, responseRef));
+                added = true;
+            }
+        }
+        return path;
+    }
+
+    private ObjectNode createEventPath(final String name, final ObjectNode definitions) {
+        ObjectNode path = FACTORY.objectNode();
+        ObjectNode put = createOperation("put", "EventRegistrationResponse");
+        put.put("x-type", "event");
+        ObjectNode event = put.putObject("x-event");
+        event.set("schema", ref(name + "Event"));
+        path.set("put", put);
+
+        ObjectNode delete = createOperation("delete", "EventUnregistrationResponse");
+        delete.put("x-type", "event");
+        path.set("delete", delete);
+
+        ObjectNode eventModel = FACTORY.objectNode();
+        ArrayNode allOf = eventModel.putArray("allOf");
+        allOf.add(ref("CommonEvent"));
+        ObjectNode payload = allOf.addObject();
+        payload.put("type", "object");
+        ObjectNode properties = payload.putObject("properties");
+        for (int i = 0; i < config.eventProperties; i++) {
+            properties.set(word() + i, createProperty());
+        }
+        definitions.set(name + "Event", eventModel);
+        return path;
+    }
+
+    private ObjectNode createOperation(final String method, final String responseRef) {
+        ObjectNode op = FACTORY.objectNode();
+        op.put("summary", method.toUpperCase() + " " + word());
+        op.put("description", "");
+        String in = ("get".equals(method) || "delete".equals(method)) ? "query" : "formData";
+        ArrayNode params = op.putArray("parameters");
+        ObjectNode serviceId = params.addObject();
+        serviceId.put("name", "serviceId");
+        serviceId.put("in", in);
+        serviceId.put("required", true);
+        serviceId.put("type", "string");
+        int paramCount = random.nextInt(4);
+        for (int i = 0; i < paramCount; i++) {
+            ObjectNode param = params.addObject();
+            param.put("name", word() + i);
+            param.put("in", in);
+            param.put("required", random.nextBoolean());
+            param.setAll(createProperty());
+        }
+        ObjectNode responses = op.putObject("responses");
+        ObjectNode ok = responses.putObject("200");
+        ok.put("description", "");
+        ok.set("schema", ref(responseRef));
+        return op;
+    }
+
+    private ObjectNode createProperty() {
+        ObjectNode prop = FACTORY.objectNode();
+        String type = PARAM_TYPES[random.nextInt(PARAM_TYPES.length)];
+        prop.put("type", type);
+        if ("integer".equals(type)) {
+            prop.put("format", random.nextBoolean() ? "int32" : "int64");
+            if (random.nextBoolean()) {
+                prop.put("minimum", 0);
+                prop.put("maximum", 100 + random.nextInt(1000));
+            }
+        } else if ("number".equals(type)) {
+            prop.put("format", random.nextBoolean() ? "float" : "double");
+        } else if ("string".equals(type) && random.nextInt(4) == 0) {
+            ArrayNode values = prop.putArray("enum");
+            values.add("on");
+            values.add("off");
+        }
+        return prop;
+    }
+
+    private void addCommonDefinitions(final ObjectNode definitions) {
+        ObjectNode common = definitions.putObject("CommonResponse");
+        common.put("type", "object");
+        addRequired(common, "result", "product", "version");
+        ObjectNode props = common.putObject("properties");
+        props.putObject("result").put("type", "integer");
+        props.putObject("product").put("type", "string");
+        props.putObject("version").put("type", "string");
+
+        ObjectNode event = definitions.putObject("CommonEvent");
+        event.put("type", "object");
+        addRequired(event, "serviceId", "profile", "interface", "attribute");
+        props = event.putObject("properties");
+        props.putObject("serviceId").put("type", "string");
+        props.putObject("profile").put("type", "string");
+        props.putObject("interface").put("type", "string");
+        props.putObject("attribute").put("type", "string");
+
+        for (String name : new String[] {"EventRegistrationResponse", "EventUnregistrationResponse"}) {
+            ArrayNode allOf = definitions.putObject(name).putArray("allOf");
+            allOf.add(ref("CommonResponse"));
+        }
+    }
+
+    /**
+     * allOf で階層化されたペイロードの定義を追加する.
+     *
+     * レベル 0 はプロパティのみを持ち、レベル n はレベル n-1 を allOf で参照する.
+     */
+    private void addPayloadDefinition(final ObjectNode definitions, final int index) {
+        for (int level = 0; level <= config.allOfDepth; level++) {
+            ObjectNode body = FACTORY.objectNode();
+            body.put("type", "object");
+            ObjectNode props = body.putObject("properties");
+            int count = 1 + random.nextInt(4);
+            for (int i = 0; i < count; i++) {
+                props.set(word() + level + i, createProperty());
+            }
+
+            if (level == 0) {
+                definitions.set(payloadName(index, level), body);
+            } else {
+                ObjectNode model = FACTORY.objectNode();
+                ArrayNode allOf = model.putArray("allOf");
+                allOf.add(ref(payloadName(index, level - 1)));
+                allOf.add(body);
+                definitions.set(payloadName(index, level), model);
+            }
+        }
+    }
+
+    private static String payloadName(final int index, final int level) {
+        return "Payload" + index + "Level" + level;
+    }
+
+    private static ObjectNode ref(final String definitionName) {
+        ObjectNode ref = FACTORY.objectNode();
+        ref.put("$ref", "#/definitions/" + definitionName);
+        return ref;
+    }
+
+    private static void addRequired(final ObjectNode model, final String... names) {
+        ArrayNode required = model.putArray("required");
+        for (String name : names) {
+            required.add(name);
+        }
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String toUpperCapital(final String str) {
+        return str.substring(0, 1).toUpperCase() + str.substring(1);
+    }
+
+    /**
+     * 生成するプロファイル定義の設定.
+     */
+    public static class Config {
+        /** プロファイル数. */
+        public int profiles = 10;
+        /** プロファイルごとのパスの数. */
+        public int apis = 8;
+        /** パスの最小の階層数 (/gotapi/profile を 2 とする). */
+        public int minDepth = 2;
+        /** パスの最大の階層数. */
+        public int maxDepth = 4;
+        /** プロファイルごとのペイロード定義の数. */
+        public int definitions = 4;
+        /** ペイロード定義の allOf のネスト数. */
+        public int allOfDepth = 2;
+        /** イベントのペイロードのプロパティ数. */
+        public int eventProperties = 8;
+        /** 乱数のシード値. */
+        public long seed;
+    }
+}
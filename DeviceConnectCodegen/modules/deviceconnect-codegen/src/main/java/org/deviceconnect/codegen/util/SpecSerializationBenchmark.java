@@ -0,0 +1,165 @@
+package org.deviceconnect.codegen.util;
+
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.swagger.models.Swagger;
+import io.swagger.parser.SwaggerParser;
+import io.swagger.util.Json;
+import io.swagger.util.Yaml;
+import org.apache.commons.cli.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * プロファイル定義の出力処理のメモリ割り当て量を計測するツール.
+ *
+ * 指定されたプロファイル定義ファイルを、文字列を経由して出力する方法 (string) と出力先へ直接書き出す方法 (stream) で
+ * それぞれ出力し、出力 1MB あたりのメモリ割り当て量と出力時間を表示する.
+ * 出力内容は破棄するため、ファイルの書き込み時間は含まない.
+ */
+public final class SpecSerializationBenchmark {
+
+    private static final double MB = 1024 * 1024;
+
+    private SpecSerializationBenchmark() {
+    }
+
+    public static void main(final String[] args) {
+        Options options = new Options();
+        options.addOption(null, "iterations", true, "number of timed serializations per spec (default: 20)");
+        options.addOption("h", "help", false, "shows this message");
+
+        try {
+            CommandLine cmd = new BasicParser().parse(options, args);
+            if (cmd.hasOption("h") || cmd.getArgs().length == 0) {
+                new HelpFormatter().printHelp("SpecSerializationBenchmark [options] <file or directory>...", options);
+                return;
+            }
+            int iterations = cmd.hasOption("iterations") ? Integer.parseInt(cmd.getOptionValue("iterations")) : 20;
+
+            List<File> files = new ArrayList<>();
+            for (String arg : cmd.getArgs()) {
+                collectSpecFiles(new File(arg), files);
+            }
+            List<Swagger> specs = new ArrayList<>();
+            for (File file : files) {
+                ObjectMapper mapper = file.getName().endsWith(".yaml") ? Yaml.mapper() : Json.mapper();
+                specs.add(new SwaggerParser().read(mapper.readTree(file)));
+            }
+
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (!threads.isThreadAllocatedMemorySupported()) {
+                System.err.println("Thread allocated memory measurement is not supported on this JVM.");
+                System.exit(1);
+            }
+            threads.setThreadAllocatedMemoryEnabled(true);
+
+            // プラグインのプロファイル定義ファイル (整形あり) と HTML アプリのプロファイル定義 (整形なし)
+            Map<String, ObjectWriter> formats = new LinkedHashMap<>();
+            formats.put("pretty", Json.mapper().writer(new JsonStringifyPrettyPrinter(4)));
+            ObjectMapper compact = new ObjectMapper();
+            compact.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+            formats.put("compact", compact.writer());
+
+            System.out.println(files.size() + " specs, " + iterations + " iterations");
+            for (Map.Entry<String, ObjectWriter> format : formats.entrySet()) {
+                for (boolean streaming : new boolean[] {false, true}) {
+                    String label = format.getKey() + (streaming ? " stream" : " string");
+                    measure(threads, label, format.getValue(), specs, iterations, streaming);
+                }
+            }
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp("SpecSerializationBenchmark [options] <file or directory>...", options);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static void collectSpecFiles(final File file, final List<File> files) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    collectSpecFiles(child, files);
+                }
+            }
+        } else if (file.getName().endsWith(".json") || file.getName().endsWith(".yaml")) {
+            files.add(file);
+        }
+    }
+
+    private static void measure(final com.sun.management.ThreadMXBean threads, final String label,
+                                final ObjectWriter writer, final List<Swagger> specs, final int iterations,
+                                final boolean streaming) throws IOException {
+        CountingWriter out = new CountingWriter();
+        // ウォームアップ
+        for (int i = 0; i < iterations; i++) {
+            serialize(writer, specs, out, streaming);
+        }
+
+        out.count = 0;
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            serialize(writer, specs, out, streaming);
+        }
+        long time = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        double outputMb = out.count / MB;
+        System.out.println(String.format("%-15s %10.1f KB allocated/MB output %8.2f ms/MB output",
+                label + ":", allocated / 1024.0 / outputMb, time / 1e6 / outputMb));
+    }
+
+    private static void serialize(final ObjectWriter writer, final List<Swagger> specs, final CountingWriter out,
+                                  final boolean streaming) throws IOException {
+        for (Swagger spec : specs) {
+            if (streaming) {
+                writer.writeValue(out, spec);
+            } else {
+                out.write(writer.writeValueAsString(spec));
+            }
+        }
+    }
+
+    /**
+     * 書き込まれた文字数のみを数える Writer.
+     */
+    private static class CountingWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(final int c) {
+            count++;
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(final String str, final int off, final int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
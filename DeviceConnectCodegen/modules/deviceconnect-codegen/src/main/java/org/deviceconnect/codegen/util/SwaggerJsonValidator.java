@@ -20,9 +20,28 @@ public class SwaggerJsonValidator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SwaggerJsonValidator.class);
 
+    /** json-schema-validator に同梱された JSON Schema draft-04 のメタスキーマ. */
+    private static final String DRAFT_V4_SCHEMA = "/draftv4/schema";
+
+    /**
+     * 検証処理の実装.
+     */
+    public enum Engine {
+        /** json-schema-validator によりスキーマを解釈して検証する. */
+        GENERIC,
+        /** Swagger 2.0 のスキーマ専用に変換した検証処理で検証する. */
+        COMPILED
+    }
+
     private final JsonSchema jsonSchema;
 
+    private final CompiledSwaggerSchema compiledSchema;
+
     public SwaggerJsonValidator() {
+        this(Engine.GENERIC);
+    }
+
+    public SwaggerJsonValidator(final Engine engine) {
         URL schemaURL = ClassLoader.getSystemResource("v2.schema.json");
         LOGGER.info("Swagger 2.0 Schema: " + schemaURL);
 
@@ -30,14 +49,24 @@ public class SwaggerJsonValidator {
             ObjectMapper mapper = new ObjectMapper();
             JsonNode schema = mapper.readTree(schemaURL);
 
-            JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
-            jsonSchema = factory.getJsonSchema(schema);
+            if (engine == Engine.COMPILED) {
+                JsonNode metaSchema = mapper.readTree(SwaggerJsonValidator.class.getResource(DRAFT_V4_SCHEMA));
+                jsonSchema = null;
+                compiledSchema = new CompiledSwaggerSchema(schema, metaSchema);
+            } else {
+                JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
+                jsonSchema = factory.getJsonSchema(schema);
+                compiledSchema = null;
+            }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
     public Result validate(final JsonNode swagger) throws ProcessingException {
+        if (compiledSchema != null) {
+            return new Result(compiledSchema.validate(swagger));
+        }
         ProcessingReport report = this.jsonSchema.validate(swagger, true);
         List<Error> errors = new ArrayList<>();
         for (Iterator<ProcessingMessage> it = report.iterator(); it.hasNext(); ) {
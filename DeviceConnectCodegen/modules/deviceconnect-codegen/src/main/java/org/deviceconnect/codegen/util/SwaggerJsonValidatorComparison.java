@@ -0,0 +1,251 @@
+package org.deviceconnect.codegen.util;
+
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.swagger.util.Json;
+import io.swagger.util.Yaml;
+import org.apache.commons.cli.*;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * 検証処理の実装 ({@link SwaggerJsonValidator.Engine}) を比較するツール.
+ *
+ * 指定されたプロファイル定義ファイルと、それらを無作為に変更した定義ファイルを両方の実装で検証し、
+ * エラーのポインタとメッセージが順序も含めて一致することを確認する. 続けて、それぞれの実装の検証時間を計測する.
+ * 同じシード値からは常に同じ変更が行われる.
+ */
+public final class SwaggerJsonValidatorComparison {
+
+    private static final JsonNodeFactory FACTORY = JsonNodeFactory.instance;
+
+    private static final JsonNode[] REPLACEMENTS = {
+            FACTORY.nullNode(), FACTORY.booleanNode(true), FACTORY.numberNode(-1), FACTORY.numberNode(1.5),
+            FACTORY.textNode("invalid"), FACTORY.textNode("://not a uri"), FACTORY.textNode("["),
+            FACTORY.arrayNode(), FACTORY.objectNode()
+    };
+
+    private final SwaggerJsonValidator generic = new SwaggerJsonValidator(SwaggerJsonValidator.Engine.GENERIC);
+    private final SwaggerJsonValidator compiled = new SwaggerJsonValidator(SwaggerJsonValidator.Engine.COMPILED);
+    private final Random random;
+
+    private SwaggerJsonValidatorComparison(final long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static void main(final String[] args) {
+        Options options = new Options();
+        options.addOption(null, "mutations", true, "number of mutated specs per input file (default: 200)");
+        options.addOption(null, "iterations", true, "number of timed validations per engine (default: 50)");
+        options.addOption(null, "seed", true, "seed of the random generator (default: 0)");
+        options.addOption("h", "help", false, "shows this message");
+
+        try {
+            CommandLine cmd = new BasicParser().parse(options, args);
+            if (cmd.hasOption("h") || cmd.getArgs().length == 0) {
+                new HelpFormatter().printHelp("SwaggerJsonValidatorComparison [options] <file or directory>...", options);
+                return;
+            }
+            int mutations = getInt(cmd, "mutations", 200);
+            int iterations = getInt(cmd, "iterations", 50);
+            long seed = cmd.hasOption("seed") ? Long.parseLong(cmd.getOptionValue("seed")) : 0;
+
+            List<File> files = new ArrayList<>();
+            for (String arg : cmd.getArgs()) {
+                collectSpecFiles(new File(arg), files);
+            }
+            Map<String, JsonNode> specs = new LinkedHashMap<>();
+            for (File file : files) {
+                specs.put(file.getPath(), (file.getName().endsWith(".yaml") ? Yaml.mapper() : Json.mapper()).readTree(file));
+            }
+
+            SwaggerJsonValidatorComparison comparison = new SwaggerJsonValidatorComparison(seed);
+            int mismatches = comparison.compare(specs, mutations);
+            comparison.measure(specs, iterations);
+            if (mismatches > 0) {
+                System.exit(1);
+            }
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp("SwaggerJsonValidatorComparison [options] <file or directory>...", options);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    private static int getInt(final CommandLine cmd, final String name, final int defaultValue) {
+        if (!cmd.hasOption(name)) {
+            return defaultValue;
+        }
+        return Integer.parseInt(cmd.getOptionValue(name));
+    }
+
+    private static void collectSpecFiles(final File file, final List<File> files) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    collectSpecFiles(child, files);
+                }
+            }
+        } else if (file.getName().endsWith(".json") || file.getName().endsWith(".yaml")) {
+            files.add(file);
+        }
+    }
+
+    private int compare(final Map<String, JsonNode> specs, final int mutations) throws Exception {
+        int total = 0;
+        int invalid = 0;
+        int mismatches = 0;
+        for (Map.Entry<String, JsonNode> entry : specs.entrySet()) {
+            for (int i = 0; i <= mutations; i++) {
+                JsonNode spec = entry.getValue();
+                String label = entry.getKey();
+                if (i > 0) {
+                    spec = spec.deepCopy();
+                    label += " mutation #" + i + ":";
+                    // 複数のエラーの順序も比較するため、1〜3箇所を変更する
+                    int edits = 1 + random.nextInt(3);
+                    for (int j = 0; j < edits; j++) {
+                        label += " " + mutate(spec);
+                    }
+                }
+                List<String> expected = toStrings(generic.validate(spec));
+                List<String> actual = toStrings(compiled.validate(spec));
+                total++;
+                if (!expected.isEmpty()) {
+                    invalid++;
+                }
+                if (!expected.equals(actual)) {
+                    mismatches++;
+                    System.out.println("MISMATCH: " + label);
+                    System.out.println("  generic:  " + expected);
+                    System.out.println("  compiled: " + actual);
+                }
+            }
+        }
+        System.out.println("Compared " + total + " specs (" + invalid + " invalid): " + mismatches + " mismatches.");
+        return mismatches;
+    }
+
+    private void measure(final Map<String, JsonNode> specs, final int iterations) throws Exception {
+        long genericTime = measure(generic, specs, iterations);
+        long compiledTime = measure(compiled, specs, iterations);
+        System.out.println(String.format("generic:  %.3f ms/spec", genericTime / 1e6 / iterations / specs.size()));
+        System.out.println(String.format("compiled: %.3f ms/spec", compiledTime / 1e6 / iterations / specs.size()));
+        System.out.println(String.format("speedup:  %.1fx", (double) genericTime / compiledTime));
+    }
+
+    private static long measure(final SwaggerJsonValidator validator, final Map<String, JsonNode> specs,
+                                final int iterations) throws Exception {
+        // ウォームアップ
+        for (int i = 0; i < iterations; i++) {
+            for (JsonNode spec : specs.values()) {
+                validator.validate(spec);
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (JsonNode spec : specs.values()) {
+                validator.validate(spec);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<String> toStrings(final SwaggerJsonValidator.Result result) {
+        List<String> errors = new ArrayList<>();
+        for (SwaggerJsonValidator.Error error : result.getErrors()) {
+            errors.add(error.getJsonPointer() + " " + error.getMessage());
+        }
+        return errors;
+    }
+
+    // 定義内の無作為に選んだ値を変更し、変更内容を返す
+    private String mutate(final JsonNode spec) {
+        List<JsonNode> containers = new ArrayList<>();
+        List<String> pointers = new ArrayList<>();
+        collectContainers(spec, "", containers, pointers);
+        int index = random.nextInt(containers.size());
+        JsonNode container = containers.get(index);
+        String pointer = pointers.get(index);
+
+        if (container.isArray()) {
+            ArrayNode array = (ArrayNode) container;
+            switch (random.nextInt(3)) {
+                case 0:
+                    if (array.size() > 0) {
+                        array.add(array.get(0).deepCopy());
+                        return "duplicate " + pointer + "/0";
+                    }
+                    break;
+                case 1:
+                    array.removeAll();
+                    return "clear " + pointer;
+                default:
+                    break;
+            }
+            JsonNode replacement = randomReplacement();
+            if (array.size() > 0) {
+                int i = random.nextInt(array.size());
+                array.set(i, replacement);
+                return "replace " + pointer + "/" + i + " with " + replacement;
+            }
+            array.add(replacement);
+            return "add " + replacement + " to " + pointer;
+        }
+
+        ObjectNode object = (ObjectNode) container;
+        List<String> names = new ArrayList<>();
+        Iterator<String> it = object.fieldNames();
+        while (it.hasNext()) {
+            names.add(it.next());
+        }
+        if (names.isEmpty() || random.nextInt(4) == 0) {
+            String name = random.nextBoolean() ? "unknown" : "x-unknown";
+            object.set(name, randomReplacement());
+            return "add " + pointer + "/" + name;
+        }
+        if (random.nextInt(8) == 0) {
+            object.removeAll();
+            return "clear " + pointer;
+        }
+        String name = names.get(random.nextInt(names.size()));
+        if (random.nextInt(3) == 0) {
+            object.remove(name);
+            return "remove " + pointer + "/" + name;
+        }
+        JsonNode replacement = randomReplacement();
+        object.set(name, replacement);
+        return "replace " + pointer + "/" + name + " with " + replacement;
+    }
+
+    private JsonNode randomReplacement() {
+        return REPLACEMENTS[random.nextInt(REPLACEMENTS.length)].deepCopy();
+    }
+
+    private static void collectContainers(final JsonNode node, final String pointer,
+                                          final List<JsonNode> containers, final List<String> pointers) {
+        if (node.isArray()) {
+            containers.add(node);
+            pointers.add(pointer);
+            for (int i = 0; i < node.size(); i++) {
+                collectContainers(node.get(i), pointer + "/" + i, containers, pointers);
+            }
+        } else if (node.isObject()) {
+            containers.add(node);
+            pointers.add(pointer);
+            Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> field = it.next();
+                collectContainers(field.getValue(), pointer + "/" + field.getKey(), containers, pointers);
+            }
+        }
+    }
+}
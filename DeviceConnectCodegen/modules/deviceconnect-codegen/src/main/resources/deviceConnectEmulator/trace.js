@@ -0,0 +1,164 @@
+'use strict';
+
+// Append-only binary trace of the traffic between apps and a Device Connect plugin.
+//
+// File:    'DCTR' (4 bytes), format version (1 byte)
+// Record:  type (1 byte), elapsed time since the previous record in ms (varint), fields
+//
+//   SESSION  (0): start time in ms since epoch (varint)
+//   REQUEST  (1): id (varint), method (string), path (string), query (string)
+//   RESPONSE (2): id (varint), status (varint), body (string)
+//   EVENT    (3): key (string), body (string)
+//
+// A string is its UTF-8 length (varint) followed by the UTF-8 bytes.
+// Each recording run appends a SESSION record, so a file may contain several sessions.
+
+var fs = require('fs');
+
+var MAGIC = 'DCTR';
+var VERSION = 1;
+
+var SESSION = 0;
+var REQUEST = 1;
+var RESPONSE = 2;
+var EVENT = 3;
+
+function TraceWriter(file) {
+  var exists = fs.existsSync(file) && fs.statSync(file).size > 0;
+  this.fd = fs.openSync(file, 'a');
+  if (!exists) {
+    var header = Buffer.alloc(5);
+    header.write(MAGIC, 0, 4, 'ascii');
+    header.writeUInt8(VERSION, 4);
+    fs.writeSync(this.fd, header, 0, header.length);
+  }
+  this.last = Date.now();
+  this.nextId = 1;
+  this._write(SESSION, [this.last]);
+}
+
+TraceWriter.prototype.request = function(method, path, query) {
+  var id = this.nextId++;
+  this._write(REQUEST, [id, method, path, query || '']);
+  return id;
+};
+
+TraceWriter.prototype.response = function(id, status, body) {
+  this._write(RESPONSE, [id, status, body || '']);
+};
+
+TraceWriter.prototype.event = function(key, body) {
+  this._write(EVENT, [key, body]);
+};
+
+TraceWriter.prototype.close = function() {
+  fs.closeSync(this.fd);
+};
+
+// Each record is written with a single call so that an interrupted run leaves at most one truncated record.
+TraceWriter.prototype._write = function(type, fields) {
+  var now = Date.now();
+  // The clock may go back (e.g. NTP adjustment), but a varint cannot hold a negative delta.
+  var delta = type === SESSION ? 0 : Math.max(0, now - this.last);
+  var chunks = [Buffer.from([type]), encodeVarint(delta)];
+  this.last = now;
+  fields.forEach(function(field) {
+    if (typeof field === 'number') {
+      chunks.push(encodeVarint(field));
+    } else {
+      var bytes = Buffer.from(field, 'utf8');
+      chunks.push(encodeVarint(bytes.length), bytes);
+    }
+  });
+  var record = Buffer.concat(chunks);
+  fs.writeSync(this.fd, record, 0, record.length);
+};
+
+function encodeVarint(value) {
+  var bytes = [];
+  while (value >= 0x80) {
+    bytes.push((value % 0x80) | 0x80);
+    value = Math.floor(value / 0x80);
+  }
+  bytes.push(value);
+  return Buffer.from(bytes);
+}
+
+// Reads all records. The time of a record is the elapsed ms since the start of the trace; the gaps
+// between sessions are removed. A truncated record at the end of the file is ignored.
+function read(file) {
+  var buf = fs.readFileSync(file);
+  if (buf.length < 5 || buf.toString('ascii', 0, 4) !== MAGIC) {
+    throw new Error('Not a trace file: ' + file);
+  }
+  if (buf.readUInt8(4) !== VERSION) {
+    throw new Error('Unsupported trace version: ' + buf.readUInt8(4));
+  }
+
+  var pos = 5;
+  function varint() {
+    var value = 0;
+    var factor = 1;
+    for (;;) {
+      if (pos >= buf.length) {
+        throw new RangeError('truncated');
+      }
+      var b = buf[pos++];
+      value += (b & 0x7f) * factor;
+      if (b < 0x80) {
+        return value;
+      }
+      factor *= 0x80;
+    }
+  }
+  function string() {
+    var length = varint();
+    if (pos + length > buf.length) {
+      throw new RangeError('truncated');
+    }
+    var s = buf.toString('utf8', pos, pos + length);
+    pos += length;
+    return s;
+  }
+
+  var records = [];
+  var time = 0;
+  var session = 0;
+  while (pos < buf.length) {
+    try {
+      var type = buf[pos++];
+      time += varint();
+      switch (type) {
+      case SESSION:
+        varint();
+        session++;
+        break;
+      case REQUEST:
+        records.push({ type: 'request', time: time, id: session + ':' + varint(),
+                       method: string(), path: string(), query: string() });
+        break;
+      case RESPONSE:
+        records.push({ type: 'response', time: time, id: session + ':' + varint(),
+                       status: varint(), body: string() });
+        break;
+      case EVENT:
+        records.push({ type: 'event', time: time, key: string(), body: string() });
+        break;
+      default:
+        throw new Error('Unknown record type ' + type + ' at offset ' + (pos - 1));
+      }
+    } catch (e) {
+      if (e instanceof RangeError) {
+        console.warn('Ignored a truncated record at the end of ' + file);
+        break;
+      }
+      throw e;
+    }
+  }
+  return records;
+}
+
+module.exports = {
+  TraceWriter: TraceWriter,
+  read: read
+};
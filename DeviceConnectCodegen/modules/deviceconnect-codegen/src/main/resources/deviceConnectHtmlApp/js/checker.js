@@ -54,9 +54,53 @@ var main = (function(parent, global) {
     }
     parent.findServices = findServices;
 
+    // 読み込み済みのプロファイル定義
+    var _profileSpecs = {};
+
+    // 読み込み中のプロファイル定義の表示先
+    var _loadingProfiles = {};
+
     function parseJSON(json) {
-        dom('main').innerHTML = createSupportPath(json.basePath, json.paths);
+        var contentHtml = "";
+        for (var i = 0; i < json.profiles.length; i++) {
+            var profile = json.profiles[i];
+            var data = {
+                'name' : profile.name,
+                'title' : profile.title + ' (' + profile.basePath + ')',
+                'nav' : 'profile_' + profile.name,
+                'content' : ''
+            };
+            contentHtml += util.createTemplate('profile', data);
+        }
+        dom('main').innerHTML = contentHtml;
+    }
+
+    function onToggleProfile(name, nav) {
+        if (_profileSpecs[name] || _loadingProfiles[name]) {
+            return true;
+        }
+        // プロファイル定義は初めて開かれた時に読み込む
+        _loadingProfiles[name] = nav;
+        var script = document.createElement('script');
+        script.src = 'specs/profiles/' + name + '.js';
+        script.onerror = function() {
+            delete _loadingProfiles[name];
+            dom(nav + '_content').innerHTML = 'Failed to load the profile: ' + name;
+        };
+        document.head.appendChild(script);
+        return true;
+    }
+    parent.onToggleProfile = onToggleProfile;
+
+    function onLoadProfile(name, json) {
+        var nav = _loadingProfiles[name];
+        delete _loadingProfiles[name];
+        _profileSpecs[name] = json;
+        if (nav) {
+            dom(nav + '_content').innerHTML = createSupportPath(json.basePath, json.paths);
+        }
     }
+    parent.onLoadProfile = onLoadProfile;
 
     function dom(id) {
         return document.getElementById(id);
@@ -435,7 +479,7 @@ var main = (function(parent, global) {
     }
 
     function createParameter(method, basePath, path, xType, params) {
-        var nav = method + '_' + path;
+        var nav = method + '_' + createDConnectPath(basePath, path);
         var data = {
             'nav' : nav,
             'method' : method.toUpperCase(),
@@ -449,7 +493,7 @@ var main = (function(parent, global) {
     function createCommand(method, basePath, path, param) {
         var data = {
             'title': method.toUpperCase() + ' ' + createDConnectPath(basePath, path),
-            'nav' : method + '_' + path,
+            'nav' : method + '_' + createDConnectPath(basePath, path),
             'content' : createParameter(method, basePath, path, param['x-type'], param.parameters)
         };
         return util.createTemplate('command', data);
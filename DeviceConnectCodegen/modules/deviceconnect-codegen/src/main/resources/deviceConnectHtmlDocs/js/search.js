@@ -0,0 +1,177 @@
+// API リファレンスの検索.
+// 索引 (../search/*.js) は検索語の先頭文字ごとのシャードに分割されており、必要なシャードのみ読み込む.
+var DocsSearch = (function() {
+  var INDEX_DIR = '../search/';
+  var _documents = null;
+  var _shardNames = {};
+  var _shards = {};
+  var _callbacks = {};
+  var _lastQuery = null;
+
+  function loadScript(name, callback) {
+    if (_callbacks[name]) {
+      _callbacks[name].push(callback);
+      return;
+    }
+    _callbacks[name] = [callback];
+    var script = document.createElement('script');
+    script.src = INDEX_DIR + name + '.js';
+    document.head.appendChild(script);
+  }
+
+  function load(name, data) {
+    if (name === 'documents') {
+      _documents = data.documents;
+      for (var i = 0; i < data.shards.length; i++) {
+        _shardNames[data.shards[i]] = true;
+      }
+    } else {
+      _shards[name.substring('index-'.length)] = data;
+    }
+    var callbacks = _callbacks[name] || [];
+    delete _callbacks[name];
+    for (var j = 0; j < callbacks.length; j++) {
+      callbacks[j]();
+    }
+  }
+
+  function isWordChar(c) {
+    return /[A-Za-z0-9]/.test(c);
+  }
+
+  function isCjkChar(c) {
+    var code = c.charCodeAt(0);
+    return (code >= 0x3040 && code <= 0x30FF)
+      || (code >= 0x4E00 && code <= 0x9FFF)
+      || (code >= 0xFF00 && code <= 0xFFEF);
+  }
+
+  // 生成時と同じ規則で検索語を分割する. camelCase の語は分割した語のみを使う.
+  function tokenize(text) {
+    var terms = [];
+    var words = text.match(/[A-Za-z0-9]+/g) || [];
+    for (var i = 0; i < words.length; i++) {
+      var word = words[i];
+      var start = 0;
+      for (var j = 1; j < word.length; j++) {
+        if (/[A-Z]/.test(word.charAt(j)) && !/[A-Z]/.test(word.charAt(j - 1))) {
+          terms.push(word.substring(start, j).toLowerCase());
+          start = j;
+        }
+      }
+      terms.push(word.substring(start).toLowerCase());
+    }
+    var runs = text.match(/[぀-ヿ一-鿿＀-￯]+/g) || [];
+    for (var k = 0; k < runs.length; k++) {
+      var run = runs[k];
+      if (run.length === 1) {
+        terms.push(run);
+      }
+      for (var n = 0; n < run.length - 1; n++) {
+        terms.push(run.substring(n, n + 2));
+      }
+    }
+    return terms;
+  }
+
+  function shardName(term) {
+    var c = term.charAt(0);
+    if (isWordChar(c)) {
+      return c;
+    }
+    return 'u' + (term.charCodeAt(0) >> 8).toString(16);
+  }
+
+  // 前方一致する索引語の文書IDの集合を返す.
+  function lookup(term) {
+    var shard = _shards[shardName(term)];
+    var result = {};
+    if (!shard) {
+      return result;
+    }
+    var exact = isCjkChar(term.charAt(0)) && term.length > 1;
+    for (var key in shard) {
+      if (exact ? key === term : key.indexOf(term) === 0) {
+        var postings = shard[key];
+        for (var i = 0; i < postings.length; i++) {
+          result[postings[i]] = true;
+        }
+      }
+    }
+    return result;
+  }
+
+  function execute(query) {
+    var terms = tokenize(query);
+    if (terms.length === 0) {
+      render([]);
+      return;
+    }
+    var pending = 0;
+    var done = function() {
+      if (--pending > 0 || query !== _lastQuery) {
+        return;
+      }
+      var hits = null;
+      for (var i = 0; i < terms.length; i++) {
+        var ids = lookup(terms[i]);
+        if (hits === null) {
+          hits = ids;
+        } else {
+          for (var id in hits) {
+            if (!ids[id]) {
+              delete hits[id];
+            }
+          }
+        }
+      }
+      var docs = [];
+      for (var docId in hits) {
+        docs.push(_documents[docId]);
+      }
+      render(docs);
+    };
+    pending++;
+    for (var i = 0; i < terms.length; i++) {
+      var name = shardName(terms[i]);
+      if (_shardNames[name] && !_shards[name]) {
+        pending++;
+        loadScript('index-' + name, done);
+      }
+    }
+    done();
+  }
+
+  function render(docs) {
+    var list = document.getElementById('search-results');
+    list.innerHTML = '';
+    for (var i = 0; i < docs.length; i++) {
+      var doc = docs[i];
+      var item = document.createElement('li');
+      var link = document.createElement('a');
+      link.href = doc[2];
+      link.textContent = doc[1];
+      item.appendChild(link);
+      if (doc[3]) {
+        item.appendChild(document.createTextNode(' - ' + doc[3]));
+      }
+      list.appendChild(item);
+    }
+  }
+
+  function search(query) {
+    _lastQuery = query;
+    if (_documents === null) {
+      loadScript('documents', function() {
+        execute(_lastQuery);
+      });
+      return;
+    }
+    execute(query);
+  }
+
+  return {
+    load: load,
+    search: search
+  };
+})();
@@ -0,0 +1,135 @@
+'use strict';
+
+// イベントを購読者ごとの送信間隔で配信する.
+// イベントはチャンネル (サービスIDとAPIのパスの組) 単位で1回だけ作成され、
+// 送信間隔内に作成されたイベントは最新の値のみが保持される.
+// イベントの作成は、購読者の送信間隔の最小値の周期で行う. 購読者が増減するたびに周期を設定し直す.
+let EventDispatcher = function() {
+    this.channels = {};
+};
+
+EventDispatcher.prototype._subscriberId = function(message) {
+    return message.receiver + '-' + message.accessToken;
+};
+
+// producer はイベントを作成して publish を呼び出す関数.
+EventDispatcher.prototype.subscribe = function(channelId, message, interval, producer) {
+    let channel = this.channels[channelId];
+    if (channel === undefined) {
+        channel = {
+            subscribers: {},
+            producer: null,
+            timerId: null,
+            interval: null,
+            lastProducedTime: 0
+        };
+        this.channels[channelId] = channel;
+    }
+    channel.producer = producer;
+    let id = this._subscriberId(message);
+    this._cancel(channel.subscribers[id]);
+    channel.subscribers[id] = {
+        message: JSON.parse(JSON.stringify(message)),
+        interval: interval,
+        lastSentTime: 0,
+        pending: null,
+        timerId: null
+    };
+    this._reschedule(channel);
+};
+
+EventDispatcher.prototype.unsubscribe = function(channelId, message) {
+    let channel = this.channels[channelId];
+    if (channel === undefined) {
+        return;
+    }
+    let id = this._subscriberId(message);
+    this._cancel(channel.subscribers[id]);
+    delete channel.subscribers[id];
+    if (Object.keys(channel.subscribers).length === 0) {
+        delete this.channels[channelId];
+    }
+    this._reschedule(channel);
+};
+
+// 購読者の送信間隔の最小値でイベントの作成を周期実行する. 購読者がいない場合は停止する.
+EventDispatcher.prototype._reschedule = function(channel) {
+    let interval = null;
+    for (let id in channel.subscribers) {
+        let subscriberInterval = channel.subscribers[id].interval;
+        if (interval === null || subscriberInterval < interval) {
+            interval = subscriberInterval;
+        }
+    }
+    if (interval === channel.interval && channel.timerId !== null) {
+        return;
+    }
+    if (channel.timerId !== null) {
+        // Node.js では clearTimeout で setInterval のタイマーも停止できる
+        clearTimeout(channel.timerId);
+        channel.timerId = null;
+    }
+    channel.interval = interval;
+    if (interval === null) {
+        return;
+    }
+    // 前回の作成から新しい周期が経過した時点で作成し、以降はその周期で作成する
+    let self = this;
+    let delay = Math.max(0, channel.lastProducedTime + interval - Date.now());
+    channel.timerId = setTimeout(function() {
+        channel.timerId = setInterval(function() {
+            self._produce(channel);
+        }, interval);
+        self._produce(channel);
+    }, delay);
+};
+
+EventDispatcher.prototype._produce = function(channel) {
+    channel.lastProducedTime = Date.now();
+    channel.producer();
+};
+
+EventDispatcher.prototype.publish = function(util, channelId, body) {
+    let channel = this.channels[channelId];
+    if (channel === undefined) {
+        return;
+    }
+    let now = Date.now();
+    for (let id in channel.subscribers) {
+        this._offer(util, channel.subscribers[id], body, now);
+    }
+};
+
+EventDispatcher.prototype._offer = function(util, subscriber, body, now) {
+    let elapsed = now - subscriber.lastSentTime;
+    if (subscriber.timerId === null && elapsed >= subscriber.interval) {
+        this._send(util, subscriber, body, now);
+        return;
+    }
+    subscriber.pending = body;
+    if (subscriber.timerId === null) {
+        let self = this;
+        subscriber.timerId = setTimeout(function() {
+            subscriber.timerId = null;
+            let pending = subscriber.pending;
+            subscriber.pending = null;
+            if (pending !== null) {
+                self._send(util, subscriber, pending, Date.now());
+            }
+        }, subscriber.interval - elapsed);
+    }
+};
+
+EventDispatcher.prototype._send = function(util, subscriber, body, now) {
+    subscriber.lastSentTime = now;
+    util.pushMessage(Object.assign({}, subscriber.message, body));
+};
+
+EventDispatcher.prototype._cancel = function(subscriber) {
+    if (subscriber !== undefined && subscriber.timerId !== null) {
+        clearTimeout(subscriber.timerId);
+        subscriber.timerId = null;
+    }
+};
+
+module.exports = EventDispatcher;
@@ -3,6 +3,7 @@
 let Profile = function(config) {
     this.name = config.name;
     this.operations = config.operations;
+    this.routes = config.routes;
     this.eventList = [];
 };
 
@@ -18,6 +19,11 @@ Profile.prototype._createPath = function(message) {
 };
 
 Profile.prototype._findOperation = function(path, method) {
+    // 'routes' is a table generated from the profile spec: '<method> <lower-cased path>' -> index of the operation.
+    if (this.routes !== undefined) {
+        let index = this.routes[method.toLowerCase() + ' ' + path.toLowerCase()];
+        return index !== undefined ? this.operations[index] : null;
+    }
     for (let key in this.operations) {
         let operation = this.operations[key];
         if (operation.method.toLowerCase() === method.toLowerCase()
@@ -0,0 +1,91 @@
+'use strict';
+
+// ワンショットAPIのレスポンスをサービスとパラメータの組ごとに保持するキャッシュ.
+// 有効期間を過ぎたエントリは破棄され、最大エントリ数を超えた場合は
+// 最も長く参照されていないエントリから削除される.
+let _caches = {};
+
+let ResponseCache = function(apiId, ttl, maxEntries) {
+    this.apiId = apiId;
+    this.ttl = ttl;
+    this.maxEntries = maxEntries;
+    this.entries = new Map();
+    this.hitCount = 0;
+    this.missCount = 0;
+};
+
+// 指定したAPIのキャッシュを作成する.
+ResponseCache.create = function(apiId, ttl, maxEntries) {
+    let cache = new ResponseCache(apiId, ttl, maxEntries);
+    _caches[apiId] = cache;
+    return cache;
+};
+
+// 全APIのキャッシュのヒット数・ミス数を取得する.
+ResponseCache.statistics = function() {
+    let result = {};
+    for (let apiId in _caches) {
+        let cache = _caches[apiId];
+        result[apiId] = {
+            hitCount: cache.hitCount,
+            missCount: cache.missCount,
+            size: cache.entries.size
+        };
+    }
+    return result;
+};
+
+ResponseCache.createKey = function(message, names) {
+    let params = message.params || {};
+    let key = '';
+    for (let i = 0; i < names.length; i++) {
+        let name = names[i];
+        let value = (params[name] !== undefined) ? params[name] : message[name];
+        key += name + '=' + value + '&';
+    }
+    return key;
+};
+
+// キャッシュされたレスポンスを設定する. 設定した場合は true を返す.
+ResponseCache.prototype.restore = function(key, message) {
+    let entry = this.entries.get(key);
+    if (entry === undefined || entry.expireTime <= Date.now()) {
+        this.entries.delete(key);
+        this.missCount++;
+        return false;
+    }
+    // 参照順を更新する
+    this.entries.delete(key);
+    this.entries.set(key, entry);
+    this.hitCount++;
+
+    // リクエストの値は上書きしない
+    for (let name in entry.message) {
+        if (!(name in message)) {
+            message[name] = entry.message[name];
+        }
+    }
+    message.result = 0;
+    return true;
+};
+
+// レスポンスを保存する. 正常終了したレスポンスのみ保存される.
+ResponseCache.prototype.store = function(key, message) {
+    if (message.result !== 0) {
+        return;
+    }
+    this.entries.delete(key);
+    this.entries.set(key, {
+        message: JSON.parse(JSON.stringify(message)),
+        expireTime: Date.now() + this.ttl
+    });
+    while (this.entries.size > this.maxEntries) {
+        this.entries.delete(this.entries.keys().next().value);
+    }
+};
+
+ResponseCache.prototype.clear = function() {
+    this.entries.clear();
+};
+
+module.exports = ResponseCache;
@@ -0,0 +1,67 @@
+package org.deviceconnect.codegen;
+
+
+import io.swagger.models.Swagger;
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+
+public class ProfileSpecCacheTest {
+
+    private File mDir;
+
+    @Before
+    public void setUp() throws Exception {
+        mDir = Files.createTempDirectory("spec-cache").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        delete(mDir);
+    }
+
+    @Test
+    public void testStoreEvictsLeastRecentlyUsedEntry() throws Exception {
+        ProfileSpecCache cache = new ProfileSpecCache(mDir, 2);
+        long now = System.currentTimeMillis();
+        cache.store("a", createSpecs());
+        setLastModified("a", now - 2000);
+        cache.store("b", createSpecs());
+        setLastModified("b", now - 1000);
+
+        // 読み込んだキャッシュは最近使用されたものとして残る
+        Assert.assertNotNull(cache.load("a"));
+        cache.store("c", createSpecs());
+
+        Assert.assertNotNull(cache.load("a"));
+        Assert.assertNull(cache.load("b"));
+        Assert.assertNotNull(cache.load("c"));
+    }
+
+    private void setLastModified(final String key, final long time) {
+        Assert.assertTrue(new File(mDir, key + ".smile").setLastModified(time));
+    }
+
+    private static Map<String, Swagger> createSpecs() {
+        Swagger swagger = new Swagger();
+        swagger.setBasePath("/gotapi/battery");
+        return Collections.singletonMap("battery", swagger);
+    }
+
+    private static void delete(final File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,64 @@
+package org.deviceconnect.codegen;
+
+
+import io.swagger.models.HttpMethod;
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import io.swagger.models.parameters.QueryParameter;
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class SpecDiffTest {
+
+    @Test
+    public void testPathLevelParameterChanged() throws Exception {
+        Map<String, Swagger> base = createSpecs(createParameter("serviceId", "string"), null);
+        Map<String, Swagger> target = createSpecs(createParameter("serviceId", "integer"), null);
+
+        List<SpecDiff.Change> changes = new SpecDiff().compare(base, target).getChanges();
+
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(HttpMethod.GET, changes.get(0).getMethod());
+        Assert.assertTrue(changes.get(0).getKinds().contains(SpecDiff.Kind.PARAMETERS_CHANGED));
+    }
+
+    @Test
+    public void testPathLevelParameterOverriddenByOperation() throws Exception {
+        // 同じ名前と位置のパラメータは API 側の定義が使われる
+        Map<String, Swagger> base = createSpecs(createParameter("serviceId", "string"),
+                createParameter("serviceId", "string"));
+        Map<String, Swagger> target = createSpecs(createParameter("serviceId", "integer"),
+                createParameter("serviceId", "string"));
+
+        Assert.assertTrue(new SpecDiff().compare(base, target).getChanges().isEmpty());
+    }
+
+    private static Map<String, Swagger> createSpecs(final QueryParameter pathParam,
+                                                    final QueryParameter opParam) {
+        Operation op = new Operation();
+        if (opParam != null) {
+            op.addParameter(opParam);
+        }
+        Path path = new Path();
+        path.setGet(op);
+        path.addParameter(pathParam);
+
+        Swagger swagger = new Swagger();
+        swagger.setBasePath("/gotapi/battery");
+        swagger.path("/", path);
+        return Collections.singletonMap("battery", swagger);
+    }
+
+    private static QueryParameter createParameter(final String name, final String type) {
+        QueryParameter param = new QueryParameter();
+        param.setName(name);
+        param.setType(type);
+        return param;
+    }
+}
@@ -0,0 +1,90 @@
+package org.deviceconnect.codegen.docs;
+
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class RenderStampsTest {
+
+    private File mDir;
+
+    @Before
+    public void setUp() throws Exception {
+        mDir = Files.createTempDirectory("render-stamps").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        delete(mDir);
+    }
+
+    @Test
+    public void testUpdateKeepsOutputsOfOutputDirWithTrailingSlash() throws Exception {
+        // -o out/ と指定した場合、出力ファイルのパスは "out//html/..." となる
+        String outputDir = mDir.getPath() + File.separator + "out" + File.separator;
+        File stampsFile = new File(outputDir, ".docs-stamps");
+        List<String> outputFiles = Arrays.asList(
+                create(outputDir + File.separator + "html" + File.separator + "battery.html"),
+                create(outputDir + File.separator + "html" + File.separator + "battery_get.html"));
+
+        RenderStamps stamps = RenderStamps.load(stampsFile);
+        stamps.update("battery", "digest1", outputFiles);
+        stamps.save();
+
+        // プロファイルが変更された場合、同じファイルを出力し直しても削除されないこと
+        stamps = RenderStamps.load(stampsFile);
+        Assert.assertFalse(stamps.isUpToDate("battery", "digest2", outputFiles));
+        stamps.update("battery", "digest2", outputFiles);
+        for (String outputFile : outputFiles) {
+            Assert.assertTrue(outputFile, new File(outputFile).exists());
+        }
+        Assert.assertTrue(stamps.isUpToDate("battery", "digest2", outputFiles));
+    }
+
+    @Test
+    public void testUpdateComparesNormalizedPaths() throws Exception {
+        String outputDir = mDir.getPath() + File.separator + "." + File.separator + "out";
+        File stampsFile = new File(mDir, "out" + File.separator + ".docs-stamps");
+        String kept = create(outputDir + File.separator + "html" + File.separator + "battery.html");
+        String obsolete = create(outputDir + File.separator + "html" + File.separator + "battery_get.html");
+
+        RenderStamps stamps = RenderStamps.load(stampsFile);
+        stamps.update("battery", "digest1", Arrays.asList(kept, obsolete));
+        stamps.save();
+
+        // 記録したときと異なる表記の出力先を指定しても、出力されなくなったファイルのみ削除されること
+        String sameFile = mDir.getPath() + File.separator + "out" + File.separator + "html"
+                + File.separator + "battery.html";
+        stamps = RenderStamps.load(new File(outputDir, ".docs-stamps"));
+        stamps.update("battery", "digest2", Collections.singletonList(sameFile));
+        Assert.assertTrue(new File(kept).exists());
+        Assert.assertFalse(new File(obsolete).exists());
+    }
+
+    private static String create(final String path) throws IOException {
+        File file = new File(path);
+        file.getParentFile().mkdirs();
+        Assert.assertTrue(file.createNewFile());
+        return path;
+    }
+
+    private static void delete(final File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
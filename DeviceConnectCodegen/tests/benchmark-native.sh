@@ -0,0 +1,60 @@
+#!/bin/sh
+
+# JVM 版 (jar) とネイティブバイナリの起動時間とスループットを比較する.
+#
+# 使い方: ./benchmark-native.sh [プロファイル定義ファイルのディレクトリ] [繰り返し回数]
+#
+# 起動時間: --help の表示にかかる時間
+# スループット: 指定されたディレクトリのプロファイル定義からスケルトンコードを出力する時間
+
+# スケルトンコード生成ツールのバイナリ
+JAR_FILE="../bin/deviceconnect-codegen.jar"
+NATIVE_FILE="../bin/deviceconnect-codegen"
+
+# プロファイル定義ファイルのディレクトリ
+SPEC_DIR=${1:-"../samples/sample-profile-specs/swagger-files"}
+
+# 繰り返し回数
+COUNT=${2:-10}
+
+# スケルトンコード種別
+LANG="deviceConnectAndroidPlugin"
+
+# スケルトンコード出力先
+OUTPUT_DIR="./output/benchmark"
+
+if [ ! -f $JAR_FILE ] || [ ! -x $NATIVE_FILE ]; then
+    echo "Build the jar (mvn package) and the native binary (mvn -Pnative package) first."
+    exit 1
+fi
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+# 指定されたコマンドを繰り返し実行し、1回あたりの平均時間 (ms) を表示する
+measure() {
+    label=$1
+    shift
+    start=$(now_ms)
+    i=0
+    while [ $i -lt $COUNT ]; do
+        rm -rf $OUTPUT_DIR
+        "$@" > /dev/null 2>&1
+        i=$((i + 1))
+    done
+    end=$(now_ms)
+    echo "$label: $(((end - start) / COUNT)) ms"
+}
+
+ARGS="--input-spec-dir $SPEC_DIR --lang $LANG --package-name com.mydomain.myplugin --connection-type binder --display-name MyPlugin --output $OUTPUT_DIR"
+
+echo "== startup (--help, $COUNT runs)"
+measure "jvm   " java -Dfile.encoding=UTF-8 -jar $JAR_FILE --help
+measure "native" $NATIVE_FILE --help
+
+echo "== throughput ($SPEC_DIR, $COUNT runs)"
+measure "jvm   " java -Dfile.encoding=UTF-8 -jar $JAR_FILE $ARGS
+measure "native" $NATIVE_FILE $ARGS
+
+rm -rf $OUTPUT_DIR
@@ -0,0 +1,212 @@
+package com.cgutman.adblib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.security.GeneralSecurityException;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class moves the packets of one AdbConnection over a non-blocking
+ * socket channel. Reads and writes are performed by the AdbEventLoop
+ * thread that owns the channel; other threads only queue packets.
+ */
+final class AdbChannelTransport {
+
+	/** The size of the buffer used for each read from the channel */
+	private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+	/** The connection that receives the decoded messages */
+	private final AdbConnection connection;
+
+	/** The underlying channel to the target device */
+	private final SocketChannel channel;
+
+	/** The buffer that each read from the channel is placed into */
+	private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+	/** Reassembles messages split across reads */
+	private final AdbMessageDecoder decoder = new AdbMessageDecoder();
+
+	/** Packets waiting to be written, guarded by itself */
+	private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<ByteBuffer>();
+
+	/** Specifies whether OP_WRITE has been requested for the queued packets */
+	private boolean writeScheduled;
+
+	/** Specifies whether the channel has been closed */
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+
+	/** The event loop thread that owns this channel */
+	private volatile AdbEventLoop.Worker worker;
+
+	/** The key of the channel in the worker's selector */
+	private volatile SelectionKey key;
+
+	/** Enables OP_WRITE on the worker thread once packets are queued */
+	private final Runnable enableWrite = new Runnable() {
+		@Override
+		public void run() {
+			SelectionKey k = key;
+			if (k == null)
+				return;
+
+			try {
+				k.interestOps(k.interestOps() | SelectionKey.OP_WRITE);
+			} catch (CancelledKeyException e) {
+				/* close() raced from another thread after the key was checked */
+				close();
+			}
+		}
+	};
+
+	AdbChannelTransport(AdbConnection connection, SocketChannel channel) throws IOException
+	{
+		this.connection = connection;
+		this.channel = channel;
+		channel.configureBlocking(false);
+	}
+
+	/**
+	 * Called by the event loop to assign the worker that will own the channel.
+	 * @param worker The worker thread's state
+	 */
+	void attach(AdbEventLoop.Worker worker)
+	{
+		this.worker = worker;
+	}
+
+	/**
+	 * Called on the worker thread to register the channel with its selector.
+	 * @param selector The selector of the worker
+	 */
+	void register(Selector selector)
+	{
+		if (closed.get())
+			return;
+
+		try {
+			int ops = SelectionKey.OP_READ;
+			synchronized (writeQueue) {
+				if (!writeQueue.isEmpty())
+					ops |= SelectionKey.OP_WRITE;
+			}
+			key = channel.register(selector, ops, this);
+		} catch (IOException e) {
+			close();
+		} catch (CancelledKeyException e) {
+			close();
+		}
+	}
+
+	/**
+	 * Queues a packet to be written by the event loop. Packets are written
+	 * in the order they are queued and are never interleaved.
+	 * @param packet The packet to send
+	 * @throws IOException If the channel is already closed
+	 */
+	void send(byte[] packet) throws IOException
+	{
+		if (closed.get())
+			throw new IOException("Connection closed");
+
+		boolean schedule;
+		synchronized (writeQueue) {
+			writeQueue.add(ByteBuffer.wrap(packet));
+			schedule = !writeScheduled;
+			writeScheduled = true;
+		}
+
+		/* Only the first packet of a batch needs to wake the selector */
+		if (schedule)
+			worker.execute(enableWrite);
+	}
+
+	/**
+	 * Called on the worker thread when the channel is ready.
+	 * @param k The selected key of the channel
+	 */
+	void handle(SelectionKey k)
+	{
+		try {
+			if (k.isReadable())
+				read();
+			if (k.isValid() && k.isWritable())
+				write(k);
+		} catch (Exception e) {
+			/* Same as the connection thread, any failure ends the connection */
+			close();
+		}
+	}
+
+	private void read() throws IOException, GeneralSecurityException
+	{
+		int bytesRead = channel.read(readBuffer);
+		if (bytesRead < 0)
+			throw new IOException("Stream closed");
+
+		readBuffer.flip();
+		AdbProtocol.AdbMessage msg;
+		while ((msg = decoder.decode(readBuffer)) != null)
+		{
+			/* Verify magic and checksum */
+			if (AdbProtocol.validateMessage(msg))
+				connection.handleMessage(msg);
+		}
+
+		/* The decoder has consumed everything that was read */
+		readBuffer.clear();
+	}
+
+	private void write(SelectionKey k) throws IOException
+	{
+		synchronized (writeQueue) {
+			ByteBuffer packet;
+			while ((packet = writeQueue.peek()) != null)
+			{
+				channel.write(packet);
+
+				/* The socket buffer is full, so wait for the next OP_WRITE */
+				if (packet.hasRemaining())
+					return;
+
+				writeQueue.poll();
+			}
+
+			k.interestOps(SelectionKey.OP_READ);
+			writeScheduled = false;
+		}
+	}
+
+	/**
+	 * Closes the channel and tells the connection that it is gone.
+	 * This may be called from any thread, any number of times.
+	 */
+	void close()
+	{
+		if (!closed.compareAndSet(false, true))
+			return;
+
+		SelectionKey k = key;
+		if (k != null)
+			k.cancel();
+
+		try {
+			channel.close();
+		} catch (IOException e) {}
+
+		synchronized (writeQueue) {
+			writeQueue.clear();
+		}
+
+		AdbEventLoop.Worker w = worker;
+		if (w != null)
+			w.connectionCount.decrementAndGet();
+
+		connection.onTransportClosed();
+	}
+}
@@ -7,7 +7,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.Socket;
-import java.util.HashMap;
+import java.nio.channels.SocketChannel;
+import java.security.GeneralSecurityException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class represents an ADB connection.
@@ -22,8 +26,9 @@ public class AdbConnection implements Closeable {
 	
 	/** The last allocated local stream ID. The ID
 	 * chosen for the next stream will be this value + 1.
+	 * Streams may be opened from several threads at once.
 	 */
-	private int lastLocalId;
+	private final AtomicInteger lastLocalId = new AtomicInteger();
 	
 	/**
 	 * The input stream that this class uses to read from
@@ -35,13 +40,25 @@ public class AdbConnection implements Closeable {
 	 * The output stream that this class uses to read from
 	 * the socket.
 	 */
-	OutputStream outputStream;
+	private OutputStream outputStream;
 	
 	/**
 	 * The backend thread that handles responding to ADB packets.
+	 * This is null when the connection is driven by an AdbEventLoop.
 	 */
 	private Thread connectionThread;
 	
+	/**
+	 * The non-blocking transport used instead of the socket and
+	 * connection thread when the connection is driven by an AdbEventLoop.
+	 */
+	private AdbChannelTransport transport;
+	
+	/**
+	 * The event loop that drives the transport.
+	 */
+	private AdbEventLoop eventLoop;
+	
 	/**
 	 * Specifies whether a connect has been attempted
 	 */
@@ -70,17 +87,16 @@ public class AdbConnection implements Closeable {
 	
 	/** 
 	 * A hash map of our open streams indexed by local ID.
+	 * It is shared between callers of open() and the thread receiving packets.
 	 **/
-	private HashMap<Integer, AdbStream> openStreams;
+	private Map<Integer, AdbStream> openStreams;
 	
 	/**
 	 * Internal constructor to initialize some internal state
 	 */
 	private AdbConnection()
 	{
-		openStreams = new HashMap<Integer, AdbStream>();
-		lastLocalId = 0;
-		connectionThread = createConnectionThread();
+		openStreams = new ConcurrentHashMap<Integer, AdbStream>();
 	}
 	
 	/**
@@ -104,6 +120,34 @@ public class AdbConnection implements Closeable {
 		/* Disable Nagle because we're sending tiny packets */
 		socket.setTcpNoDelay(true);
 		
+		newConn.connectionThread = newConn.createConnectionThread();
+		
+		return newConn;
+	}
+	
+	/**
+	 * Creates a AdbConnection object associated with the connected channel and
+	 * crypto object specified. Instead of a dedicated thread, the I/O of the
+	 * connection is performed by the event loop, which may be shared by many
+	 * connections.
+	 * @param channel The connected channel that the connection will use for communication.
+	 * @param crypto The crypto object that stores the key pair for authentication.
+	 * @param eventLoop The event loop that drives the channel.
+	 * @return A new AdbConnection object.
+	 * @throws IOException If there is a socket error
+	 */
+	public static AdbConnection create(SocketChannel channel, AdbCrypto crypto, AdbEventLoop eventLoop) throws IOException
+	{
+		AdbConnection newConn = new AdbConnection();
+		
+		newConn.crypto = crypto;
+		
+		/* Disable Nagle because we're sending tiny packets */
+		channel.socket().setTcpNoDelay(true);
+		
+		newConn.transport = new AdbChannelTransport(newConn, channel);
+		newConn.eventLoop = eventLoop;
+		
 		return newConn;
 	}
 	
@@ -128,93 +172,7 @@ public class AdbConnection implements Closeable {
 						if (!AdbProtocol.validateMessage(msg))
 							continue;
 						
-						switch (msg.command)
-						{
-						/* Stream-oriented commands */
-						case AdbProtocol.CMD_OKAY:
-						case AdbProtocol.CMD_WRTE:
-						case AdbProtocol.CMD_CLSE:
-							/* We must ignore all packets when not connected */
-							if (!conn.connected)
-								continue;
-							
-							/* Get the stream object corresponding to the packet */
-							AdbStream waitingStream = openStreams.get(msg.arg1);
-							if (waitingStream == null)
-								continue;
-							
-							synchronized (waitingStream) {
-								if (msg.command == AdbProtocol.CMD_OKAY)
-								{
-									/* We're ready for writes */
-									waitingStream.updateRemoteId(msg.arg0);
-									waitingStream.readyForWrite();
-									
-									/* Unwait an open/write */
-									waitingStream.notify();
-								}
-								else if (msg.command == AdbProtocol.CMD_WRTE)
-								{
-									/* Got some data from our partner */
-									waitingStream.addPayload(msg.payload);
-									
-									/* Tell it we're ready for more */
-									waitingStream.sendReady();
-								}
-								else if (msg.command == AdbProtocol.CMD_CLSE)
-								{
-									/* He doesn't like us anymore :-( */
-									conn.openStreams.remove(msg.arg1);
-									
-									/* Notify readers and writers */
-									waitingStream.notifyClose();
-								}					
-							}
-
-							break;
-							
-						case AdbProtocol.CMD_AUTH:
-							
-							byte[] packet;
-							
-							if (msg.arg0 == AdbProtocol.AUTH_TYPE_TOKEN)
-							{
-								/* This is an authentication challenge */
-								if (conn.sentSignature)
-								{
-									/* We've already tried our signature, so send our public key */
-									packet = AdbProtocol.generateAuth(AdbProtocol.AUTH_TYPE_RSA_PUBLIC,
-											conn.crypto.getAdbPublicKeyPayload());
-								}
-								else
-								{
-									/* We'll sign the token */
-									packet = AdbProtocol.generateAuth(AdbProtocol.AUTH_TYPE_SIGNATURE,
-											conn.crypto.signAdbTokenPayload(msg.payload));
-									conn.sentSignature = true;
-								}
-								
-								/* Write the AUTH reply */
-								conn.outputStream.write(packet);
-								conn.outputStream.flush();
-							}
-							break;
-						
-						case AdbProtocol.CMD_CNXN:
-							synchronized (conn) {
-								/* We need to store the max data size */
-								conn.maxData = msg.arg1;
-							
-								/* Mark us as connected and unwait anyone waiting on the connection */
-								conn.connected = true;
-								conn.notifyAll();
-							}
-							break;
-							
-						default:
-							/* Unrecognized packet, just drop it */
-							break;
-						}
+						conn.handleMessage(msg);
 					} catch (Exception e) {
 						/* The cleanup is taken care of by a combination of this thread
 						 * and close() */
@@ -223,15 +181,151 @@ public class AdbConnection implements Closeable {
 				}
 				
 				/* This thread takes care of cleaning up pending streams */
-				synchronized (conn) {
-					cleanupStreams();
-					conn.notifyAll();
-					conn.connectAttempted = false;
-				}
+				conn.onTransportClosed();
 			}
 		});
 	}
 	
+	/**
+	 * Handles a validated message from the peer. This is called by the
+	 * connection thread or by the event loop thread that owns the transport.
+	 * @param msg The received message
+	 * @throws IOException If the connection fails while replying
+	 * @throws GeneralSecurityException If the authentication token cannot be signed
+	 */
+	void handleMessage(AdbProtocol.AdbMessage msg) throws IOException, GeneralSecurityException
+	{
+		switch (msg.command)
+		{
+		/* Stream-oriented commands */
+		case AdbProtocol.CMD_OKAY:
+		case AdbProtocol.CMD_WRTE:
+		case AdbProtocol.CMD_CLSE:
+			/* We must ignore all packets when not connected */
+			if (!connected)
+				return;
+			
+			/* Get the stream object corresponding to the packet */
+			AdbStream waitingStream = openStreams.get(msg.arg1);
+			if (waitingStream == null)
+			{
+				/* The stream was abandoned before the peer replied, so ask
+				 * the peer to release its end as well */
+				if (msg.command != AdbProtocol.CMD_CLSE)
+					sendPacket(AdbProtocol.generateClose(msg.arg1, msg.arg0), true);
+				return;
+			}
+			
+			synchronized (waitingStream) {
+				if (msg.command == AdbProtocol.CMD_OKAY)
+				{
+					/* We're ready for writes */
+					waitingStream.updateRemoteId(msg.arg0);
+					waitingStream.readyForWrite();
+					
+					/* Unwait an open/write */
+					waitingStream.notify();
+				}
+				else if (msg.command == AdbProtocol.CMD_WRTE)
+				{
+					/* Got some data from our partner */
+					waitingStream.addPayload(msg.payload);
+					
+					/* Tell it we're ready for more */
+					waitingStream.sendReady();
+				}
+				else if (msg.command == AdbProtocol.CMD_CLSE)
+				{
+					/* He doesn't like us anymore :-( */
+					openStreams.remove(msg.arg1);
+					
+					/* Notify readers and writers */
+					waitingStream.notifyClose();
+				}					
+			}
+
+			break;
+			
+		case AdbProtocol.CMD_AUTH:
+			
+			byte[] packet;
+			
+			if (msg.arg0 == AdbProtocol.AUTH_TYPE_TOKEN)
+			{
+				/* This is an authentication challenge */
+				if (sentSignature)
+				{
+					/* We've already tried our signature, so send our public key */
+					packet = AdbProtocol.generateAuth(AdbProtocol.AUTH_TYPE_RSA_PUBLIC,
+							crypto.getAdbPublicKeyPayload());
+				}
+				else
+				{
+					/* We'll sign the token */
+					packet = AdbProtocol.generateAuth(AdbProtocol.AUTH_TYPE_SIGNATURE,
+							crypto.signAdbTokenPayload(msg.payload));
+					sentSignature = true;
+				}
+				
+				/* Write the AUTH reply */
+				sendPacket(packet, true);
+			}
+			break;
+		
+		case AdbProtocol.CMD_CNXN:
+			synchronized (this) {
+				/* We need to store the max data size */
+				maxData = msg.arg1;
+			
+				/* Mark us as connected and unwait anyone waiting on the connection */
+				connected = true;
+				notifyAll();
+			}
+			break;
+			
+		default:
+			/* Unrecognized packet, just drop it */
+			break;
+		}
+	}
+	
+	/**
+	 * Called once the transport is gone, either by the connection thread
+	 * or by the event loop. Pending streams are cleaned up and anyone
+	 * waiting on the connection is woken up.
+	 */
+	void onTransportClosed()
+	{
+		synchronized (this) {
+			cleanupStreams();
+			notifyAll();
+			connectAttempted = false;
+		}
+	}
+	
+	/**
+	 * Sends a packet to the peer. Packets from different threads are never
+	 * interleaved on the wire.
+	 * @param packet The packet to send
+	 * @param flush Specifies whether to send the packet immediately.
+	 * Packets sent through the event loop are always sent as soon as possible.
+	 * @throws IOException If the connection fails while sending the packet
+	 */
+	void sendPacket(byte[] packet, boolean flush) throws IOException
+	{
+		if (transport != null)
+		{
+			transport.send(packet);
+			return;
+		}
+		
+		synchronized (outputStream) {
+			outputStream.write(packet);
+			if (flush)
+				outputStream.flush();
+		}
+	}
+	
 	/**
 	 * Gets the max data size that the remote client supports.
 	 * A connection must have been attempted before calling this routine.
@@ -269,17 +363,29 @@ public class AdbConnection implements Closeable {
 		if (connected)
 			throw new IllegalStateException("Already connected");
 		
-		/* Write the CONNECT packet */
-		outputStream.write(AdbProtocol.generateConnect());
-		outputStream.flush();
-		
-		/* Start the connection thread to respond to the peer */
-		connectAttempted = true;
-		connectionThread.start();
+		if (transport != null)
+		{
+			/* Hand the channel to the event loop, which responds to the peer */
+			connectAttempted = true;
+			eventLoop.register(transport);
+			
+			/* Write the CONNECT packet */
+			sendPacket(AdbProtocol.generateConnect(), true);
+		}
+		else
+		{
+			/* Write the CONNECT packet */
+			sendPacket(AdbProtocol.generateConnect(), true);
+			
+			/* Start the connection thread to respond to the peer */
+			connectAttempted = true;
+			connectionThread.start();
+		}
 		
-		/* Wait for the connection to go live */
+		/* Wait for the connection to go live. A failure resets connectAttempted,
+		 * which may happen before we start waiting. */
 		synchronized (this) {
-			if (!connected)
+			while (!connected && connectAttempted)
 				wait();
 			
 			if (!connected) {
@@ -299,14 +405,14 @@ public class AdbConnection implements Closeable {
 	 */
 	public AdbStream open(String destination) throws UnsupportedEncodingException, IOException, InterruptedException
 	{
-		int localId = ++lastLocalId;
+		int localId = lastLocalId.incrementAndGet();
 		
 		if (!connectAttempted)
 			throw new IllegalStateException("connect() must be called first");
 		
 		/* Wait for the connect response */
 		synchronized (this) {
-			if (!connected)
+			while (!connected && connectAttempted)
 				wait();
 			
 			if (!connected) {
@@ -319,12 +425,18 @@ public class AdbConnection implements Closeable {
 		openStreams.put(localId, stream);
 		
 		/* Send the open */
-		outputStream.write(AdbProtocol.generateOpen(localId, destination));
-		outputStream.flush();
+		sendPacket(AdbProtocol.generateOpen(localId, destination), true);
 		
-		/* Wait for the connection thread to receive the OKAY */
-		synchronized (stream) {
-			stream.wait();
+		/* Wait for the connection thread to receive the OKAY. The reply may
+		 * already have been handled, so the state is checked before waiting. */
+		try {
+			synchronized (stream) {
+				while (!stream.isOpened() && !stream.isClosed())
+					stream.wait();
+			}
+		} catch (InterruptedException e) {
+			abandonStream(stream);
+			throw e;
 		}
 
 		// [MODIFIED] クローズするまでのデータがAdbStreamに残っている場合があるので、ここで例外は出さない.
@@ -341,14 +453,33 @@ public class AdbConnection implements Closeable {
 	public byte[] openAndRead(String destination) throws IOException, InterruptedException
 	{
 		AdbStream stream = open(destination);
-		synchronized (stream) {
-			while (!stream.isClosed()) {
-				stream.wait();
+		try {
+			synchronized (stream) {
+				while (!stream.isClosed()) {
+					stream.wait();
+				}
 			}
+		} catch (InterruptedException e) {
+			// [MODIFIED] 待機を中断された場合はストリームを閉じて、他のストリームに影響を残さない.
+			abandonStream(stream);
+			throw e;
 		}
 		return stream.pollAll();
 	}
 	
+	/**
+	 * Gives up on a stream whose caller stopped waiting. The stream is
+	 * forgotten and a close is sent so that the peer releases it too.
+	 * @param stream The abandoned stream
+	 */
+	private void abandonStream(AdbStream stream)
+	{
+		openStreams.remove(stream.getLocalId());
+		try {
+			stream.close();
+		} catch (IOException e) {}
+	}
+	
 	/**
 	 * This function terminates all I/O on streams associated with this ADB connection
 	 */
@@ -371,6 +502,13 @@ public class AdbConnection implements Closeable {
 	 */
 	@Override
 	public void close() throws IOException {
+		/* The event loop transport cleans up synchronously */
+		if (transport != null)
+		{
+			transport.close();
+			return;
+		}
+		
 		/* If the connection thread hasn't spawned yet, there's nothing to do */
 		if (connectionThread == null)
 			return;
@@ -0,0 +1,268 @@
+package com.cgutman.adblib;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class drives the I/O of many ADB connections from a small, fixed
+ * number of threads. Each thread owns a Selector and services the channels
+ * assigned to it, so no thread is parked per connection.
+ * Threads are started when the first connection is assigned to them.
+ */
+public class AdbEventLoop implements Closeable {
+
+	private static final Logger LOGGER = Logger.getLogger(AdbEventLoop.class.getName());
+
+	/** The number of threads used by the default constructor */
+	public static final int DEFAULT_THREAD_COUNT =
+			Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	/** The threads that service the channels */
+	private final Worker[] workers;
+
+	/** Used to assign connections to threads in a round-robin fashion */
+	private final AtomicInteger nextWorker = new AtomicInteger();
+
+	/** Specifies whether close() has been called */
+	private volatile boolean closed;
+
+	/**
+	 * Creates an event loop with the default number of threads.
+	 */
+	public AdbEventLoop()
+	{
+		this(DEFAULT_THREAD_COUNT);
+	}
+
+	/**
+	 * Creates an event loop with the specified number of threads.
+	 * @param threadCount The number of selector threads
+	 */
+	public AdbEventLoop(int threadCount)
+	{
+		if (threadCount <= 0)
+			throw new IllegalArgumentException("threadCount must be positive");
+
+		workers = new Worker[threadCount];
+		for (int i = 0; i < threadCount; i++)
+			workers[i] = new Worker(i);
+	}
+
+	/**
+	 * Assigns a channel to one of the threads.
+	 * @param transport The transport of the connection
+	 * @throws IOException If the loop is closed or a selector cannot be opened
+	 */
+	void register(final AdbChannelTransport transport) throws IOException
+	{
+		if (closed)
+			throw new IOException("Event loop is closed");
+
+		final Worker worker = workers[(nextWorker.getAndIncrement() & Integer.MAX_VALUE) % workers.length];
+		transport.attach(worker);
+		worker.connectionCount.incrementAndGet();
+		try {
+			worker.execute(new Runnable() {
+				@Override
+				public void run() {
+					transport.register(worker.selector);
+				}
+			});
+		} catch (IOException e) {
+			transport.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Retrieves the number of connections currently serviced by this loop.
+	 * @return The number of registered channels
+	 */
+	public int getConnectionCount()
+	{
+		int count = 0;
+		for (Worker worker : workers)
+			count += worker.connectionCount.get();
+		return count;
+	}
+
+	/**
+	 * Stops all threads. Connections still registered are closed.
+	 */
+	@Override
+	public void close()
+	{
+		closed = true;
+		for (Worker worker : workers)
+			worker.shutdown();
+	}
+
+	/**
+	 * A single selector thread and the tasks submitted to it.
+	 */
+	final class Worker implements Runnable {
+
+		/** The index of this worker, used for the thread name */
+		private final int index;
+
+		/** Tasks that must run on this thread, such as registrations */
+		private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+		/** The selector of this worker. Created on first use. */
+		private Selector selector;
+
+		/** The thread of this worker. Created on first use. */
+		private Thread thread;
+
+		/** Specifies whether the thread should keep running */
+		private volatile boolean running;
+
+		/** The number of channels assigned to this worker and not yet closed */
+		final AtomicInteger connectionCount = new AtomicInteger();
+
+		Worker(int index)
+		{
+			this.index = index;
+		}
+
+		/**
+		 * Runs a task on this worker's thread.
+		 * @param task The task to run
+		 * @throws IOException If the worker is stopped or its selector cannot be opened
+		 */
+		void execute(Runnable task) throws IOException
+		{
+			Selector s;
+			synchronized (this) {
+				if (thread == null)
+				{
+					if (closed)
+						throw new IOException("Event loop is closed");
+
+					selector = Selector.open();
+					running = true;
+					thread = new Thread(this, "AdbEventLoop-" + index);
+					thread.setDaemon(true);
+					thread.start();
+				}
+				else if (!running)
+				{
+					throw new IOException("Event loop is closed");
+				}
+				/* Queued under the lock so that shutdown never misses a registration */
+				tasks.add(task);
+				s = selector;
+			}
+			s.wakeup();
+		}
+
+		@Override
+		public void run()
+		{
+			try {
+				while (running)
+				{
+					selector.select();
+					runTasks();
+
+					Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+					while (it.hasNext())
+					{
+						SelectionKey key = it.next();
+						it.remove();
+						handleKey(key);
+					}
+				}
+			} catch (Exception e) {
+				/* The selector itself failed, so every channel on it is lost */
+				LOGGER.log(Level.SEVERE, "Selector of AdbEventLoop-" + index + " failed", e);
+			} finally {
+				shutdownSelector();
+			}
+		}
+
+		/* A failure only affects the channel of the key, never the other channels of this thread */
+		private void handleKey(SelectionKey key)
+		{
+			AdbChannelTransport transport = (AdbChannelTransport) key.attachment();
+			try {
+				if (key.isValid())
+					transport.handle(key);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "Failed to handle a channel", e);
+				transport.close();
+			}
+		}
+
+		private void runTasks()
+		{
+			Runnable task;
+			while ((task = tasks.poll()) != null)
+			{
+				try {
+					task.run();
+				} catch (RuntimeException e) {
+					/* Tasks close their own channel on failure, so just keep the thread alive */
+					LOGGER.log(Level.WARNING, "Failed to run a task", e);
+				}
+			}
+		}
+
+		private void shutdownSelector()
+		{
+			synchronized (this) {
+				running = false;
+			}
+
+			/* Registrations still queued are run so that their channels get closed below */
+			runTasks();
+
+			List<AdbChannelTransport> remaining = new ArrayList<AdbChannelTransport>();
+			for (SelectionKey key : selector.keys())
+				remaining.add((AdbChannelTransport) key.attachment());
+			for (AdbChannelTransport transport : remaining)
+				transport.close();
+
+			try {
+				selector.close();
+			} catch (IOException e) {}
+		}
+
+		/**
+		 * Stops the thread and waits for it to release its channels.
+		 */
+		void shutdown()
+		{
+			Thread t;
+			synchronized (this) {
+				t = thread;
+				if (t == null)
+					return;
+				if (running)
+				{
+					running = false;
+					selector.wakeup();
+				}
+			}
+
+			if (t != Thread.currentThread())
+			{
+				try {
+					t.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+	}
+}
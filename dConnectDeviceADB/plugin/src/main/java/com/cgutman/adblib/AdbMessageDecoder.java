@@ -0,0 +1,83 @@
+package com.cgutman.adblib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * This class decodes ADB messages incrementally from buffers filled by
+ * non-blocking reads. A message may be split at any byte, so a partial
+ * header or payload is kept until the rest of it arrives.
+ */
+final class AdbMessageDecoder {
+
+	/** The largest payload accepted from the peer. This is far above
+	 * what any ADB implementation sends, and protects us against a
+	 * corrupted length field allocating a huge array.
+	 */
+	static final int MAX_PAYLOAD_LENGTH = 1024 * 1024;
+
+	/** The header bytes received so far */
+	private final ByteBuffer header = ByteBuffer.allocate(AdbProtocol.ADB_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+
+	/** The message whose payload is being received, or null while reading a header */
+	private AdbProtocol.AdbMessage pending;
+
+	/** The number of payload bytes received for the pending message */
+	private int payloadRead;
+
+	/**
+	 * Consumes bytes from the buffer until a message is complete or the
+	 * buffer is exhausted. This message is NOT validated.
+	 * @param in Buffer in read mode. Its position is advanced past the consumed bytes.
+	 * @return The decoded message, or null if more data is needed
+	 * @throws IOException If the header specifies an invalid payload length
+	 */
+	AdbProtocol.AdbMessage decode(ByteBuffer in) throws IOException
+	{
+		if (pending == null)
+		{
+			/* Fill the header first */
+			int count = Math.min(in.remaining(), header.remaining());
+			if (in.hasArray())
+			{
+				header.put(in.array(), in.arrayOffset() + in.position(), count);
+				in.position(in.position() + count);
+			}
+			else
+			{
+				for (int i = 0; i < count; i++)
+					header.put(in.get());
+			}
+
+			if (header.hasRemaining())
+				return null;
+
+			header.flip();
+			AdbProtocol.AdbMessage msg = AdbProtocol.AdbMessage.parseHeader(header);
+			header.clear();
+
+			if (msg.payloadLength < 0 || msg.payloadLength > MAX_PAYLOAD_LENGTH)
+				throw new IOException("Invalid payload length: " + msg.payloadLength);
+
+			if (msg.payloadLength == 0)
+				return msg;
+
+			msg.payload = new byte[msg.payloadLength];
+			pending = msg;
+			payloadRead = 0;
+		}
+
+		/* Then the payload */
+		int count = Math.min(in.remaining(), pending.payloadLength - payloadRead);
+		in.get(pending.payload, payloadRead, count);
+		payloadRead += count;
+
+		if (payloadRead < pending.payloadLength)
+			return null;
+
+		AdbProtocol.AdbMessage msg = pending;
+		pending = null;
+		return msg;
+	}
+}
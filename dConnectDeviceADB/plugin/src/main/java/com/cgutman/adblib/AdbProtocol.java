@@ -276,7 +276,6 @@ public class AdbProtocol {
 		 */
 		public static AdbMessage parseAdbMessage(InputStream in) throws IOException
 		{
-			AdbMessage msg = new AdbMessage();
 			ByteBuffer packet = ByteBuffer.allocate(ADB_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
 			
 			/* Read the header first */
@@ -293,12 +292,7 @@ public class AdbProtocol {
 			while (dataRead < ADB_HEADER_LENGTH);
 			
 			/* Pull out header fields */
-			msg.command = packet.getInt();
-			msg.arg0 = packet.getInt();
-			msg.arg1 = packet.getInt();
-			msg.payloadLength = packet.getInt();
-			msg.checksum = packet.getInt();
-			msg.magic = packet.getInt();
+			AdbMessage msg = parseHeader(packet);
 			
 			/* If there's a payload supplied, read that too */
 			if (msg.payloadLength != 0)
@@ -320,5 +314,23 @@ public class AdbProtocol {
 			
 			return msg;
 		}
+		
+		/**
+		 * Parses the header fields of an ADB message. The payload is
+		 * not read by this routine.
+		 * @param header Little-endian buffer positioned at the start of the header
+		 * @return An AdbMessage object with the header fields filled in
+		 */
+		static AdbMessage parseHeader(ByteBuffer header)
+		{
+			AdbMessage msg = new AdbMessage();
+			msg.command = header.getInt();
+			msg.arg0 = header.getInt();
+			msg.arg1 = header.getInt();
+			msg.payloadLength = header.getInt();
+			msg.checksum = header.getInt();
+			msg.magic = header.getInt();
+			return msg;
+		}
 	}
 }
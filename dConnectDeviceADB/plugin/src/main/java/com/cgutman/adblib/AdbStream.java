@@ -31,6 +31,9 @@ public class AdbStream implements Closeable {
 	/** Indicates whether the connection is closed already */
 	private boolean isClosed;
 	
+	/** Indicates whether the peer has accepted the open */
+	private boolean isOpened;
+	
 	/**
 	 * Creates a new AdbStream object on the specified AdbConnection
 	 * with the given local ID.
@@ -67,8 +70,7 @@ public class AdbStream implements Closeable {
 	{
 		/* Generate and send a READY packet */
 		byte[] packet = AdbProtocol.generateReady(localId, remoteId);
-		adbConn.outputStream.write(packet);
-		adbConn.outputStream.flush();
+		adbConn.sendPacket(packet, true);
 	}
 	
 	/**
@@ -78,6 +80,17 @@ public class AdbStream implements Closeable {
 	void updateRemoteId(int remoteId)
 	{
 		this.remoteId = remoteId;
+		this.isOpened = true;
+	}
+	
+	/**
+	 * Retrieves whether the peer has accepted the open. This must be
+	 * called while holding the lock of this stream.
+	 * @return True if an OKAY has been received, false if not
+	 */
+	boolean isOpened()
+	{
+		return isOpened;
 	}
 	
 	/**
@@ -187,10 +200,7 @@ public class AdbStream implements Closeable {
 		
 		/* Generate a WRITE packet and send it */
 		byte[] packet = AdbProtocol.generateWrite(localId, remoteId, payload);
-		adbConn.outputStream.write(packet);
-		
-		if (flush)
-			adbConn.outputStream.flush();
+		adbConn.sendPacket(packet, flush);
 	}
 
 	/**
@@ -209,10 +219,17 @@ public class AdbStream implements Closeable {
 		}
 		
 		byte[] packet = AdbProtocol.generateClose(localId, remoteId);
-		adbConn.outputStream.write(packet);
-		adbConn.outputStream.flush();
+		adbConn.sendPacket(packet, true);
 	}
 
+	/**
+	 * Retrieves the local ID of the stream
+	 * @return The local ID
+	 */
+	int getLocalId() {
+		return localId;
+	}
+	
 	/**
 	 * Retreives whether the stream is closed or not
 	 * @return True if the stream is close, false if not
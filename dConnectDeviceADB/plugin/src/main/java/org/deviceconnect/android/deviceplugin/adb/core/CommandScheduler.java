@@ -0,0 +1,263 @@
+package org.deviceconnect.android.deviceplugin.adb.core;
+
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * 1 つの ADB 接続に対するコマンドの実行を管理するクラス.
+ *
+ * <p>
+ * ADB は 1 つの接続上で複数のストリームを同時に扱えるため、上限数までのコマンドを並行して実行する.
+ * 上限を超えたコマンドは到着順に待たせ、実行中のコマンドが終了するたびに先頭から実行する.
+ * タイムアウトは待ち時間を含めたコマンドごとの期限として扱い、期限を過ぎたコマンドは
+ * 待ち行列から取り除くか、実行中であれば割り込みによって中断する.
+ * </p>
+ */
+class CommandScheduler {
+
+    private final Executor mExecutor;
+    private final Object mLock = new Object();
+    private final ArrayDeque<Command<?>> mQueue = new ArrayDeque<>();
+    private final Set<Command<?>> mRunning = new HashSet<>();
+    private int mMaxConcurrentCommands;
+
+    /**
+     * コンストラクタ.
+     *
+     * @param executor コマンドを実行するスレッドプール
+     * @param maxConcurrentCommands 同時に実行するコマンドの上限数
+     */
+    CommandScheduler(final Executor executor, final int maxConcurrentCommands) {
+        mExecutor = executor;
+        setMaxConcurrentCommands(maxConcurrentCommands);
+    }
+
+    /**
+     * 同時に実行するコマンドの上限数を設定する.
+     *
+     * 上限を増やした場合は、待ち行列のコマンドを直ちに実行する.
+     *
+     * @param maxConcurrentCommands 同時に実行するコマンドの上限数
+     */
+    void setMaxConcurrentCommands(final int maxConcurrentCommands) {
+        if (maxConcurrentCommands <= 0) {
+            throw new IllegalArgumentException("maxConcurrentCommands is illegal.");
+        }
+        synchronized (mLock) {
+            mMaxConcurrentCommands = maxConcurrentCommands;
+            dispatch();
+        }
+    }
+
+    int getMaxConcurrentCommands() {
+        synchronized (mLock) {
+            return mMaxConcurrentCommands;
+        }
+    }
+
+    int getRunningCount() {
+        synchronized (mLock) {
+            return mRunning.size();
+        }
+    }
+
+    int getQueuedCount() {
+        synchronized (mLock) {
+            return mQueue.size();
+        }
+    }
+
+    /**
+     * コマンドを実行し、終了するまで待つ.
+     *
+     * @param command コマンド
+     * @param timeout 待ち時間を含めたタイムアウト (ミリ秒)
+     * @param <T> コマンドの実行結果の型
+     * @return コマンドの実行結果
+     * @throws IOException コマンドの実行に失敗した場合
+     * @throws ConnectionTimeoutException タイムアウトまでにコマンドが終了しなかった場合
+     * @throws InterruptedException 待機中に割り込まれた場合. コマンドは取り消される.
+     */
+    <T> T execute(final Command<T> command, final long timeout) throws IOException, InterruptedException {
+        command.mDeadline = System.currentTimeMillis() + timeout;
+        synchronized (mLock) {
+            mQueue.add(command);
+            dispatch();
+        }
+
+        boolean finished;
+        try {
+            finished = command.await();
+        } catch (InterruptedException e) {
+            cancel(command);
+            throw e;
+        }
+        if (!finished) {
+            cancel(command);
+            throw new ConnectionTimeoutException();
+        }
+        return command.getResult();
+    }
+
+    /**
+     * 待ち行列と実行中の全てのコマンドを取り消す.
+     *
+     * 取り消されたコマンドの呼び出し元には、指定した例外が通知される.
+     *
+     * @param reason 呼び出し元に通知する例外
+     */
+    void cancelAll(final IOException reason) {
+        List<Command<?>> commands;
+        synchronized (mLock) {
+            commands = new ArrayList<>(mQueue);
+            commands.addAll(mRunning);
+            mQueue.clear();
+        }
+        for (Command<?> command : commands) {
+            command.abort(reason);
+        }
+    }
+
+    private void cancel(final Command<?> command) {
+        synchronized (mLock) {
+            if (mQueue.remove(command)) {
+                return;
+            }
+        }
+        command.abort(null);
+    }
+
+    // mLock を取得した状態で呼び出すこと
+    private void dispatch() {
+        while (mRunning.size() < mMaxConcurrentCommands && !mQueue.isEmpty()) {
+            final Command<?> command = mQueue.poll();
+            if (command.isExpired()) {
+                // 呼び出し元がタイムアウトとして処理する
+                continue;
+            }
+            mRunning.add(command);
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        command.run();
+                    } finally {
+                        synchronized (mLock) {
+                            mRunning.remove(command);
+                            dispatch();
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * スケジューラで実行するコマンド.
+     *
+     * @param <T> 実行結果の型
+     */
+    abstract static class Command<T> {
+
+        private T mResult;
+        private Exception mError;
+        private boolean mFinished;
+        private boolean mAborted;
+        private Thread mRunningThread;
+        private long mDeadline;
+
+        /**
+         * コマンドの処理.
+         *
+         * 取り消された場合は、実行中のスレッドに割り込みが発生する.
+         *
+         * @return 実行結果
+         * @throws IOException 実行に失敗した場合
+         * @throws InterruptedException 取り消された場合
+         */
+        abstract T execute() throws IOException, InterruptedException;
+
+        void run() {
+            synchronized (this) {
+                if (mAborted) {
+                    return;
+                }
+                mRunningThread = Thread.currentThread();
+            }
+
+            T result = null;
+            Exception error = null;
+            try {
+                result = execute();
+            } catch (InterruptedException e) {
+                error = e;
+            } catch (IOException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                error = e;
+            }
+
+            synchronized (this) {
+                mRunningThread = null;
+                // 取り消しによる割り込み状態を、スレッドプールの次の処理に持ち越さない
+                Thread.interrupted();
+                finish(result, error);
+            }
+        }
+
+        synchronized boolean isExpired() {
+            return mAborted || System.currentTimeMillis() >= mDeadline;
+        }
+
+        synchronized boolean await() throws InterruptedException {
+            while (!mFinished) {
+                long remaining = mDeadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+            return true;
+        }
+
+        synchronized void abort(final IOException reason) {
+            mAborted = true;
+            if (reason != null) {
+                finish(null, reason);
+            }
+            if (mRunningThread != null) {
+                mRunningThread.interrupt();
+            }
+        }
+
+        private void finish(final T result, final Exception error) {
+            if (mFinished) {
+                return;
+            }
+            mResult = result;
+            mError = error;
+            mFinished = true;
+            notifyAll();
+        }
+
+        synchronized T getResult() throws IOException, InterruptedException {
+            if (mError == null) {
+                return mResult;
+            } else if (mError instanceof IOException) {
+                throw (IOException) mError;
+            } else if (mError instanceof InterruptedException) {
+                throw (InterruptedException) mError;
+            } else if (mError instanceof RuntimeException) {
+                throw (RuntimeException) mError;
+            } else {
+                throw new RuntimeException("Unexpected exception was set. Fix this bug.");
+            }
+        }
+    }
+}
@@ -4,12 +4,14 @@ package org.deviceconnect.android.deviceplugin.adb.core;
 import com.cgutman.adblib.AdbBase64;
 import com.cgutman.adblib.AdbConnection;
 import com.cgutman.adblib.AdbCrypto;
+import com.cgutman.adblib.AdbEventLoop;
 
 import java.io.IOException;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 
 
 public class Connection {
@@ -17,14 +19,24 @@ public class Connection {
     private static final String LOCALHOST = "localhost";
     public static final String LOOPBACK_ADDRESS = "127.0.0.1";
     public static final long DEFAULT_TIMEOUT = 30 * 1000; //ミリ秒
+    /**
+     * 1 つの接続で同時に実行するコマンドの上限数のデフォルト値.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_COMMANDS = 4;
+
+    /**
+     * コマンドを実行するスレッドプール.
+     * 全ての接続で共有し、実行中のコマンドがない間はスレッドを保持しない.
+     */
+    private static final ExecutorService COMMAND_EXECUTOR = Executors.newCachedThreadPool();
 
     private final String mIpAddress;
     private int mPortNum;
 
-    private AdbConnection mAdbConnection;
-    private final ScheduledExecutorService mExecutor = Executors.newSingleThreadScheduledExecutor();
-    private final Object mLock = new Object();
-    private Command mPendingCommand;
+    private volatile AdbConnection mAdbConnection;
+    private final Object mConnectLock = new Object();
+    private final CommandScheduler mScheduler =
+            new CommandScheduler(COMMAND_EXECUTOR, DEFAULT_MAX_CONCURRENT_COMMANDS);
 
     public Connection(final String ipAddress, final int portNum) {
         if (ipAddress == null) {
@@ -49,6 +61,21 @@ public class Connection {
         mPortNum = portNum;
     }
 
+    /**
+     * 同時に実行するコマンドの上限数を設定する.
+     *
+     * 上限を超えたコマンドは、実行中のコマンドが終了するまで到着順に待たされる.
+     *
+     * @param maxConcurrentCommands 上限数
+     */
+    public void setMaxConcurrentCommands(final int maxConcurrentCommands) {
+        mScheduler.setMaxConcurrentCommands(maxConcurrentCommands);
+    }
+
+    public int getMaxConcurrentCommands() {
+        return mScheduler.getMaxConcurrentCommands();
+    }
+
     public boolean isConnected() {
         return mAdbConnection != null;
     }
@@ -66,181 +93,111 @@ public class Connection {
         return LOCALHOST.equals(ipAddress) ? LOOPBACK_ADDRESS : ipAddress;
     }
 
-    void connect(final long timeout) throws IOException, InterruptedException {
-        if (mAdbConnection != null) {
-            return;
-        }
-        mAdbConnection = doCommand(new Command<AdbConnection>() {
-            @Override
-            public AdbConnection execute() throws IOException, InterruptedException {
-                try {
-                    Socket socket = new Socket(mIpAddress, mPortNum);
-                    AdbCrypto crypto = AdbCrypto.generateAdbKeyPair(new AdbBase64() {
-                        @Override
-                        public String encodeToString(byte[] data) {
-                            return android.util.Base64.encodeToString(data, 16);
+    void connect(final AdbEventLoop eventLoop, final long timeout) throws IOException, InterruptedException {
+        // 同時に呼び出された場合、後の呼び出しは先の接続の完了を待ってから判定する
+        synchronized (mConnectLock) {
+            if (mAdbConnection != null) {
+                return;
+            }
+            final PendingConnection pending = new PendingConnection();
+            boolean connected = false;
+            try {
+                mAdbConnection = mScheduler.execute(new CommandScheduler.Command<AdbConnection>() {
+                    @Override
+                    public AdbConnection execute() throws IOException, InterruptedException {
+                        // 接続後の送受信はイベントループのスレッドで行う
+                        SocketChannel channel = SocketChannel.open(new InetSocketAddress(mIpAddress, mPortNum));
+                        AdbConnection adbConn;
+                        try {
+                            AdbCrypto crypto = AdbCrypto.generateAdbKeyPair(new AdbBase64() {
+                                @Override
+                                public String encodeToString(byte[] data) {
+                                    return android.util.Base64.encodeToString(data, 16);
+                                }
+                            });
+                            adbConn = AdbConnection.create(channel, crypto, eventLoop);
+                        } catch (NoSuchAlgorithmException e) {
+                            channel.close();
+                            throw new RuntimeException(e);
+                        } catch (IOException e) {
+                            channel.close();
+                            throw e;
+                        }
+                        if (!pending.attach(adbConn)) {
+                            throw new InterruptedException();
                         }
-                    });
-                    AdbConnection adbConn = AdbConnection.create(socket, crypto);
-                    adbConn.connect();
-                    return adbConn;
-                } catch (NoSuchAlgorithmException e) {
-                    throw new RuntimeException(e);
+                        adbConn.connect();
+                        return adbConn;
+                    }
+                }, timeout);
+                connected = true;
+            } finally {
+                if (!connected) {
+                    // 失敗・タイムアウト・割り込みのいずれでも、作成途中の接続を閉じる
+                    pending.abandon();
                 }
             }
-        }, timeout);
+        }
     }
 
     void disconnect() throws IOException {
-        synchronized (mLock) {
-            if (mPendingCommand != null) {
-                mPendingCommand.cancel();
-                mPendingCommand = null;
-            }
-        }
-        if (mAdbConnection != null) {
-            mAdbConnection.close();
+        mScheduler.cancelAll(new IOException("Disconnected from " + toString()));
+        AdbConnection adbConn = mAdbConnection;
+        if (adbConn != null) {
+            adbConn.close();
             mAdbConnection = null;
         }
     }
 
     public byte[] openAndRead(final String destination, final long timeout)
             throws IOException, InterruptedException {
-        if (mAdbConnection == null) {
+        final AdbConnection adbConn = mAdbConnection;
+        if (adbConn == null) {
             throw new IOException("Not connected to " + toString());
         }
 
-        return doCommand(new Command<byte[]>() {
+        // 同じ接続上で複数のストリームを並行して開く
+        return mScheduler.execute(new CommandScheduler.Command<byte[]>() {
             @Override
             public byte[] execute() throws IOException, InterruptedException {
-                return mAdbConnection.openAndRead(destination);
+                return adbConn.openAndRead(destination);
             }
         }, timeout);
     }
 
-    private <T> T doCommand(final Command<T> command, final long timeout)
-            throws IOException, InterruptedException {
-        synchronized (mLock) {
-            if (mPendingCommand != null) {
-                throw new IOException(mIpAddress + " is busy.");
-            }
-            mPendingCommand = command;
-        }
-
-        mExecutor.execute(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    command.mRunningThread = Thread.currentThread();
-                    command.success(command.execute());
-                } catch (InterruptedException e) {
-                    // NOP.
-                } catch (IllegalStateException e) {
-                    command.error(e);
-                } catch (IOException e) {
-                    command.error(e);
-                } catch (RuntimeException e) {
-                    command.error(e);
-                } finally {
-                    mPendingCommand = null;
-                    synchronized (command) {
-                        command.notifyAll();
-                    }
-                }
-            }
-        });
-
-        synchronized (command) {
-            if (!command.isFinished()) {
-                command.wait(timeout);
-            }
-            if (command.isFinished()) {
-                if (command.isSuccess()) {
-                    return command.getResult();
-                } else {
-                    command.throwException();
-                    return null; // NOTE: Never return in this case.
-                }
-            } else {
-                command.cancel();
-                throw new ConnectionTimeoutException();
-            }
-        }
-    }
-
     @Override
     public String toString() {
         return mIpAddress + ":" + mPortNum;
     }
 
-    private abstract class Command<T> {
+    /**
+     * 接続処理中の AdbConnection.
+     *
+     * 呼び出し元が待つのをやめた後に確立した接続も、ここから閉じる.
+     */
+    private static class PendingConnection {
 
-        final CommandResult<T> mCommandResult = new CommandResult<>();
-        Thread mRunningThread;
-        boolean misFinished;
-
-        T getResult() {
-            return mCommandResult.mResult;
-        }
-
-        boolean isFinished() {
-            return misFinished;
-        }
+        private AdbConnection mConnection;
+        private boolean mAbandoned;
 
-        boolean isSuccess() {
-            return mCommandResult.isSuccess();
-        }
-
-        void success(final T result) {
-            mCommandResult.success(result);
-            mRunningThread = null;
-            misFinished = true;
-        }
-
-        void error(final Exception error) {
-            mCommandResult.error(error);
-            mRunningThread = null;
-            misFinished = true;
-        }
-
-        void cancel() {
-            if (mRunningThread != null) {
-                mRunningThread.interrupt();
+        synchronized boolean attach(final AdbConnection conn) throws IOException {
+            if (mAbandoned) {
+                conn.close();
+                return false;
             }
+            mConnection = conn;
+            return true;
         }
 
-        void throwException() throws IOException, IllegalStateException {
-            mCommandResult.throwException();
-        }
-
-        public abstract T execute() throws IOException, InterruptedException;
-    }
-
-    private static class CommandResult<T> {
-        T mResult;
-        Exception mError;
-
-        boolean isSuccess() {
-            return mResult != null;
-        }
-
-        void success(final T result) {
-            mResult = result;
-        }
-
-        void error(final Exception error) {
-            mError = error;
-        }
-
-        void throwException() throws IOException, IllegalStateException {
-            if (mError instanceof IOException) {
-                throw ((IOException) mError);
-            } else if (mError instanceof IllegalStateException) {
-                throw ((IllegalStateException) mError);
-            } else if (mError instanceof RuntimeException) {
-                throw ((RuntimeException) mError);
-            } else {
-                throw new RuntimeException("Unexpected exception was set. Fix this bug.");
+        synchronized void abandon() {
+            mAbandoned = true;
+            if (mConnection != null) {
+                try {
+                    mConnection.close();
+                } catch (IOException e) {
+                    // NOP.
+                }
+                mConnection = null;
             }
         }
     }
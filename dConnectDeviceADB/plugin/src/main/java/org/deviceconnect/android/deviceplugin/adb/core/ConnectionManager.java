@@ -3,6 +3,8 @@ package org.deviceconnect.android.deviceplugin.adb.core;
 
 import android.content.Context;
 
+import com.cgutman.adblib.AdbEventLoop;
+
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -20,11 +22,17 @@ public class ConnectionManager {
     private final List<ConnectionListener> mConnectionListeners = new ArrayList<>();
     private final ScheduledExecutorService mListenerExecutor;
     private final ConnectionDBHelper mDBHelper;
+    /**
+     * 全ての ADB 接続の送受信を行うイベントループ.
+     * 接続ごとにスレッドを割り当てずに、少数のスレッドで全ての接続を処理する.
+     */
+    private final AdbEventLoop mEventLoop;
     private Logger mLogger;
 
     ConnectionManager(final Context context, final Logger logger) {
         mDBHelper = new ConnectionDBHelper(context);
         mListenerExecutor = Executors.newScheduledThreadPool(4);
+        mEventLoop = new AdbEventLoop();
         mLogger = logger;
         initConnections();
     }
@@ -51,6 +59,7 @@ public class ConnectionManager {
         mConnectionListeners.clear();
         mListenerExecutor.shutdown();
         disconnectAll();
+        mEventLoop.close();
     }
 
     public void reset() {
@@ -73,7 +82,7 @@ public class ConnectionManager {
     }
 
     public void connect(final Connection conn, final long timeout) throws IOException, InterruptedException {
-        conn.connect(timeout);
+        conn.connect(mEventLoop, timeout);
         notifyOnConnected(conn);
     }
 
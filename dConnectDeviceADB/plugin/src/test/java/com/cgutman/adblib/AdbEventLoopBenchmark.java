@@ -0,0 +1,139 @@
+package com.cgutman.adblib;
+
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 接続ごとにスレッドを持つ方式とイベントループ方式のスケーラビリティの比較.
+ *
+ * <p>
+ * {@link FakeAdbDaemon} に対して指定数の接続を確立し、接続の所要時間・生存スレッド数・
+ * コマンドのスループットを計測する. JUnit のテストではなく、次のように直接実行する.
+ * </p>
+ * <pre>
+ * java -cp ... com.cgutman.adblib.AdbEventLoopBenchmark [接続数...]
+ * </pre>
+ */
+public class AdbEventLoopBenchmark {
+
+    private static final int COMMANDS_PER_CONNECTION = 10;
+    private static final int CALLER_THREADS = 16;
+
+    public static void main(final String[] args) throws Exception {
+        int[] counts = {10, 100, 1000};
+        if (args.length > 0) {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println("mode    conns  connect(ms)  threads  commands/s  close(ms)");
+        for (int count : counts) {
+            run("thread", count);
+            run("loop", count);
+        }
+    }
+
+    private static void run(final String mode, final int count) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        FakeAdbDaemon daemon = new FakeAdbDaemon();
+        AdbEventLoop eventLoop = "loop".equals(mode) ? new AdbEventLoop() : null;
+        ExecutorService callers = Executors.newFixedThreadPool(CALLER_THREADS);
+        try {
+            // 呼び出し側のスレッドを先に生成しておき、計測対象から除く
+            warmUp(callers);
+            System.gc();
+            int baseThreads = threads.getThreadCount();
+
+            long start = System.nanoTime();
+            final List<AdbConnection> connections = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                connections.add(connect(daemon.getPort(), eventLoop));
+            }
+            long connectTime = System.nanoTime() - start;
+            int liveThreads = threads.getThreadCount() - baseThreads;
+
+            start = System.nanoTime();
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < CALLER_THREADS; t++) {
+                final int offset = t;
+                futures.add(callers.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int n = 0; n < COMMANDS_PER_CONNECTION; n++) {
+                            for (int i = offset; i < connections.size(); i += CALLER_THREADS) {
+                                byte[] result = connections.get(i).openAndRead("shell:echo " + i);
+                                if (result.length == 0) {
+                                    throw new IllegalStateException("No output from connection " + i);
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> f : futures) {
+                f.get();
+            }
+            long commandTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (AdbConnection conn : connections) {
+                conn.close();
+            }
+            long closeTime = System.nanoTime() - start;
+
+            double commandsPerSec = (double) count * COMMANDS_PER_CONNECTION / (commandTime / 1e9);
+            System.out.println(String.format("%-6s %6d %12d %8d %11.0f %10d",
+                    mode, count, connectTime / 1000000, liveThreads, commandsPerSec, closeTime / 1000000));
+        } finally {
+            callers.shutdownNow();
+            if (eventLoop != null) {
+                eventLoop.close();
+            }
+            daemon.close();
+        }
+    }
+
+    private static AdbConnection connect(final int port, final AdbEventLoop eventLoop) throws Exception {
+        AdbConnection conn;
+        if (eventLoop != null) {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", port));
+            conn = AdbConnection.create(channel, null, eventLoop);
+        } else {
+            conn = AdbConnection.create(new Socket("127.0.0.1", port), null);
+        }
+        conn.connect();
+        return conn;
+    }
+
+    private static void warmUp(final ExecutorService callers) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLER_THREADS; i++) {
+            futures.add(callers.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        // NOP.
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.cgutman.adblib;
+
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class AdbEventLoopTest {
+
+    private FakeAdbDaemon mDaemon;
+    private AdbEventLoop mEventLoop;
+
+    @Before
+    public void setUp() throws Exception {
+        mDaemon = new FakeAdbDaemon();
+        mEventLoop = new AdbEventLoop(2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mEventLoop.close();
+        mDaemon.close();
+    }
+
+    @Test
+    public void testOpenAndReadOnManyConnections() throws Exception {
+        List<AdbConnection> connections = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            AdbConnection conn = connect();
+            connections.add(conn);
+        }
+        Assert.assertEquals(50, mEventLoop.getConnectionCount());
+
+        for (int i = 0; i < connections.size(); i++) {
+            byte[] result = connections.get(i).openAndRead("shell:echo " + i);
+            Assert.assertEquals("echo " + i, new String(result, "UTF-8"));
+        }
+
+        for (AdbConnection conn : connections) {
+            conn.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentStreamsOnOneConnection() throws Exception {
+        final AdbConnection conn = connect();
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final int index = i;
+                results.add(callers.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return new String(conn.openAndRead("shell:echo " + index), "UTF-8");
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals("echo " + i, results.get(i).get());
+            }
+        } finally {
+            callers.shutdownNow();
+            conn.close();
+        }
+    }
+
+    @Test
+    public void testOpenFailsAfterClose() throws Exception {
+        AdbConnection conn = connect();
+        conn.close();
+
+        try {
+            conn.open("shell:echo");
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // connect() の状態がリセットされていること.
+        }
+    }
+
+    @Test
+    public void testCloseEventLoopClosesConnections() throws Exception {
+        AdbConnection conn = connect();
+        mEventLoop.close();
+
+        try {
+            conn.openAndRead("shell:echo");
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // NOP.
+        }
+    }
+
+    @Test
+    public void testWorkerSurvivesFailingTask() throws Exception {
+        mEventLoop.close();
+        mEventLoop = new AdbEventLoop(1);
+        AdbConnection conn = connect();
+
+        Field field = AdbEventLoop.class.getDeclaredField("workers");
+        field.setAccessible(true);
+        AdbEventLoop.Worker worker = ((AdbEventLoop.Worker[]) field.get(mEventLoop))[0];
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("test");
+            }
+        });
+
+        // 失敗したタスクの後も同じスレッドの接続が動作すること.
+        Assert.assertEquals("echo 1", new String(conn.openAndRead("shell:echo 1"), "UTF-8"));
+        AdbConnection other = connect();
+        Assert.assertEquals("echo 2", new String(other.openAndRead("shell:echo 2"), "UTF-8"));
+
+        other.close();
+        conn.close();
+    }
+
+    private AdbConnection connect() throws Exception {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", mDaemon.getPort()));
+        AdbConnection conn = AdbConnection.create(channel, null, mEventLoop);
+        conn.connect();
+        return conn;
+    }
+}
@@ -0,0 +1,63 @@
+package com.cgutman.adblib;
+
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class AdbMessageDecoderTest {
+
+    @Test
+    public void testDecodeSplitAtEveryByte() throws Exception {
+        byte[] packet = AdbProtocol.generateWrite(1, 2, "hello".getBytes("UTF-8"));
+
+        for (int split = 0; split <= packet.length; split++) {
+            AdbMessageDecoder decoder = new AdbMessageDecoder();
+            AdbProtocol.AdbMessage msg = decoder.decode(ByteBuffer.wrap(packet, 0, split));
+            if (split < packet.length) {
+                Assert.assertNull(msg);
+                msg = decoder.decode(ByteBuffer.wrap(packet, split, packet.length - split));
+            }
+            Assert.assertNotNull(msg);
+            Assert.assertEquals(AdbProtocol.CMD_WRTE, msg.command);
+            Assert.assertEquals(1, msg.arg0);
+            Assert.assertEquals(2, msg.arg1);
+            Assert.assertEquals("hello", new String(msg.payload, "UTF-8"));
+            Assert.assertTrue(AdbProtocol.validateMessage(msg));
+        }
+    }
+
+    @Test
+    public void testDecodeMultipleMessages() throws Exception {
+        byte[] ready = AdbProtocol.generateReady(3, 4);
+        byte[] write = AdbProtocol.generateWrite(3, 4, new byte[] {1, 2, 3});
+        byte[] close = AdbProtocol.generateClose(3, 4);
+        ByteBuffer in = ByteBuffer.allocate(ready.length + write.length + close.length);
+        in.put(ready).put(write).put(close).flip();
+
+        AdbMessageDecoder decoder = new AdbMessageDecoder();
+        Assert.assertEquals(AdbProtocol.CMD_OKAY, decoder.decode(in).command);
+        Assert.assertEquals(AdbProtocol.CMD_WRTE, decoder.decode(in).command);
+        Assert.assertEquals(AdbProtocol.CMD_CLSE, decoder.decode(in).command);
+        Assert.assertNull(decoder.decode(in));
+        Assert.assertFalse(in.hasRemaining());
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecodeTooLargePayload() throws Exception {
+        ByteBuffer header = ByteBuffer.allocate(AdbProtocol.ADB_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(AdbProtocol.CMD_WRTE);
+        header.putInt(1);
+        header.putInt(2);
+        header.putInt(AdbMessageDecoder.MAX_PAYLOAD_LENGTH + 1);
+        header.putInt(0);
+        header.putInt(~AdbProtocol.CMD_WRTE);
+        header.flip();
+
+        new AdbMessageDecoder().decode(header);
+    }
+}
@@ -0,0 +1,181 @@
+package com.cgutman.adblib;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * テスト用の ADB デーモン.
+ *
+ * <p>
+ * 1 つのスレッドで全ての接続を処理する. 認証は行わずに CNXN に応答し、
+ * "shell:" で始まるストリームを開かれた場合は、コマンド文字列をそのまま出力してストリームを閉じる.
+ * </p>
+ */
+class FakeAdbDaemon implements Closeable {
+
+    private static final String SHELL_PREFIX = "shell:";
+
+    private final Selector mSelector;
+    private final ServerSocketChannel mServer;
+    private final Thread mThread;
+    private volatile boolean mRunning = true;
+
+    FakeAdbDaemon() throws IOException {
+        mSelector = Selector.open();
+        mServer = ServerSocketChannel.open();
+        mServer.socket().bind(new InetSocketAddress("127.0.0.1", 0), 4096);
+        mServer.configureBlocking(false);
+        mServer.register(mSelector, SelectionKey.OP_ACCEPT);
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "FakeAdbDaemon");
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    int getPort() {
+        return mServer.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mRunning = false;
+        mSelector.wakeup();
+        try {
+            mThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loop() {
+        try {
+            while (mRunning) {
+                mSelector.select();
+                Iterator<SelectionKey> it = mSelector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        ((Client) key.attachment()).handle(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // NOP.
+        } finally {
+            for (SelectionKey key : mSelector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException e) {
+                    // NOP.
+                }
+            }
+            try {
+                mSelector.close();
+            } catch (IOException e) {
+                // NOP.
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = mServer.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.register(mSelector, SelectionKey.OP_READ, new Client(channel));
+        }
+    }
+
+    private static class Client {
+        final SocketChannel mChannel;
+        final ByteBuffer mReadBuffer = ByteBuffer.allocate(8192);
+        final AdbMessageDecoder mDecoder = new AdbMessageDecoder();
+        final ArrayDeque<ByteBuffer> mWriteQueue = new ArrayDeque<>();
+        int mLastRemoteId;
+
+        Client(final SocketChannel channel) {
+            mChannel = channel;
+        }
+
+        void handle(final SelectionKey key) {
+            try {
+                if (key.isReadable()) {
+                    if (mChannel.read(mReadBuffer) < 0) {
+                        throw new IOException("closed");
+                    }
+                    mReadBuffer.flip();
+                    AdbProtocol.AdbMessage msg;
+                    while ((msg = mDecoder.decode(mReadBuffer)) != null) {
+                        onMessage(msg);
+                    }
+                    mReadBuffer.clear();
+                }
+                while (!mWriteQueue.isEmpty()) {
+                    ByteBuffer packet = mWriteQueue.peek();
+                    mChannel.write(packet);
+                    if (packet.hasRemaining()) {
+                        break;
+                    }
+                    mWriteQueue.poll();
+                }
+                key.interestOps(mWriteQueue.isEmpty()
+                        ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } catch (IOException e) {
+                key.cancel();
+                try {
+                    mChannel.close();
+                } catch (IOException e1) {
+                    // NOP.
+                }
+            }
+        }
+
+        private void onMessage(final AdbProtocol.AdbMessage msg) throws IOException {
+            switch (msg.command) {
+                case AdbProtocol.CMD_CNXN:
+                    send(AdbProtocol.generateMessage(AdbProtocol.CMD_CNXN, AdbProtocol.CONNECT_VERSION,
+                            AdbProtocol.CONNECT_MAXDATA, "device::\0".getBytes("UTF-8")));
+                    break;
+                case AdbProtocol.CMD_OPEN: {
+                    int remoteId = ++mLastRemoteId;
+                    int localId = msg.arg0;
+                    String destination = new String(msg.payload, 0, msg.payloadLength - 1, "UTF-8");
+                    if (!destination.startsWith(SHELL_PREFIX)) {
+                        send(AdbProtocol.generateClose(0, localId));
+                        break;
+                    }
+                    byte[] output = destination.substring(SHELL_PREFIX.length()).getBytes("UTF-8");
+                    send(AdbProtocol.generateReady(remoteId, localId));
+                    send(AdbProtocol.generateWrite(remoteId, localId, output));
+                    send(AdbProtocol.generateClose(remoteId, localId));
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+
+        private void send(final byte[] packet) {
+            mWriteQueue.add(ByteBuffer.wrap(packet));
+        }
+    }
+}
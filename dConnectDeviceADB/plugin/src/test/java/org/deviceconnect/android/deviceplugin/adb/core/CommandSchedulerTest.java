@@ -0,0 +1,209 @@
+package org.deviceconnect.android.deviceplugin.adb.core;
+
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CommandSchedulerTest {
+
+    private final ExecutorService mWorkers = Executors.newCachedThreadPool();
+    private final ExecutorService mCallers = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() throws Exception {
+        mCallers.shutdownNow();
+        mWorkers.shutdownNow();
+    }
+
+    @Test
+    public void testRunsUpToLimitConcurrently() throws Exception {
+        final CommandScheduler scheduler = new CommandScheduler(mWorkers, 3);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final int value = i;
+            results.add(submit(scheduler, new CommandScheduler.Command<Integer>() {
+                @Override
+                Integer execute() throws InterruptedException {
+                    int n = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), n));
+                    }
+                    Thread.sleep(50);
+                    running.decrementAndGet();
+                    return value;
+                }
+            }, 5000));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            Assert.assertEquals(i, (int) results.get(i).get());
+        }
+        Assert.assertEquals(3, maxRunning.get());
+        waitFor(scheduler, 0, 0);
+    }
+
+    @Test
+    public void testQueuedCommandsRunInArrivalOrder() throws Exception {
+        final CommandScheduler scheduler = new CommandScheduler(mWorkers, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Future<Integer> blocker = submit(scheduler, new CommandScheduler.Command<Integer>() {
+            @Override
+            Integer execute() throws InterruptedException {
+                release.await();
+                return -1;
+            }
+        }, 5000);
+        waitFor(scheduler, 1, 0);
+
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final int value = i;
+            results.add(submit(scheduler, new CommandScheduler.Command<Integer>() {
+                @Override
+                Integer execute() {
+                    order.add(value);
+                    return value;
+                }
+            }, 5000));
+            waitFor(scheduler, 1, i + 1);
+        }
+
+        release.countDown();
+        Assert.assertEquals(-1, (int) blocker.get());
+        for (Future<Integer> f : results) {
+            f.get();
+        }
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), order);
+    }
+
+    @Test
+    public void testTimeoutWhileQueued() throws Exception {
+        final CommandScheduler scheduler = new CommandScheduler(mWorkers, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Future<Integer> blocker = submit(scheduler, new CommandScheduler.Command<Integer>() {
+            @Override
+            Integer execute() throws InterruptedException {
+                release.await();
+                return 0;
+            }
+        }, 5000);
+        waitFor(scheduler, 1, 0);
+
+        final AtomicInteger executed = new AtomicInteger();
+        Future<Integer> queued = submit(scheduler, new CommandScheduler.Command<Integer>() {
+            @Override
+            Integer execute() {
+                executed.incrementAndGet();
+                return 1;
+            }
+        }, 100);
+        assertCause(ConnectionTimeoutException.class, queued);
+        Assert.assertEquals(0, scheduler.getQueuedCount());
+
+        release.countDown();
+        blocker.get();
+        Assert.assertEquals(0, executed.get());
+    }
+
+    @Test
+    public void testTimeoutWhileRunningInterruptsAndFreesSlot() throws Exception {
+        final CommandScheduler scheduler = new CommandScheduler(mWorkers, 1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Future<Integer> slow = submit(scheduler, new CommandScheduler.Command<Integer>() {
+            @Override
+            Integer execute() throws InterruptedException {
+                try {
+                    Thread.sleep(60 * 1000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return 0;
+            }
+        }, 100);
+        assertCause(ConnectionTimeoutException.class, slow);
+        Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+        Future<Integer> next = submit(scheduler, new CommandScheduler.Command<Integer>() {
+            @Override
+            Integer execute() {
+                return 1;
+            }
+        }, 5000);
+        Assert.assertEquals(1, (int) next.get());
+    }
+
+    @Test
+    public void testCancelAll() throws Exception {
+        final CommandScheduler scheduler = new CommandScheduler(mWorkers, 1);
+        Future<Integer> running = submit(scheduler, newSleeper(), 60 * 1000);
+        waitFor(scheduler, 1, 0);
+        Future<Integer> queued = submit(scheduler, newSleeper(), 60 * 1000);
+        waitFor(scheduler, 1, 1);
+
+        scheduler.cancelAll(new IOException("Disconnected"));
+        assertCause(IOException.class, running);
+        assertCause(IOException.class, queued);
+        Assert.assertEquals(0, scheduler.getQueuedCount());
+    }
+
+    private static CommandScheduler.Command<Integer> newSleeper() {
+        return new CommandScheduler.Command<Integer>() {
+            @Override
+            Integer execute() throws InterruptedException {
+                Thread.sleep(60 * 1000);
+                return 0;
+            }
+        };
+    }
+
+    private <T> Future<T> submit(final CommandScheduler scheduler, final CommandScheduler.Command<T> command,
+                                 final long timeout) {
+        return mCallers.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                return scheduler.execute(command, timeout);
+            }
+        });
+    }
+
+    private static void waitFor(final CommandScheduler scheduler, final int running, final int queued)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getRunningCount() != running || scheduler.getQueuedCount() != queued) {
+            if (System.currentTimeMillis() > deadline) {
+                Assert.fail("running=" + scheduler.getRunningCount() + ", queued=" + scheduler.getQueuedCount());
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static void assertCause(final Class<? extends Exception> expected, final Future<?> future)
+            throws InterruptedException {
+        try {
+            future.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause().toString(), expected.isInstance(e.getCause()));
+        }
+    }
+}